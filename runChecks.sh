@@ -0,0 +1,4 @@
+#!/bin/sh
+make clean
+make all
+java -cp ./build/Build.jar schedulesearch.SelfCheck example_input1.txt example_input2.txt example_input3.txt example_input4.txt example_input5.txt
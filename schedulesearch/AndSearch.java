@@ -1,16 +1,35 @@
 package schedulesearch;
-import java.util.PriorityQueue;
-import java.util.Comparator;
+import java.util.ArrayList;
 
 /**
  * AndSearch class runs the and search to solve the constraint satisfaction problem
+ * With a discrepancy limit (limited discrepancy search) a problem that is not the first choice of the value ordering
+ * counts one discrepancy more than its parent, problems with too many discrepancies are not explored and the problems
+ * with the fewest discrepancies are expanded first. Iterative LDS runs the search again with a limit of 0, 1, 2, ...
+ * The variable selection (ftrans), value ordering (div), frontier and bounding come from the SearchStrategy of the environment
  */
-public class AndSearch
+public class AndSearch implements SearchEngine
 {
     // the environment
     Environment env;
-    // the tree in the form of a priority queue (next leaf to expand on top)
-    PriorityQueue<Problem> tree = new PriorityQueue<Problem>(10, new FLeafComparator());
+    // the starting state
+    Problem s0;
+    // the leaves of the tree that have not been expanded yet
+    Frontier tree;
+    // the strategies of the search (copied from the environment so the calls in the main loop stay monomorphic)
+    final VariableSelection variable_selection;
+    final ValueOrdering value_ordering;
+    final Bounding bounding;
+    // the smallest bound of all the problems that were pruned by FBound or by the discrepancy limit
+    int pruned_bound = Integer.MAX_VALUE;
+    // the maximum number of discrepancies of the current pass (-1 for no limit)
+    int discrepancy_limit;
+    // true if a problem was dropped because of the discrepancy limit in the current pass
+    boolean limited = false;
+    // writes the checkpoints of the search (null for none)
+    CheckpointWriter checkpoint_writer;
+    // true if the search goes on from a checkpoint
+    boolean resumed = false;
 
     /**
      * initialization funciton for the AndSearch
@@ -20,7 +39,66 @@ public class AndSearch
     public AndSearch(Environment _env, Problem _s0)
     {
         env = _env;
-        tree.add(_s0);
+        s0 = _s0;
+        variable_selection = env.strategy.variable_selection;
+        value_ordering = env.strategy.value_ordering;
+        bounding = env.strategy.bounding;
+        tree = env.strategy.NewFrontier(env);
+        discrepancy_limit = env.max_discrepancies;
+        // discrepancies are counted from the root of this search
+        _s0.discrepancies = 0;
+        _s0.rank = 0;
+        _s0.bound = bounding.Bound(_s0, env);
+        _s0.solvable = Functions.Solvable(_s0, env);
+        tree.Add(_s0);
+    }
+
+    /**
+     * go on from a checkpoint instead of the starting state
+     * @param cp the checkpoint, written by an earlier run on the same problem and options
+     */
+    public void Resume(Checkpoint cp)
+    {
+        tree.Clear();
+        for(Problem pr: cp.frontier)
+        {
+            tree.Add(pr);
+        }
+        pruned_bound = cp.pruned_bound;
+        discrepancy_limit = cp.discrepancy_limit;
+        limited = cp.limited;
+        env.iterations = cp.iterations;
+        if(cp.best_sol != null)
+        {
+            env.UpdateBest(cp.best_sol, cp.best_score);
+        }
+        resumed = true;
+        System.out.println(String.format("Resuming from a checkpoint with %d leaves, best %d, nodes %d", cp.frontier.size(), env.best_score, env.iterations));
+    }
+
+    /**
+     * take a snapshot of the search for a checkpoint
+     * the problems are shared with the search, which never changes them once they are in the frontier
+     * @return the checkpoint
+     */
+    private Checkpoint Snapshot()
+    {
+        Checkpoint cp = new Checkpoint();
+        cp.dataset_name = env.dataset_name;
+        cp.num_lectures = env.num_lectures;
+        cp.num_tutorials = env.num_tutorials;
+        cp.seed = env.strategy.seed;
+        cp.iterations = env.iterations;
+        cp.pruned_bound = pruned_bound;
+        cp.discrepancy_limit = discrepancy_limit;
+        cp.limited = limited;
+        cp.best_sol = env.best_sol;
+        cp.best_score = env.best_score;
+        for(Problem pr: tree)
+        {
+            cp.frontier.add(pr);
+        }
+        return cp;
     }
 
     /**
@@ -31,33 +109,241 @@ public class AndSearch
     public boolean RunSearch(Problem sf)
     {
         // sudo code:
-        // get the problem from the top of the priority queue "tree"
-        // use ftrans to select the transition 
-        // use div to get the new problems
-        // push the new problems onto the priority queue "tree"
-        return false;
+        // get the next problem from the frontier "tree"
+        // use ftrans (the variable selection) to select the transition
+        // use div (the value ordering) to get the new problems
+        // add the new problems to the frontier "tree"
+
+        // seed the best score with a greedy schedule so FBound can prune from the start
+        if(env.warm_start && env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+
+        if(env.iterative_lds && env.max_discrepancies >= 0)
+        {
+            // every pass explores the whole tree except for the problems with too many discrepancies
+            // a resumed search finishes the pass of its checkpoint first
+            int first = resumed ? Math.max(0, discrepancy_limit) : 0;
+            for(int k = first; k <= env.max_discrepancies; k++)
+            {
+                if(k > first)
+                {
+                    if(env.SoftStopped())
+                    {
+                        break;
+                    }
+                    tree.Clear();
+                    tree.Add(s0);
+                    pruned_bound = Integer.MAX_VALUE;
+                    limited = false;
+                }
+                discrepancy_limit = k;
+                Expand();
+                System.out.println(String.format("LDS: pass with %d discrepancies done, best %d, nodes %d", k, env.best_score, env.iterations));
+                // nothing was dropped, so a higher limit would explore the same tree
+                if(!tree.IsEmpty() || !limited)
+                {
+                    break;
+                }
+            }
+        }
+        else
+        {
+            discrepancy_limit = env.max_discrepancies;
+            Expand();
+        }
+
+        // the last checkpoint is where a resumed run goes on
+        if(checkpoint_writer != null)
+        {
+            checkpoint_writer.Close(Snapshot());
+        }
+
+        // every schedule is either in an explored, a pruned or an unexplored part of the tree
+        env.lower_bound = Math.min(env.best_score, LeafBound());
+
+        if(env.best_sol == null)
+        {
+            return false;
+        }
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
     }
-}
 
-/**
- * FLeafComparator is used to sort the Problems in the priority queue
- */
-class FLeafComparator implements Comparator<Problem>
-{
     /**
-     * This methode implements the f_leaf function to sort problems p1 and p2
-     * @param p1 the first problem to sort
-     * @param p2 the second problem to sort
-     * @return negative if the first object should go first in the list, positive otherwise
-     */ 
-    public int compare(Problem p1, Problem p2)
+     * the smallest bound of the pruned problems and the leaves of the tree
+     * @return the bound, every schedule that was not seen by the search scores at least this
+     */
+    int LeafBound()
     {
-        // sudo code:
-        // sort on the following priority
-        // 1: solvable nodes go first
-        // 2: deepest nodes go first
-        // 3: lowest score according to MinBoundScore go first
-        // 4: tie break on problem unique id 
-        return 0;
-    }
-}
\ No newline at end of file
+        int bound = pruned_bound;
+        for(Problem pr: tree)
+        {
+            bound = Math.min(bound, pr.bound);
+        }
+        return bound;
+    }
+
+    /**
+     * expand at most a number of problems of the tree, used to run the search in steps
+     * @param nodes the number of problems to expand
+     * @return true if the tree is empty
+     */
+    boolean ExpandNodes(int nodes)
+    {
+        int max_iterations = env.max_iterations;
+        env.max_iterations = (int)Math.min(max_iterations, (long)env.iterations + nodes);
+        Expand();
+        env.max_iterations = max_iterations;
+        return tree.IsEmpty();
+    }
+
+    /**
+     * the number of leaves of the tree
+     * @return the number of leaves
+     */
+    int NumLeaves()
+    {
+        int count = 0;
+        for(Problem pr: tree)
+        {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * take all the leaves out of the tree
+     * @return the leaves in the order the tree would expand them
+     */
+    ArrayList<Problem> TakeLeaves()
+    {
+        ArrayList<Problem> leaves = new ArrayList<Problem>();
+        while(!tree.IsEmpty())
+        {
+            leaves.add(tree.Poll());
+        }
+        return leaves;
+    }
+
+    /**
+     * add leaves to the tree
+     * @param leaves the leaves
+     */
+    void AddLeaves(ArrayList<Problem> leaves)
+    {
+        for(Problem pr: leaves)
+        {
+            tree.Add(pr);
+        }
+    }
+
+    /**
+     * expand the problems of the tree until it is empty or the search has to stop
+     */
+    private void Expand()
+    {
+        while(!tree.IsEmpty() && env.iterations < env.max_iterations && !env.Stopped())
+        {
+            // the snapshot is taken before the next leaf leaves the frontier
+            if(checkpoint_writer != null && (env.iterations & 1023) == 0 && checkpoint_writer.Due())
+            {
+                checkpoint_writer.Submit(Snapshot());
+            }
+
+            Problem pr = tree.Poll();
+            env.iterations++;
+
+            // the best score may have improved since this leaf was added
+            if(bounding.Prune(pr, env))
+            {
+                pruned_bound = Math.min(pruned_bound, pr.bound);
+                continue;
+            }
+
+            if(pr.solvable)
+            {
+                // a solvable leaf is either a complete assignment or a dead end
+                if(Functions.IsComplete(pr, env))
+                {
+                    pr.score = Functions.Eval(pr, env);
+                    env.UpdateBest(pr, pr.score);
+                }
+                continue;
+            }
+
+            // select the lecture or tutorial to assign and get its valid slots
+            int[] entity = new int[1];
+            int[] slots = variable_selection.Select(pr, env, entity);
+            if(slots == null)
+            {
+                continue;
+            }
+
+            Div(pr, entity[0], slots);
+        }
+    }
+
+    /**
+     * div creates one new problem for each valid slot of the selected lecture/tutorial and adds it to the tree
+     * in the order of the value ordering
+     * @param pr the problem to divide
+     * @param entity the id of the lecture/tutorial to assign (lectures are 0 to num_lectures-1, tutorials follow)
+     * @param slots the valid slots for the lecture/tutorial
+     */
+    private void Div(Problem pr, int entity, int[] slots)
+    {
+        // drop interchangeable slots and try dominating slots first
+        slots = Dominance.OrderSlots(env, pr, entity < env.num_lectures, slots);
+
+        Problem[] children = new Problem[slots.length];
+        for(int i = 0; i < slots.length; i++)
+        {
+            Problem child = new Problem(pr);
+            if(entity < env.num_lectures)
+            {
+                child.AssignLecture(entity, slots[i]);
+            }
+            else
+            {
+                child.AssignTutorial(entity - env.num_lectures, slots[i]);
+            }
+            child.depth = pr.depth + 1;
+            child.bound = bounding.ChildBound(pr, child, env, entity, slots[i]);
+            children[i] = child;
+        }
+        value_ordering.Order(pr, env, entity, children, slots);
+
+        // the children are added from the last choice to the first, so a stack frontier expands the first choice next
+        for(int i = children.length - 1; i >= 0; i--)
+        {
+            Problem child = children[i];
+            child.rank = i;
+            child.discrepancies = pr.discrepancies + ((i == 0) ? 0 : 1);
+
+            // there is no point keeping leaves that are already bounded
+            if(bounding.Prune(child, env))
+            {
+                pruned_bound = Math.min(pruned_bound, child.bound);
+                continue;
+            }
+
+            // a problem that is not explored because of its discrepancies still bounds the problems below it
+            if(discrepancy_limit >= 0 && child.discrepancies > discrepancy_limit)
+            {
+                pruned_bound = Math.min(pruned_bound, child.bound);
+                limited = true;
+                continue;
+            }
+
+            child.solvable = Functions.Solvable(child, env);
+            tree.Add(child);
+        }
+    }
+}
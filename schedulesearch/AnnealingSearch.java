@@ -0,0 +1,214 @@
+package schedulesearch;
+import java.util.Random;
+
+/**
+ * AnnealingSearch improves a complete schedule with simulated annealing
+ * It starts from the greedy schedule (or the best solution of the environment) and repeatedly tries to move
+ * one lecture/tutorial to another slot, to swap the slots of two lectures/tutorials or to exchange a Kempe chain
+ * between two slots (see Moves). Only moves that keep the hard
+ * constraints are made, worse moves are accepted with probability exp(-delta / temperature)
+ */
+public class AnnealingSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the maximum number of moves to try
+    int max_iterations;
+    // the time limit in milliseconds
+    long time_limit;
+    // the random number generator
+    Random rand;
+    // the conflict graph of the environment (used for the Kempe chains)
+    ConflictGraph graph;
+
+    // the probability of trying a swap instead of a single move
+    static final double SWAP_PROBABILITY = 0.15;
+    // the probability of trying a Kempe chain exchange instead of a single move
+    static final double KEMPE_PROBABILITY = 0.05;
+    // the temperature at the end of the search relative to the start temperature
+    static final double FINAL_TEMPERATURE = 0.001;
+    // the number of score trajectory lines to print
+    static final int TRAJECTORY_POINTS = 20;
+
+    /**
+     * initialization function for the AnnealingSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _max_iterations the maximum number of moves to try
+     * @param _time_limit the time limit in milliseconds
+     * @param seed the seed of the random number generator
+     */
+    public AnnealingSearch(Environment _env, Problem _s0, int _max_iterations, long _time_limit, long seed)
+    {
+        env = _env;
+        s0 = _s0;
+        max_iterations = _max_iterations;
+        time_limit = _time_limit;
+        rand = new Random(seed);
+    }
+
+    /**
+     * run the simulated annealing
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // start with a complete schedule
+        // set the start temperature from the average size of worse moves
+        // until the iteration or time budget runs out:
+        //      select a random move (move one lecture/tutorial, swap two or exchange a Kempe chain)
+        //      skip it if it breaks a hard constraint
+        //      accept it if it is better, otherwise accept it with probability exp(-delta / temperature)
+        //      record the schedule if it is the best so far
+        //      cool the temperature geometrically
+
+        if(env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+        if(env.best_sol == null)
+        {
+            System.out.println("Anneal: no complete schedule to start from");
+            return false;
+        }
+
+        // only the root bound is known
+        s0.bound = Functions.MinBoundScore(s0, env);
+        env.lower_bound = Math.min(s0.bound, env.best_score);
+
+        ScheduleState state = new ScheduleState(env, env.best_sol, s0);
+        graph = new ConflictGraph(env);
+        int[] entities = state.MovableEntities();
+        if(entities.length == 0)
+        {
+            return CopyBest(sf);
+        }
+
+        double temperature = StartTemperature(state, entities);
+        double cooling = Math.pow(FINAL_TEMPERATURE, 1.0 / Math.max(1, max_iterations));
+        int trajectory_interval = Math.max(1, max_iterations / TRAJECTORY_POINTS);
+        long start_time = System.nanoTime();
+
+        System.out.println(String.format("Anneal: start score %d, start temperature %.2f", state.score, temperature));
+
+        for(int k = 0; k < max_iterations; k++)
+        {
+            env.iterations++;
+            if((k & 255) == 0 && ((System.nanoTime() - start_time) / 1000000 > time_limit || env.SoftStopped()))
+            {
+                break;
+            }
+
+            if(k % trajectory_interval == 0)
+            {
+                System.out.println(String.format("Anneal: iteration %d, temperature %.3f, score %d, best %d", k, temperature, state.score, env.best_score));
+            }
+            temperature *= cooling;
+
+            int a = entities[rand.nextInt(entities.length)];
+            double move = rand.nextDouble();
+            if(move < SWAP_PROBABILITY)
+            {
+                // swap the slots of two lectures or two tutorials
+                int b = entities[rand.nextInt(entities.length)];
+                int old_score = state.score;
+                if(Moves.Swap(state, a, b) && !Accept(state.score - old_score, temperature))
+                {
+                    Moves.Swap(state, a, b);
+                }
+            }
+            else if(move < SWAP_PROBABILITY + KEMPE_PROBABILITY)
+            {
+                // exchange a Kempe chain between the slot of the lecture/tutorial and a random slot
+                int slot_a = state.SlotOf(a);
+                int slot_b = rand.nextInt(state.NumSlots(a));
+                int[] chain = Moves.KempeChain(state, graph, a, slot_b);
+                int old_score = state.score;
+                if(chain != null && Moves.Kempe(state, chain, slot_a, slot_b) && !Accept(state.score - old_score, temperature))
+                {
+                    Moves.Kempe(state, chain, slot_a, slot_b);
+                }
+            }
+            else
+            {
+                // move one lecture/tutorial
+                int slot = rand.nextInt(state.NumSlots(a));
+                if(!state.CanMove(a, slot))
+                {
+                    continue;
+                }
+                int delta = state.MoveDelta(a, slot);
+                if(Accept(delta, temperature))
+                {
+                    state.Move(a, slot);
+                }
+            }
+
+            if(state.score < env.best_score)
+            {
+                Problem best = new Problem(state.pr);
+                best.score = state.score;
+                env.UpdateBest(best, best.score);
+            }
+        }
+
+        System.out.println(String.format("Anneal: finished after %d iterations, score %d, best %d", env.iterations, state.score, env.best_score));
+        return CopyBest(sf);
+    }
+
+    /**
+     * the metropolis acceptance rule
+     * @param delta the change in score
+     * @param temperature the current temperature
+     * @return true if the move should be made
+     */
+    private boolean Accept(int delta, double temperature)
+    {
+        return delta <= 0 || rand.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    /**
+     * find the start temperature as the average increase of a sample of random valid moves that make the score worse
+     * @param state the schedule
+     * @param entities the movable entities
+     * @return the start temperature
+     */
+    private double StartTemperature(ScheduleState state, int[] entities)
+    {
+        long sum = 0;
+        int count = 0;
+        for(int k = 0; k < 200; k++)
+        {
+            int a = entities[rand.nextInt(entities.length)];
+            int slot = rand.nextInt(state.NumSlots(a));
+            if(state.CanMove(a, slot))
+            {
+                int delta = state.MoveDelta(a, slot);
+                if(delta > 0)
+                {
+                    sum += delta;
+                    count++;
+                }
+            }
+        }
+        return (count == 0) ? 1.0 : (double)sum / count;
+    }
+
+    /**
+     * return the best solution of the environment by reference
+     * @param sf the final state to return
+     * @return true
+     */
+    private boolean CopyBest(Problem sf)
+    {
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+}
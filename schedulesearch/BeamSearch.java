@@ -0,0 +1,343 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * BeamSearch goes down the And tree one level at a time and only keeps the best width problems of every level
+ * The problems are ranked on MinBoundScore plus a look-ahead estimate: the cheapest valid slot of every unassigned
+ * lecture/tutorial given the assignments so far. The problems of a level are expanded in parallel. The memory use is
+ * O(width * instance size), but the search is not complete, a schedule is only found if the beam keeps its path
+ */
+public class BeamSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the number of problems kept at every level
+    int width;
+
+    // returned by ValidSlots for the lectures/tutorials that do not have to be assigned
+    private static final int[] ASSIGNED = new int[0];
+
+    /**
+     * initialization function for the BeamSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _width the number of problems kept at every level
+     */
+    public BeamSearch(Environment _env, Problem _s0, int _width)
+    {
+        env = _env;
+        s0 = _s0;
+        width = Math.max(1, _width);
+    }
+
+    /**
+     * run the beam search
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // the first level is the starting state (unless it is already complete)
+        // while the level is not empty:
+        //      in parallel, divide every problem of the level into its children (like ftrans and div of the And search)
+        //      record the complete children, drop the bounded and dead end ones
+        //      rank the other children on bound + look-ahead and keep the best width of them as the next level
+        // every schedule is below a dropped problem or was found, so the smallest dropped bound is a lower bound
+
+        if(env.warm_start && env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+
+        s0.bound = Functions.MinBoundScore(s0, env);
+        // the smallest bound of all the problems that were dropped
+        int dropped_bound = Integer.MAX_VALUE;
+
+        int num_threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(num_threads);
+        // every worker gets its own copy of the environment, the lagrangian multipliers change while a bound is calculated
+        Environment[] worker_envs = new Environment[num_threads];
+        for(int t = 0; t < num_threads; t++)
+        {
+            worker_envs[t] = env.Copy();
+        }
+
+        ArrayList<Problem> level = new ArrayList<Problem>();
+        if(Functions.IsComplete(s0, env))
+        {
+            // the partial assignments or the presolve already fixed every lecture/tutorial
+            s0.score = Functions.Eval(s0, env);
+            env.UpdateBest(s0, s0.score);
+        }
+        else
+        {
+            level.add(s0);
+        }
+        int depth = 0;
+        while(!level.isEmpty())
+        {
+            if(env.iterations >= env.max_iterations || env.SoftStopped())
+            {
+                // everything below the current level is unexplored
+                for(Problem pr: level)
+                {
+                    dropped_bound = Math.min(dropped_bound, pr.bound);
+                }
+                break;
+            }
+
+            // worker t expands the problems t, t + num_threads, ... of the level
+            ArrayList<Problem> current = level;
+            ArrayList<Future<ArrayList<ArrayList<Problem>>>> results = new ArrayList<Future<ArrayList<ArrayList<Problem>>>>();
+            for(int t = 0; t < num_threads && t < current.size(); t++)
+            {
+                int first = t;
+                Environment worker_env = worker_envs[t];
+                results.add(executor.submit(() -> {
+                    ArrayList<ArrayList<Problem>> expanded = new ArrayList<ArrayList<Problem>>();
+                    for(int i = first; i < current.size(); i += num_threads)
+                    {
+                        expanded.add(Expand(worker_env, current.get(i)));
+                    }
+                    return expanded;
+                }));
+            }
+            env.iterations += level.size();
+
+            ArrayList<Problem> children = new ArrayList<Problem>();
+            for(int t = 0; t < results.size(); t++)
+            {
+                ArrayList<ArrayList<Problem>> expanded = null;
+                try{
+                    expanded = results.get(t).get();
+                }catch(InterruptedException | ExecutionException e)
+                {
+                    System.out.println("Beam: expanding a problem failed: " + e.getMessage());
+                }
+                for(int n = 0, i = t; i < level.size(); n++, i += num_threads)
+                {
+                    if(expanded == null || expanded.get(n) == null)
+                    {
+                        // not expanded because of the hard time limit or an error
+                        dropped_bound = Math.min(dropped_bound, level.get(i).bound);
+                        continue;
+                    }
+                    children.addAll(expanded.get(n));
+                }
+            }
+
+            // record the complete children and drop the bounded ones
+            ArrayList<Problem> partial = new ArrayList<Problem>();
+            for(Problem child: children)
+            {
+                if(Functions.IsComplete(child, env))
+                {
+                    child.score = Functions.Eval(child, env);
+                    env.UpdateBest(child, child.score);
+                }
+                else if(Functions.FBound(child, env))
+                {
+                    dropped_bound = Math.min(dropped_bound, child.bound);
+                }
+                else
+                {
+                    partial.add(child);
+                }
+            }
+
+            // keep the best width different children
+            partial.sort(new ScoreComparator());
+            level = new ArrayList<Problem>();
+            for(Problem child: partial)
+            {
+                if(level.size() >= width || Functions.FBound(child, env))
+                {
+                    dropped_bound = Math.min(dropped_bound, child.bound);
+                }
+                else if(!Duplicate(level, child))
+                {
+                    level.add(child);
+                }
+            }
+
+            depth++;
+            if(!level.isEmpty())
+            {
+                System.out.println(String.format("Beam: level %d, %d children, best estimate %d, best %d", depth, partial.size(), level.get(0).score, env.best_score));
+            }
+        }
+        executor.shutdown();
+
+        env.lower_bound = Math.min(env.best_score, dropped_bound);
+        if(env.best_sol == null)
+        {
+            return false;
+        }
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+
+    /**
+     * divide a problem into one child for each valid slot of its lecture/tutorial with the lowest selection key
+     * the score of a child that is not complete is its estimate, its bound plus the look-ahead
+     * @param worker_env the environment of the worker, it has its own lagrangian multipliers
+     * @param pr the problem to divide
+     * @return the children that are not dead ends, or null if the search has to stop
+     */
+    private ArrayList<Problem> Expand(Environment worker_env, Problem pr)
+    {
+        if(env.Stopped())
+        {
+            return null;
+        }
+        ArrayList<Problem> children = new ArrayList<Problem>();
+
+        // select the lecture/tutorial with the lowest selection key
+        int entity = -1;
+        int[] slots = null;
+        double best_key = 0;
+        for(int i = 0; i < env.num_lectures + env.num_tutorials; i++)
+        {
+            int[] valid = ValidSlots(pr, i);
+            if(valid == ASSIGNED)
+            {
+                continue;
+            }
+            if(valid == null)
+            {
+                // dead end
+                if(env.weights != null)
+                {
+                    env.weights.Failure(env, pr, i);
+                }
+                return children;
+            }
+            double key = Functions.SelectionKey(pr, env, i, valid.length);
+            if(slots == null || key < best_key)
+            {
+                entity = i;
+                slots = valid;
+                best_key = key;
+            }
+        }
+        if(entity == -1)
+        {
+            return children;
+        }
+
+        boolean is_lec = entity < env.num_lectures;
+        slots = Dominance.OrderSlots(env, pr, is_lec, slots);
+        ScheduleState state = new ScheduleState(env, pr, s0);
+        for(int i = 0; i < slots.length; i++)
+        {
+            state.Place(entity, slots[i]);
+            int look_ahead = LookAhead(state);
+            state.Remove(entity);
+            if(look_ahead == -1)
+            {
+                continue;
+            }
+
+            Problem child = new Problem(pr);
+            if(is_lec)
+            {
+                child.AssignLecture(entity, slots[i]);
+            }
+            else
+            {
+                child.AssignTutorial(entity - env.num_lectures, slots[i]);
+            }
+            child.depth = pr.depth + 1;
+            child.bound = Functions.MinBoundScore(child, worker_env);
+            child.score = child.bound + look_ahead;
+            children.add(child);
+        }
+        return children;
+    }
+
+    /**
+     * estimate the score the unassigned lectures/tutorials will add
+     * @param state the partial schedule
+     * @return the sum of the cheapest valid slot of every unassigned lecture/tutorial, or -1 if one has no valid slot
+     */
+    private int LookAhead(ScheduleState state)
+    {
+        int sum = 0;
+        for(int i = 0; i < env.num_lectures + env.num_tutorials; i++)
+        {
+            int[] valid = ValidSlots(state.pr, i);
+            if(valid == ASSIGNED)
+            {
+                continue;
+            }
+            if(valid == null)
+            {
+                return -1;
+            }
+
+            int min = Integer.MAX_VALUE;
+            for(int j = 0; j < valid.length; j++)
+            {
+                min = Math.min(min, state.Cost(i, valid[j]));
+            }
+            sum += min;
+        }
+        return sum;
+    }
+
+    /**
+     * get the valid slots of an entity
+     * @param pr the problem
+     * @param entity the entity id
+     * @return the valid slots, null if there are none, or ASSIGNED if the entity is assigned or not active
+     */
+    private int[] ValidSlots(Problem pr, int entity)
+    {
+        if(entity < env.num_lectures)
+        {
+            if(pr.lectures[entity] != -1 || !env.LectureActive(entity))
+            {
+                return ASSIGNED;
+            }
+            return Functions.ValidLectureSlots(env, entity, pr);
+        }
+        int tut_id = entity - env.num_lectures;
+        if(pr.tutorials[tut_id] != -1 || !env.TutorialActive(tut_id))
+        {
+            return ASSIGNED;
+        }
+        return Functions.ValidTutSlots(env, tut_id, pr);
+    }
+
+    /**
+     * is a problem already in a level
+     * @param level the level, sorted by estimate
+     * @param pr the problem
+     * @return true if the level has a problem with the same estimate and assignments
+     */
+    private static boolean Duplicate(ArrayList<Problem> level, Problem pr)
+    {
+        // the level is sorted, so only the last problems can have the same estimate
+        for(int i = level.size() - 1; i >= 0 && level.get(i).score == pr.score; i--)
+        {
+            if(Arrays.equals(level.get(i).lectures, pr.lectures) && Arrays.equals(level.get(i).tutorials, pr.tutorials))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package schedulesearch;
+import java.util.Comparator;
+
+/**
+ * BestFirstComparator sorts the Problems for a best first search, it proves bounds fastest but keeps the most leaves
+ */
+class BestFirstComparator implements Comparator<Problem>
+{
+    /**
+     * the problems with the lowest bound go first, then the deepest
+     * @param p1 the first problem to sort
+     * @param p2 the second problem to sort
+     * @return negative if the first object should go first in the list, positive otherwise
+     */
+    public int compare(Problem p1, Problem p2)
+    {
+        if(p1.bound != p2.bound)
+        {
+            return Integer.compare(p1.bound, p2.bound);
+        }
+        if(p1.depth != p2.depth)
+        {
+            return p2.depth - p1.depth;
+        }
+        if(p1.rank != p2.rank)
+        {
+            return Integer.compare(p1.rank, p2.rank);
+        }
+        return Integer.compare(p1.id, p2.id);
+    }
+}
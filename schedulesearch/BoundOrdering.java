@@ -0,0 +1,25 @@
+package schedulesearch;
+
+/**
+ * BoundOrdering tries the children with the lowest bound first, ties keep the order of Dominance.OrderSlots
+ */
+class BoundOrdering implements ValueOrdering
+{
+    /**
+     * sort the children on their bound
+     * @param pr the problem that was divided
+     * @param env the environment
+     * @param entity the id of the assigned lecture/tutorial
+     * @param children the children, sorted in place
+     * @param slots the slot of each child, sorted with the children
+     */
+    public void Order(Problem pr, Environment env, int entity, Problem[] children, int[] slots)
+    {
+        double[] keys = new double[children.length];
+        for(int i = 0; i < children.length; i++)
+        {
+            keys[i] = Functions.FollowsGuide(pr, env, entity, slots[i]) ? -1 : children[i].bound;
+        }
+        RestartSearch.SortByKey(children, keys, slots);
+    }
+}
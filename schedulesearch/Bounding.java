@@ -0,0 +1,34 @@
+package schedulesearch;
+
+/**
+ * Bounding gives the lower bound of a problem and decides if it can be pruned
+ */
+public interface Bounding
+{
+    /**
+     * the lower bound of the root of a search
+     * @param pr the problem
+     * @param env the environment
+     * @return the lower bound of every schedule below the problem
+     */
+    int Bound(Problem pr, Environment env);
+
+    /**
+     * the lower bound of a child
+     * @param parent the parent problem (its bound is set)
+     * @param child the child, the parent with one more assignment
+     * @param env the environment
+     * @param entity the id of the assigned lecture/tutorial (lectures are 0 to num_lectures-1, tutorials follow)
+     * @param slot the slot it was assigned to
+     * @return the lower bound of every schedule below the child
+     */
+    int ChildBound(Problem parent, Problem child, Environment env, int entity, int slot);
+
+    /**
+     * can a problem be pruned
+     * @param pr the problem (its bound is set)
+     * @param env the environment with the best score
+     * @return true if no schedule below the problem can improve the best score enough
+     */
+    boolean Prune(Problem pr, Environment env);
+}
@@ -0,0 +1,189 @@
+package schedulesearch;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+
+/**
+ * Checkpoint is a snapshot of the state of the And search that can be written to a compact binary file and read back
+ * to resume the search after the JVM was restarted: the leaves of the frontier, the best solution, the counters and
+ * the seed of the strategies. The problems are stored as they are in the reduced environment, so a checkpoint can only
+ * be resumed with the same input file and options. The problems of the frontier are never changed after they are added
+ * and the best solution is only ever replaced, so a snapshot only copies references and the search can go on while it
+ * is written
+ */
+public class Checkpoint
+{
+    // the first int of every checkpoint file ("SCKP") and the version of the format
+    static final int MAGIC = 0x53434b50;
+    static final int VERSION = 1;
+
+    // the dataset and its size, to check that a checkpoint belongs to the problem it is resumed on
+    String dataset_name;
+    int num_lectures;
+    int num_tutorials;
+    // the seed of the strategies
+    long seed;
+    // the counters of the search
+    int iterations;
+    int pruned_bound;
+    int discrepancy_limit;
+    boolean limited;
+    // the best solution (null if none was found yet) and its score
+    Problem best_sol;
+    int best_score;
+    // the leaves of the frontier
+    ArrayList<Problem> frontier = new ArrayList<Problem>();
+
+    /**
+     * write the checkpoint, first to a temporary file that then replaces the file so it is never partially written
+     * @param file_name the file to write
+     * @return true if the checkpoint was written, false otherwise
+     */
+    public boolean Write(String file_name)
+    {
+        File file = new File(file_name);
+        File temp = new File(file_name + ".tmp");
+        try{
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(dataset_name);
+            out.writeInt(num_lectures);
+            out.writeInt(num_tutorials);
+            out.writeLong(seed);
+            out.writeInt(iterations);
+            out.writeInt(pruned_bound);
+            out.writeInt(discrepancy_limit);
+            out.writeBoolean(limited);
+            out.writeInt(best_score);
+            out.writeBoolean(best_sol != null);
+            if(best_sol != null)
+            {
+                WriteProblem(out, best_sol);
+            }
+            out.writeInt(frontier.size());
+            for(Problem pr: frontier)
+            {
+                WriteProblem(out, pr);
+            }
+            out.close();
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch(IOException e)
+        {
+            System.out.println("Could not write the checkpoint to: " + file_name);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * read a checkpoint written by Write
+     * @param file_name the file to read
+     * @param env the environment the checkpoint is resumed on
+     * @return the checkpoint, or null if the file could not be read or belongs to another problem
+     */
+    public static Checkpoint Read(String file_name, Environment env)
+    {
+        Checkpoint cp = new Checkpoint();
+        try{
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file_name)));
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+            {
+                System.out.println("Error, not a checkpoint file of this version: " + file_name);
+                in.close();
+                return null;
+            }
+            cp.dataset_name = in.readUTF();
+            cp.num_lectures = in.readInt();
+            cp.num_tutorials = in.readInt();
+            if(!cp.dataset_name.equals(env.dataset_name) || cp.num_lectures != env.num_lectures || cp.num_tutorials != env.num_tutorials)
+            {
+                System.out.println("Error, the checkpoint belongs to another problem: " + cp.dataset_name);
+                in.close();
+                return null;
+            }
+            cp.seed = in.readLong();
+            cp.iterations = in.readInt();
+            cp.pruned_bound = in.readInt();
+            cp.discrepancy_limit = in.readInt();
+            cp.limited = in.readBoolean();
+            cp.best_score = in.readInt();
+            if(in.readBoolean())
+            {
+                cp.best_sol = ReadProblem(in, cp);
+            }
+            int size = in.readInt();
+            for(int i = 0; i < size; i++)
+            {
+                cp.frontier.add(ReadProblem(in, cp));
+            }
+            in.close();
+        }catch(IOException e)
+        {
+            System.out.println("Could not read the checkpoint from: " + file_name);
+            return null;
+        }
+        return cp;
+    }
+
+    /**
+     * write a problem, a slot id fits in a short
+     * @param out the stream to write to
+     * @param pr the problem
+     * @throws IOException if the stream could not be written
+     */
+    private void WriteProblem(DataOutputStream out, Problem pr) throws IOException
+    {
+        out.writeInt(pr.depth);
+        out.writeInt(pr.score);
+        out.writeInt(pr.bound);
+        out.writeInt(pr.discrepancies);
+        out.writeInt(pr.rank);
+        out.writeBoolean(pr.solvable);
+        for(int i = 0; i < num_lectures; i++)
+        {
+            out.writeShort(pr.lectures[i]);
+        }
+        for(int i = 0; i < num_tutorials; i++)
+        {
+            out.writeShort(pr.tutorials[i]);
+        }
+    }
+
+    /**
+     * read a problem written by WriteProblem, it gets a new unique id
+     * @param in the stream to read from
+     * @param cp the checkpoint with the number of lectures and tutorials
+     * @return the problem
+     * @throws IOException if the stream could not be read
+     */
+    private static Problem ReadProblem(DataInputStream in, Checkpoint cp) throws IOException
+    {
+        Problem pr = new Problem();
+        pr.depth = in.readInt();
+        pr.score = in.readInt();
+        pr.bound = in.readInt();
+        pr.discrepancies = in.readInt();
+        pr.rank = in.readInt();
+        pr.solvable = in.readBoolean();
+        pr.lectures = new int[cp.num_lectures];
+        for(int i = 0; i < cp.num_lectures; i++)
+        {
+            pr.lectures[i] = in.readShort();
+        }
+        pr.tutorials = new int[cp.num_tutorials];
+        for(int i = 0; i < cp.num_tutorials; i++)
+        {
+            pr.tutorials[i] = in.readShort();
+        }
+        return pr;
+    }
+}
@@ -0,0 +1,94 @@
+package schedulesearch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CheckpointWriter writes the checkpoints of a search on its own thread, so the search only pays for taking the
+ * snapshot. A checkpoint is due every interval, and a snapshot that comes in while the last one is still being
+ * written is dropped, so a slow disk never holds up the search or queues up old snapshots
+ */
+public class CheckpointWriter
+{
+    // the file to write the checkpoints to
+    String file_name;
+    // the time between two checkpoints in nanoseconds
+    long interval;
+    // the time the last checkpoint was taken
+    long last_time;
+    // the number of checkpoints written
+    int count = 0;
+
+    // the thread that writes the checkpoints
+    private ExecutorService executor;
+    // true while a checkpoint is being written
+    private AtomicBoolean busy = new AtomicBoolean(false);
+
+    /**
+     * create the writer
+     * @param _file_name the file to write the checkpoints to
+     * @param interval_ms the time between two checkpoints in milliseconds
+     */
+    public CheckpointWriter(String _file_name, long interval_ms)
+    {
+        file_name = _file_name;
+        interval = interval_ms * 1000000;
+        last_time = System.nanoTime();
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            // the writer never keeps the JVM alive
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * is the next checkpoint due
+     * @return true if the interval has passed since the last checkpoint and no checkpoint is being written
+     */
+    public boolean Due()
+    {
+        return System.nanoTime() - last_time >= interval && !busy.get();
+    }
+
+    /**
+     * write a snapshot on the writer thread
+     * @param cp the snapshot, it must not be changed afterwards
+     */
+    public void Submit(Checkpoint cp)
+    {
+        if(!busy.compareAndSet(false, true))
+        {
+            return;
+        }
+        last_time = System.nanoTime();
+        executor.submit(() -> {
+            if(cp.Write(file_name))
+            {
+                count++;
+            }
+            busy.set(false);
+        });
+    }
+
+    /**
+     * write a last snapshot and wait until it is on disk
+     * @param cp the snapshot
+     */
+    public void Close(Checkpoint cp)
+    {
+        executor.shutdown();
+        try{
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }catch(InterruptedException e)
+        {
+            System.out.println("Interrupted while waiting for the checkpoint writer");
+        }
+        if(cp.Write(file_name))
+        {
+            count++;
+        }
+        System.out.println(String.format("Checkpoint: %d written to %s", count, file_name));
+    }
+}
@@ -0,0 +1,120 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * ConflictGraph holds the lectures/tutorials that directly interact with each other through
+ * not compatible, pair, section, tutorial-parent and 5xx constraints.
+ * Lectures and tutorials are numbered as entities: lectures are 0 to num_lectures-1 and tutorials follow
+ */
+public class ConflictGraph
+{
+    // the number of lectures (entities below this are lectures)
+    int num_lectures;
+    // index is the entity id, value is the ids of the entities that it shares a constraint with
+    int[][] neighbours;
+
+    /**
+     * build the conflict graph of an environment
+     * @param env the environment to build the graph from
+     */
+    public ConflictGraph(Environment env)
+    {
+        num_lectures = env.num_lectures;
+        int num_entities = env.num_lectures + env.num_tutorials;
+
+        ArrayList<HashSet<Integer>> edges = new ArrayList<HashSet<Integer>>();
+        for(int i = 0; i < num_entities; i++)
+        {
+            edges.add(new HashSet<Integer>());
+        }
+
+        // not compatible and tutorial-parent ##########################################################################################
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            Lecture lec = env.lectures[i];
+            for(Integer id: lec.not_compatible_lec)
+            {
+                AddEdge(edges, i, id);
+            }
+            for(Integer id: lec.not_compatible_tut)
+            {
+                AddEdge(edges, i, num_lectures + id);
+            }
+            for(int j = 0; j < lec.tutorials.length; j++)
+            {
+                AddEdge(edges, i, num_lectures + lec.tutorials[j]);
+            }
+        }
+
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            Tutorial tut = env.tutorials[i];
+            for(Integer id: tut.not_compatible_lec)
+            {
+                AddEdge(edges, num_lectures + i, id);
+            }
+            for(Integer id: tut.not_compatible_tut)
+            {
+                AddEdge(edges, num_lectures + i, num_lectures + id);
+            }
+        }
+
+        // pairs ##########################################################################################################################
+        for(int i = 0; i < env.pairs.length; i++)
+        {
+            Pair pair = env.pairs[i];
+            AddEdge(edges, pair.is_lec1 ? pair.id1 : num_lectures + pair.id1, pair.is_lec2 ? pair.id2 : num_lectures + pair.id2);
+        }
+
+        // sections #######################################################################################################################
+        for(Integer[] section: env.sections.values())
+        {
+            for(int i = 0; i < section.length; i++)
+            {
+                for(int j = i + 1; j < section.length; j++)
+                {
+                    AddEdge(edges, section[i], section[j]);
+                }
+            }
+        }
+
+        // 5xx level lectures can not share slots #########################################################################################
+        for(int i = 0; i < env.lectures_5xx.length; i++)
+        {
+            for(int j = i + 1; j < env.lectures_5xx.length; j++)
+            {
+                AddEdge(edges, env.lectures_5xx[i], env.lectures_5xx[j]);
+            }
+        }
+
+        // convert the sets to arrays for quick iterating
+        neighbours = new int[num_entities][];
+        for(int i = 0; i < num_entities; i++)
+        {
+            neighbours[i] = new int[edges.get(i).size()];
+            int j = 0;
+            for(Integer id: edges.get(i))
+            {
+                neighbours[i][j] = id;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * add an undirected edge between two entities
+     * @param edges the adjacency sets
+     * @param a the first entity id
+     * @param b the second entity id
+     */
+    private static void AddEdge(ArrayList<HashSet<Integer>> edges, int a, int b)
+    {
+        if(a == b)
+        {
+            return;
+        }
+        edges.get(a).add(b);
+        edges.get(b).add(a);
+    }
+}
@@ -0,0 +1,431 @@
+package schedulesearch;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * ConstraintWeights learns which hard constraints cause the dead ends of the search (weighted degree, dom/wdeg)
+ * Every hard constraint has a weight that starts at 1. When the valid slots of a lecture/tutorial run out, the weight
+ * of every constraint that removed one of its slots goes up by one. The searches then assign the lecture/tutorial with
+ * the smallest number of valid slots divided by its weighted degree: the total weight of its constraints that still
+ * involve another unassigned lecture/tutorial. The weights are shared by all the copies of an environment, so they
+ * survive restarts, and they can be saved to a file so the next run on the same dataset starts with them
+ * The constraints are:
+ *      one binary constraint for each not compatible pair and each lecture and its tutorial
+ *      one constraint for all the 5xx lectures
+ *      one constraint for the lecture slot capacities and one for the tutorial slot capacities
+ */
+public class ConstraintWeights
+{
+    // the number of lectures (entities below this are lectures)
+    int num_lectures;
+    // index is the entity id, value is the ids of the entities that it shares a binary constraint with
+    int[][] neighbours;
+    // index is the entity id, value is the constraint id of each of its neighbours
+    int[][] edges;
+    // index is the constraint id, value is the weight of the constraint
+    int[] weights;
+    // index is the entity id and then the slot id, value is true if the slot is valid when nothing else is assigned
+    boolean[][] candidates;
+    // the weights a copy started with, for Merge (null if this is not a copy)
+    int[] start_weights;
+
+    // the constraint ids of the global constraints (the binary constraints follow)
+    static final int LEC_CAPACITY = 0;
+    static final int TUT_CAPACITY = 1;
+    static final int LEC_5XX = 2;
+    static final int NUM_GLOBAL = 3;
+
+    /**
+     * build the constraints of an environment, every weight starts at 1
+     * @param env the environment
+     */
+    public ConstraintWeights(Environment env)
+    {
+        num_lectures = env.num_lectures;
+        int num_entities = env.num_lectures + env.num_tutorials;
+
+        ArrayList<ArrayList<Integer>> adjacent = new ArrayList<ArrayList<Integer>>();
+        ArrayList<ArrayList<Integer>> constraints = new ArrayList<ArrayList<Integer>>();
+        for(int i = 0; i < num_entities; i++)
+        {
+            adjacent.add(new ArrayList<Integer>());
+            constraints.add(new ArrayList<Integer>());
+        }
+
+        // not compatible and tutorial-parent, each pair is added once from the side with the lower id
+        int num_constraints = NUM_GLOBAL;
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            Lecture lec = env.lectures[i];
+            ArrayList<Integer> others = new ArrayList<Integer>();
+            for(Integer id: lec.not_compatible_lec)
+            {
+                others.add(id);
+            }
+            for(Integer id: lec.not_compatible_tut)
+            {
+                others.add(num_lectures + id);
+            }
+            for(int j = 0; j < lec.tutorials.length; j++)
+            {
+                others.add(num_lectures + lec.tutorials[j]);
+            }
+            num_constraints = AddConstraints(adjacent, constraints, i, others, num_constraints);
+        }
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            Tutorial tut = env.tutorials[i];
+            ArrayList<Integer> others = new ArrayList<Integer>();
+            for(Integer id: tut.not_compatible_lec)
+            {
+                others.add(id);
+            }
+            for(Integer id: tut.not_compatible_tut)
+            {
+                others.add(num_lectures + id);
+            }
+            others.add(tut.lec_id);
+            num_constraints = AddConstraints(adjacent, constraints, num_lectures + i, others, num_constraints);
+        }
+
+        neighbours = new int[num_entities][];
+        edges = new int[num_entities][];
+        for(int i = 0; i < num_entities; i++)
+        {
+            neighbours[i] = new int[adjacent.get(i).size()];
+            edges[i] = new int[adjacent.get(i).size()];
+            for(int j = 0; j < neighbours[i].length; j++)
+            {
+                neighbours[i][j] = adjacent.get(i).get(j);
+                edges[i][j] = constraints.get(i).get(j);
+            }
+        }
+
+        weights = new int[num_constraints];
+        for(int i = 0; i < weights.length; i++)
+        {
+            weights[i] = 1;
+        }
+
+        // only a constraint that removes one of these slots can be the cause of a dead end
+        Problem empty = new Problem();
+        empty.lectures = new int[env.num_lectures];
+        empty.tutorials = new int[env.num_tutorials];
+        Arrays.fill(empty.lectures, -1);
+        Arrays.fill(empty.tutorials, -1);
+        candidates = new boolean[num_entities][];
+        for(int i = 0; i < num_entities; i++)
+        {
+            boolean is_lec = i < num_lectures;
+            candidates[i] = new boolean[is_lec ? env.lec_slots_array.length : env.tut_slots_array.length];
+            int[] valid = is_lec ? Functions.ValidLectureSlots(env, i, empty) : Functions.ValidTutSlots(env, i - num_lectures, empty);
+            for(int j = 0; valid != null && j < valid.length; j++)
+            {
+                candidates[i][valid[j]] = true;
+            }
+        }
+    }
+
+    /**
+     * copy the weights, the constraints are shared since they never change
+     * @return a copy that learns on its own
+     */
+    public synchronized ConstraintWeights Copy()
+    {
+        ConstraintWeights copy = new ConstraintWeights();
+        copy.num_lectures = num_lectures;
+        copy.neighbours = neighbours;
+        copy.edges = edges;
+        copy.candidates = candidates;
+        copy.weights = weights.clone();
+        copy.start_weights = weights.clone();
+        return copy;
+    }
+
+    /**
+     * add what a copy learned since it was made to these weights
+     * @param copy a copy made by Copy
+     */
+    public synchronized void Merge(ConstraintWeights copy)
+    {
+        for(int i = 0; i < weights.length; i++)
+        {
+            weights[i] += copy.weights[i] - copy.start_weights[i];
+        }
+    }
+
+    /**
+     * used by Copy
+     */
+    private ConstraintWeights()
+    {
+    }
+
+    /**
+     * add the binary constraints between an entity and the entities with a higher id
+     * @param adjacent index is the entity id, value is its neighbours so far
+     * @param constraints index is the entity id, value is the constraint id of each of its neighbours so far
+     * @param entity the entity id
+     * @param others the entities that share a constraint with the entity (may contain duplicates)
+     * @param num_constraints the number of constraints so far
+     * @return the number of constraints after adding the new ones
+     */
+    private static int AddConstraints(ArrayList<ArrayList<Integer>> adjacent, ArrayList<ArrayList<Integer>> constraints, int entity, ArrayList<Integer> others, int num_constraints)
+    {
+        for(Integer other: others)
+        {
+            if(other <= entity || adjacent.get(entity).contains(other))
+            {
+                continue;
+            }
+            adjacent.get(entity).add(other);
+            constraints.get(entity).add(num_constraints);
+            adjacent.get(other).add(entity);
+            constraints.get(other).add(num_constraints);
+            num_constraints++;
+        }
+        return num_constraints;
+    }
+
+    /**
+     * the weighted degree of an unassigned lecture/tutorial
+     * @param env the environment
+     * @param pr the problem
+     * @param entity the entity id
+     * @return the total weight of the constraints of the entity that involve another unassigned lecture/tutorial
+     */
+    public int WeightedDegree(Environment env, Problem pr, int entity)
+    {
+        // the weights are read without the lock, a search may see a weight that is one failure old
+        boolean is_lec = entity < num_lectures;
+        int degree = weights[is_lec ? LEC_CAPACITY : TUT_CAPACITY];
+        if(is_lec && env.lectures[entity].is_5xx)
+        {
+            degree += weights[LEC_5XX];
+        }
+        for(int i = 0; i < neighbours[entity].length; i++)
+        {
+            if(!Assigned(pr, neighbours[entity][i]))
+            {
+                degree += weights[edges[entity][i]];
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * the selection key of an unassigned lecture/tutorial, the searches assign the one with the lowest key first
+     * @param env the environment
+     * @param pr the problem
+     * @param entity the entity id
+     * @param num_slots the number of valid slots of the entity
+     * @return the number of valid slots divided by the weighted degree
+     */
+    public double Key(Environment env, Problem pr, int entity, int num_slots)
+    {
+        return (double)num_slots / WeightedDegree(env, pr, entity);
+    }
+
+    /**
+     * record that a lecture/tutorial has no valid slot left, the constraints that removed its slots get a higher weight
+     * @param env the environment
+     * @param pr the problem in which the entity has no valid slot
+     * @param entity the entity id
+     */
+    public synchronized void Failure(Environment env, Problem pr, int entity)
+    {
+        boolean is_lec = entity < num_lectures;
+
+        // an assigned neighbour is involved if its slot removed a slot the entity could otherwise use
+        for(int i = 0; i < neighbours[entity].length; i++)
+        {
+            int other = neighbours[entity][i];
+            int other_slot = (other < num_lectures) ? pr.lectures[other] : pr.tutorials[other - num_lectures];
+            if(other_slot != -1 && RemovesCandidate(env, entity, other, other_slot))
+            {
+                weights[edges[entity][i]]++;
+            }
+        }
+
+        // the capacity constraint is involved if a slot the entity could otherwise use is full
+        if(HasFullCandidate(env, pr, entity))
+        {
+            weights[is_lec ? LEC_CAPACITY : TUT_CAPACITY]++;
+        }
+
+        // the 5xx constraint is involved if another 5xx lecture is in a slot the lecture could otherwise use
+        if(is_lec && env.lectures[entity].is_5xx)
+        {
+            for(int i = 0; i < env.lectures_5xx.length; i++)
+            {
+                int slot = pr.lectures[env.lectures_5xx[i]];
+                if(env.lectures_5xx[i] != entity && slot != -1 && candidates[entity][slot])
+                {
+                    weights[LEC_5XX]++;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * does the slot of an assigned neighbour remove a candidate slot of an entity
+     * the slots are removed the same way ValidLectureSlots and ValidTutSlots remove them
+     * @param env the environment
+     * @param entity the entity id
+     * @param other the entity id of the neighbour
+     * @param other_slot the slot of the neighbour
+     * @return true if a candidate slot of the entity overlaps the slot of the neighbour
+     */
+    private boolean RemovesCandidate(Environment env, int entity, int other, int other_slot)
+    {
+        boolean is_lec = entity < num_lectures;
+        boolean other_is_lec = other < num_lectures;
+        if(is_lec == other_is_lec)
+        {
+            return candidates[entity][other_slot];
+        }
+
+        // a lecture loses the lecture slots that overlap the tutorial slot, a tutorial the other way around
+        int[] removed = is_lec ? env.tutslot_lecslot[other_slot] : env.lecslot_tutslot[other_slot];
+        for(int i = 0; i < removed.length; i++)
+        {
+            if(candidates[entity][removed[i]])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * is an entity assigned in a problem
+     * @param pr the problem
+     * @param entity the entity id
+     * @return true if the entity has a slot
+     */
+    private boolean Assigned(Problem pr, int entity)
+    {
+        return ((entity < num_lectures) ? pr.lectures[entity] : pr.tutorials[entity - num_lectures]) != -1;
+    }
+
+    /**
+     * is a candidate slot of an entity full in a problem
+     * @param env the environment
+     * @param pr the problem
+     * @param entity the entity id
+     * @return true if a slot the entity could otherwise use is at its capacity (or its active learning capacity)
+     */
+    private boolean HasFullCandidate(Environment env, Problem pr, int entity)
+    {
+        boolean is_lec = entity < num_lectures;
+        boolean is_al = is_lec ? env.lectures[entity].is_al : env.tutorials[entity - num_lectures].is_al;
+        Slot[] slots = is_lec ? env.lec_slots_array : env.tut_slots_array;
+        int[] assigned = is_lec ? pr.lectures : pr.tutorials;
+        int[] fill = new int[slots.length];
+        int[] al_fill = new int[slots.length];
+        for(int i = 0; i < assigned.length; i++)
+        {
+            if(assigned[i] != -1)
+            {
+                fill[assigned[i]]++;
+                if(is_lec ? env.lectures[i].is_al : env.tutorials[i].is_al)
+                {
+                    al_fill[assigned[i]]++;
+                }
+            }
+        }
+        for(int i = 0; i < slots.length; i++)
+        {
+            if(candidates[entity][i] && (fill[i] >= slots[i].max || (is_al && al_fill[i] >= slots[i].almax)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * save the weights to a file
+     * @param file_name the file to write
+     * @param env the environment the weights belong to
+     * @return true if the file was written, false otherwise
+     */
+    public synchronized boolean Save(String file_name, Environment env)
+    {
+        // write to a temporary file first so the weights of the last run are never replaced by a partial file
+        File file = new File(file_name);
+        File temp = new File(file_name + ".tmp");
+        try{
+            PrintStream out = new PrintStream(new FileOutputStream(temp));
+            // the header identifies the dataset, the weights of another dataset are not loaded
+            out.println(String.format("%s %d %d %d", env.dataset_name.replace(' ', '_'), num_lectures, neighbours.length - num_lectures, weights.length));
+            for(int i = 0; i < weights.length; i++)
+            {
+                out.println(weights[i]);
+            }
+            out.close();
+            // a PrintStream hides its errors
+            if(out.checkError())
+            {
+                temp.delete();
+                System.out.println("Could not write the constraint weights to: " + file_name);
+                return false;
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch(IOException e)
+        {
+            System.out.println("Could not write the constraint weights to: " + file_name);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * load the weights from a file written by Save
+     * @param file_name the file to read
+     * @param env the environment the weights belong to
+     * @return true if the weights were loaded, false if the file could not be read or belongs to another dataset
+     */
+    public synchronized boolean Load(String file_name, Environment env)
+    {
+        int[] loaded = new int[weights.length];
+        try{
+            BufferedReader reader = new BufferedReader(new FileReader(file_name));
+            String header = reader.readLine();
+            String expected = String.format("%s %d %d %d", env.dataset_name.replace(' ', '_'), num_lectures, neighbours.length - num_lectures, weights.length);
+            if(header == null || !header.trim().equals(expected))
+            {
+                reader.close();
+                System.out.println("The constraint weights in " + file_name + " are for another dataset, they are not used");
+                return false;
+            }
+            for(int i = 0; i < loaded.length; i++)
+            {
+                String line = reader.readLine();
+                if(line == null)
+                {
+                    reader.close();
+                    System.out.println("The constraint weights file " + file_name + " is too short, it is not used");
+                    return false;
+                }
+                loaded[i] = Math.max(1, Integer.parseInt(line.trim()));
+            }
+            reader.close();
+        }catch(IOException | NumberFormatException e)
+        {
+            System.out.println("Could not read the constraint weights from: " + file_name);
+            return false;
+        }
+        weights = loaded;
+        return true;
+    }
+}
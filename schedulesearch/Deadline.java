@@ -0,0 +1,129 @@
+package schedulesearch;
+
+/**
+ * Deadline holds the time budget of a run, measured with the monotonic clock (System.nanoTime) in long nanoseconds
+ * At the soft limit a search stops at its next clean point (before the next restart, round, pass or generation), at
+ * the hard limit every search and preprocessing step stops at its next check. Either way the search returns the best
+ * solution found so far. Poll only reads the clock every POLL_INTERVAL calls, so it can be called for every node
+ */
+public class Deadline
+{
+    // the limit of a deadline that never expires (in milliseconds)
+    static final long NO_LIMIT = Long.MAX_VALUE;
+    // the number of calls to Poll between two reads of the clock
+    static final int POLL_INTERVAL = 64;
+
+    // the clock reading when the deadline was created
+    long start_time;
+    // the soft limit in nanoseconds since the start (Long.MAX_VALUE for none)
+    long soft_limit;
+    // the hard limit in nanoseconds since the start (Long.MAX_VALUE for none)
+    long hard_limit;
+    // set once the hard limit has been seen to pass, so later checks do not read the clock
+    private volatile boolean expired = false;
+    // the calls to Poll left until the clock is read again (searches running in parallel may lose an update, that
+    // only moves the next read of the clock)
+    private int countdown = POLL_INTERVAL;
+
+    /**
+     * start a deadline
+     * @param soft_ms the soft limit in milliseconds from now (NO_LIMIT for none, it is never later than the hard limit)
+     * @param hard_ms the hard limit in milliseconds from now (NO_LIMIT for none)
+     */
+    public Deadline(long soft_ms, long hard_ms)
+    {
+        start_time = System.nanoTime();
+        hard_limit = ToNanos(hard_ms);
+        soft_limit = Math.min(ToNanos(soft_ms), hard_limit);
+    }
+
+    /**
+     * a deadline that never expires
+     * @return the deadline
+     */
+    public static Deadline None()
+    {
+        return new Deadline(NO_LIMIT, NO_LIMIT);
+    }
+
+    /**
+     * convert milliseconds to nanoseconds without overflowing
+     * @param ms the milliseconds (NO_LIMIT for none)
+     * @return the nanoseconds, Long.MAX_VALUE if the limit does not fit
+     */
+    private static long ToNanos(long ms)
+    {
+        if(ms < 0)
+        {
+            return 0;
+        }
+        if(ms >= Long.MAX_VALUE / 1000000)
+        {
+            return Long.MAX_VALUE;
+        }
+        return ms * 1000000;
+    }
+
+    /**
+     * the time since the deadline was started
+     * @return the elapsed time in milliseconds
+     */
+    public long ElapsedMillis()
+    {
+        return (System.nanoTime() - start_time) / 1000000;
+    }
+
+    /**
+     * the time left until the hard limit
+     * @return the remaining time in nanoseconds (Long.MAX_VALUE if there is no hard limit, 0 if it has passed)
+     */
+    public long RemainingNanos()
+    {
+        if(hard_limit == Long.MAX_VALUE)
+        {
+            return Long.MAX_VALUE;
+        }
+        // the difference of two nanoTime readings never overflows, unlike a comparison of the readings themselves
+        return Math.max(0, hard_limit - (System.nanoTime() - start_time));
+    }
+
+    /**
+     * has the soft limit passed, this reads the clock so it is meant for the clean stopping points of a search
+     * @return true if the search should stop at this point
+     */
+    public boolean SoftExpired()
+    {
+        return expired || (soft_limit != Long.MAX_VALUE && System.nanoTime() - start_time >= soft_limit);
+    }
+
+    /**
+     * has the hard limit passed, this reads the clock
+     * @return true if the search has to stop
+     */
+    public boolean HardExpired()
+    {
+        if(!expired && hard_limit != Long.MAX_VALUE && System.nanoTime() - start_time >= hard_limit)
+        {
+            expired = true;
+        }
+        return expired;
+    }
+
+    /**
+     * has the hard limit passed, the clock is only read every POLL_INTERVAL calls
+     * @return true if the search has to stop
+     */
+    public boolean Poll()
+    {
+        if(expired || hard_limit == Long.MAX_VALUE)
+        {
+            return expired;
+        }
+        if(--countdown > 0)
+        {
+            return false;
+        }
+        countdown = POLL_INTERVAL;
+        return HardExpired();
+    }
+}
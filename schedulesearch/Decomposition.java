@@ -0,0 +1,417 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Decomposition splits a problem into independent components and solves each one with its own AndSearch
+ * Two unassigned lectures/tutorials are in the same component if they share a constraint in the ConflictGraph,
+ * or if they can both use a slot whose capacity or min can be reached (a slot that can never be over filled
+ * and has no min penalty does not couple anything). The optimal schedules of the components are merged.
+ */
+public class Decomposition implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the components, each one is the list of entity ids in it (lectures are 0 to num_lectures-1, tutorials follow)
+    ArrayList<int[]> components = new ArrayList<int[]>();
+    // the best solution found so far for each component (used to report merged solutions during the search)
+    Problem[] component_best;
+    // the environments of the component searches
+    Environment[] component_envs;
+
+    /**
+     * find the independent components of a problem
+     * @param _env the environment
+     * @param _s0 the starting state
+     */
+    public Decomposition(Environment _env, Problem _s0)
+    {
+        env = _env;
+        s0 = _s0;
+
+        // sudo code:
+        // put every unassigned lecture/tutorial in its own set
+        // join the sets of unassigned neighbours in the conflict graph
+        // join the sets of all unassigned lectures/tutorials that can use the same binding slot
+        // every remaining set is a component
+
+        int num_entities = env.num_lectures + env.num_tutorials;
+        int[] parent = new int[num_entities];
+        for(int i = 0; i < num_entities; i++)
+        {
+            parent[i] = i;
+        }
+
+        // join through the constraints ###################################################################################################
+        ConflictGraph graph = new ConflictGraph(env);
+        for(int i = 0; i < num_entities; i++)
+        {
+            if(IsAssigned(i))
+            {
+                continue;
+            }
+            for(int j = 0; j < graph.neighbours[i].length; j++)
+            {
+                // a constraint with an assigned lecture/tutorial only removes slots, it does not couple anything
+                if(!IsAssigned(graph.neighbours[i][j]))
+                {
+                    Union(parent, i, graph.neighbours[i][j]);
+                }
+            }
+        }
+
+        // join through the slots #########################################################################################################
+        // index is the slot id, value is the unassigned lectures/tutorials that can use the slot
+        ArrayList<ArrayList<Integer>> lec_users = new ArrayList<ArrayList<Integer>>();
+        ArrayList<ArrayList<Integer>> tut_users = new ArrayList<ArrayList<Integer>>();
+        for(int i = 0; i < env.lec_slots_array.length; i++)
+        {
+            lec_users.add(new ArrayList<Integer>());
+        }
+        for(int i = 0; i < env.tut_slots_array.length; i++)
+        {
+            tut_users.add(new ArrayList<Integer>());
+        }
+
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            if(s0.lectures[i] == -1)
+            {
+                int[] slots = Functions.ValidLectureSlots(env, i, s0);
+                for(int j = 0; slots != null && j < slots.length; j++)
+                {
+                    lec_users.get(slots[j]).add(i);
+                }
+            }
+        }
+
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            if(s0.tutorials[i] == -1)
+            {
+                int[] slots = Functions.ValidTutSlots(env, i, s0);
+                for(int j = 0; slots != null && j < slots.length; j++)
+                {
+                    tut_users.get(slots[j]).add(env.num_lectures + i);
+                }
+            }
+        }
+
+        JoinBindingSlots(parent, env.lec_slots_array, s0.lectures, lec_users, true);
+        JoinBindingSlots(parent, env.tut_slots_array, s0.tutorials, tut_users, false);
+
+        // collect the components #########################################################################################################
+        HashMap<Integer, ArrayList<Integer>> sets = new HashMap<Integer, ArrayList<Integer>>();
+        for(int i = 0; i < num_entities; i++)
+        {
+            if(IsAssigned(i))
+            {
+                continue;
+            }
+            int root = Find(parent, i);
+            if(!sets.containsKey(root))
+            {
+                sets.put(root, new ArrayList<Integer>());
+            }
+            sets.get(root).add(i);
+        }
+
+        for(ArrayList<Integer> set: sets.values())
+        {
+            int[] component = new int[set.size()];
+            for(int i = 0; i < component.length; i++)
+            {
+                component[i] = set.get(i);
+            }
+            components.add(component);
+        }
+
+        System.out.println(String.format("Decomposition: %d independent components", components.size()));
+    }
+
+    /**
+     * run the search, each component is solved by its own AndSearch in parallel
+     * @param sf the final state to return
+     * @return true if a solution could be found for every component, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // nothing to split, so just run the normal search
+        if(components.size() <= 1)
+        {
+            AndSearch search = new AndSearch(env, s0);
+            return search.RunSearch(sf);
+        }
+
+        component_best = new Problem[components.size()];
+        component_envs = new Environment[components.size()];
+        int num_threads = Math.min(components.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(num_threads);
+        ArrayList<Future<Problem>> results = new ArrayList<Future<Problem>>();
+
+        for(int c = 0; c < components.size(); c++)
+        {
+            int[] component = components.get(c);
+            // every component gets its own copy of the environment, restricted to its lectures/tutorials
+            Environment sub_env = env.Copy();
+            sub_env.lec_active = new boolean[env.num_lectures];
+            sub_env.tut_active = new boolean[env.num_tutorials];
+            for(int i = 0; i < component.length; i++)
+            {
+                if(component[i] < env.num_lectures)
+                {
+                    sub_env.lec_active[component[i]] = true;
+                }
+                else
+                {
+                    sub_env.tut_active[component[i] - env.num_lectures] = true;
+                }
+            }
+
+            // merge the best solutions of the components as they are found
+            sub_env.listener = new ComponentListener(this, c);
+            component_envs[c] = sub_env;
+
+            Problem sub_s0 = new Problem(s0);
+            results.add(executor.submit(() -> {
+                AndSearch search = new AndSearch(sub_env, sub_s0);
+                Problem sub_sf = new Problem();
+                if(!search.RunSearch(sub_sf))
+                {
+                    return null;
+                }
+                // return the lower bound of this component in the bound of the solution
+                sub_sf.bound = sub_env.lower_bound;
+                return sub_sf;
+            }));
+        }
+        executor.shutdown();
+
+        // merge the schedules of the components
+        Problem merged = new Problem(s0);
+        boolean found = true;
+        // the sum of the gaps between the best score and the lower bound of each component
+        int gap = 0;
+        for(int c = 0; c < components.size(); c++)
+        {
+            Problem sub_sf;
+            try{
+                sub_sf = results.get(c).get();
+            }catch(InterruptedException | ExecutionException e)
+            {
+                System.out.println("Decomposition: search of component " + c + " failed: " + e.getMessage());
+                sub_sf = null;
+            }
+
+            if(sub_sf == null)
+            {
+                found = false;
+                continue;
+            }
+
+            gap += sub_sf.score - sub_sf.bound;
+            Merge(merged, sub_sf, components.get(c));
+        }
+
+        if(!found)
+        {
+            return false;
+        }
+
+        merged.score = Functions.Eval(merged, env);
+        env.UpdateBest(merged, merged.score);
+        // the score of each component only differs from its part of the merged score by a constant
+        env.lower_bound = merged.score - gap;
+
+        // return the merged solution by reference
+        sf.lectures = merged.lectures;
+        sf.tutorials = merged.tutorials;
+        sf.depth = merged.depth;
+        sf.score = merged.score;
+        return true;
+    }
+
+    /**
+     * record a new best solution of a component, once every component has a solution the merged solution is reported
+     * @param c the index of the component
+     * @param pr the new best solution of the component
+     */
+    synchronized void ComponentIncumbent(int c, Problem pr)
+    {
+        component_best[c] = pr;
+
+        Problem merged = new Problem(s0);
+        for(int i = 0; i < components.size(); i++)
+        {
+            if(component_best[i] == null)
+            {
+                return;
+            }
+            Merge(merged, component_best[i], components.get(i));
+        }
+
+        // the node count of the merged solution is the total of all the component searches
+        env.iterations = 0;
+        for(int i = 0; i < components.size(); i++)
+        {
+            env.iterations += component_envs[i].iterations;
+        }
+
+        merged.score = Functions.Eval(merged, env);
+        env.UpdateBest(merged, merged.score);
+    }
+
+    /**
+     * copy the assignments of a component from a solution
+     * @param merged the problem to copy to
+     * @param pr the solution to copy from
+     * @param component the entity ids of the component
+     */
+    private void Merge(Problem merged, Problem pr, int[] component)
+    {
+        for(int i = 0; i < component.length; i++)
+        {
+            if(component[i] < env.num_lectures)
+            {
+                merged.AssignLecture(component[i], pr.lectures[component[i]]);
+            }
+            else
+            {
+                int tut_id = component[i] - env.num_lectures;
+                merged.AssignTutorial(tut_id, pr.tutorials[tut_id]);
+            }
+        }
+    }
+
+    /**
+     * join the sets of all lectures/tutorials that can use a binding slot
+     * a slot is binding if its max or almax can be reached, or if it has a min that is not filled yet
+     * @param parent the union find parent array
+     * @param slots the slots
+     * @param assigned the current assignments to the slots
+     * @param users index is the slot id, value is the unassigned entities that can use the slot
+     * @param is_lec are these lecture slots
+     */
+    private void JoinBindingSlots(int[] parent, Slot[] slots, int[] assigned, ArrayList<ArrayList<Integer>> users, boolean is_lec)
+    {
+        int[] fill = new int[slots.length];
+        int[] al_fill = new int[slots.length];
+        for(int i = 0; i < assigned.length; i++)
+        {
+            if(assigned[i] != -1)
+            {
+                fill[assigned[i]]++;
+                if(is_lec ? env.lectures[i].is_al : env.tutorials[i].is_al)
+                {
+                    al_fill[assigned[i]]++;
+                }
+            }
+        }
+
+        for(int s = 0; s < slots.length; s++)
+        {
+            ArrayList<Integer> slot_users = users.get(s);
+            int al_users = 0;
+            for(Integer e: slot_users)
+            {
+                if(e < env.num_lectures ? env.lectures[e].is_al : env.tutorials[e - env.num_lectures].is_al)
+                {
+                    al_users++;
+                }
+            }
+
+            boolean binding = fill[s] + slot_users.size() > slots[s].max
+                            || al_fill[s] + al_users > slots[s].almax
+                            || fill[s] < slots[s].min;
+            if(!binding)
+            {
+                continue;
+            }
+
+            for(int i = 1; i < slot_users.size(); i++)
+            {
+                Union(parent, slot_users.get(0), slot_users.get(i));
+            }
+        }
+    }
+
+    /**
+     * is an entity assigned in the starting state
+     * @param entity the entity id
+     * @return true if it is assigned
+     */
+    private boolean IsAssigned(int entity)
+    {
+        if(entity < env.num_lectures)
+        {
+            return s0.lectures[entity] != -1;
+        }
+        return s0.tutorials[entity - env.num_lectures] != -1;
+    }
+
+    /**
+     * find the root of the set of an entity
+     * @param parent the union find parent array
+     * @param i the entity id
+     * @return the root of the set
+     */
+    private static int Find(int[] parent, int i)
+    {
+        while(parent[i] != i)
+        {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * join the sets of two entities
+     * @param parent the union find parent array
+     * @param a the first entity id
+     * @param b the second entity id
+     */
+    private static void Union(int[] parent, int a, int b)
+    {
+        int root_a = Find(parent, a);
+        int root_b = Find(parent, b);
+        if(root_a != root_b)
+        {
+            parent[root_b] = root_a;
+        }
+    }
+}
+
+/**
+ * ComponentListener passes the new best solutions of a component search on to the decomposition
+ */
+class ComponentListener implements IncumbentListener
+{
+    // the decomposition that is merging the solutions
+    private Decomposition decomposition;
+    // the index of the component
+    private int component;
+
+    public ComponentListener(Decomposition _decomposition, int _component)
+    {
+        decomposition = _decomposition;
+        component = _component;
+    }
+
+    /**
+     * pass the new best solution of the component on to the decomposition
+     * @param pr the new best solution
+     * @param score the score of the new best solution
+     * @param nodes the number of problems the component search has expanded so far
+     */
+    public void NewIncumbent(Problem pr, int score, int nodes)
+    {
+        decomposition.ComponentIncumbent(component, pr);
+    }
+}
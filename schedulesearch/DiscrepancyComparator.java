@@ -0,0 +1,26 @@
+package schedulesearch;
+import java.util.Comparator;
+
+/**
+ * DiscrepancyComparator sorts the Problems in the priority queue for limited discrepancy search
+ */
+class DiscrepancyComparator implements Comparator<Problem>
+{
+    // the order of problems with the same number of discrepancies
+    private FLeafComparator f_leaf = new FLeafComparator();
+
+    /**
+     * the problems with the fewest discrepancies go first, then the order of f_leaf
+     * @param p1 the first problem to sort
+     * @param p2 the second problem to sort
+     * @return negative if the first object should go first in the list, positive otherwise
+     */
+    public int compare(Problem p1, Problem p2)
+    {
+        if(p1.discrepancies != p2.discrepancies)
+        {
+            return Integer.compare(p1.discrepancies, p2.discrepancies);
+        }
+        return f_leaf.compare(p1, p2);
+    }
+}
@@ -0,0 +1,417 @@
+package schedulesearch;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+
+/**
+ * the Dominance class finds slots that are interchangeable or dominated by other slots
+ * Interchangeable slots have the same capacities, preferences, unwanted lectures/tutorials and overlaps, so while
+ * they are both empty it is provably safe to only try the one with the lowest id.
+ * A slot dominates another if it is at least as good for every lecture/tutorial, dominating slots are tried first
+ */
+public final class Dominance
+{
+    /**
+     * Analyse the slots of an environment and record the slot classes and ranks in the environment
+     * @param env the environment to analyse
+     */
+    public static void Analyse(Environment env)
+    {
+        // sudo code:
+        // for every pair of slots s < t
+        //      if s and t are interchangeable then put t in the class of s
+        //      else if s dominates t then increase the rank of t (and the other way around)
+        // slots with lower ranks are tried first
+
+        int num_lec = env.lec_slots_array.length;
+        int num_tut = env.tut_slots_array.length;
+        env.lec_slot_class = new int[num_lec];
+        env.tut_slot_class = new int[num_tut];
+        env.lec_slot_rank = new int[num_lec];
+        env.tut_slot_rank = new int[num_tut];
+
+        // Lecture slots ################################################################################################################
+        int lec_equivalent = 0;
+        int lec_dominated = 0;
+        for(int i = 0; i < num_lec; i++)
+        {
+            env.lec_slot_class[i] = i;
+        }
+
+        // every slot is in its own class and has rank 0 until the analysis reaches it, so stopping early is safe
+        for(int s = 0; s < num_lec && !env.Stopped(); s++)
+        {
+            for(int t = s + 1; t < num_lec; t++)
+            {
+                if(env.lec_slot_class[t] == t && LecInterchangeable(env, env.lec_slot_class[s], t))
+                {
+                    env.lec_slot_class[t] = env.lec_slot_class[s];
+                    lec_equivalent++;
+                }
+                else if(LecDominates(env, s, t))
+                {
+                    env.lec_slot_rank[t]++;
+                }
+                else if(LecDominates(env, t, s))
+                {
+                    env.lec_slot_rank[s]++;
+                }
+            }
+        }
+
+        // Tutorial slots ###############################################################################################################
+        int tut_equivalent = 0;
+        for(int i = 0; i < num_tut; i++)
+        {
+            env.tut_slot_class[i] = i;
+        }
+
+        for(int s = 0; s < num_tut && !env.Stopped(); s++)
+        {
+            for(int t = s + 1; t < num_tut; t++)
+            {
+                if(env.tut_slot_class[t] == t && TutInterchangeable(env, env.tut_slot_class[s], t))
+                {
+                    env.tut_slot_class[t] = env.tut_slot_class[s];
+                    tut_equivalent++;
+                }
+                else if(TutDominates(env, s, t))
+                {
+                    env.tut_slot_rank[t]++;
+                }
+                else if(TutDominates(env, t, s))
+                {
+                    env.tut_slot_rank[s]++;
+                }
+            }
+        }
+
+        for(int i = 0; i < num_lec; i++)
+        {
+            if(env.lec_slot_rank[i] > 0)
+            {
+                lec_dominated++;
+            }
+        }
+
+        int tut_dominated = 0;
+        for(int i = 0; i < num_tut; i++)
+        {
+            if(env.tut_slot_rank[i] > 0)
+            {
+                tut_dominated++;
+            }
+        }
+
+        System.out.println(String.format("Dominance: %d interchangeable and %d dominated lecture slots, %d interchangeable and %d dominated tutorial slots",
+                            lec_equivalent, lec_dominated, tut_equivalent, tut_dominated));
+    }
+
+    /**
+     * filter and order the valid slots of a lecture/tutorial before they are expanded
+     * of all the empty slots in an interchangeable class only the first is kept, the rest are sorted by rank
+     * @param env the environment with the slot classes and ranks (if Analyse was not run the slots are returned as is)
+     * @param pr the problem that is being expanded
+     * @param is_lec are the slots lecture slots
+     * @param slots the valid slots
+     * @return the filtered and ordered slots
+     */
+    public static int[] OrderSlots(Environment env, Problem pr, boolean is_lec, int[] slots)
+    {
+        int[] slot_class = is_lec ? env.lec_slot_class : env.tut_slot_class;
+        int[] slot_rank = is_lec ? env.lec_slot_rank : env.tut_slot_rank;
+        if(slot_class == null)
+        {
+            return slots;
+        }
+
+        // find the slots that are used in this problem
+        int[] assigned = is_lec ? pr.lectures : pr.tutorials;
+        boolean[] used = new boolean[slot_class.length];
+        for(int i = 0; i < assigned.length; i++)
+        {
+            if(assigned[i] != -1)
+            {
+                used[assigned[i]] = true;
+            }
+        }
+
+        // keep only the first empty slot of every class
+        HashSet<Integer> tried_classes = new HashSet<Integer>();
+        Integer[] kept = new Integer[slots.length];
+        int count = 0;
+        for(int i = 0; i < slots.length; i++)
+        {
+            int s = slots[i];
+            if(!used[s])
+            {
+                // an empty slot is interchangeable with every other empty slot of its class
+                if(tried_classes.contains(slot_class[s]))
+                {
+                    continue;
+                }
+                tried_classes.add(slot_class[s]);
+            }
+
+            kept[count] = s;
+            count++;
+        }
+
+        // dominating slots first, then lowest id
+        Integer[] ordered = Arrays.copyOf(kept, count);
+        Arrays.sort(ordered, new SlotRankComparator(slot_rank));
+
+        int[] result = new int[count];
+        for(int i = 0; i < count; i++)
+        {
+            result[i] = ordered[i];
+        }
+        return result;
+    }
+
+    /**
+     * are lecture slots s and t interchangeable, i.e. swapping them in any schedule gives the same validity and score
+     * @param env the environment
+     * @param s the first lecture slot id
+     * @param t the second lecture slot id
+     * @return true if they are interchangeable
+     */
+    private static boolean LecInterchangeable(Environment env, int s, int t)
+    {
+        Slot a = env.lec_slots_array[s];
+        Slot b = env.lec_slots_array[t];
+        if(a.max != b.max || a.almax != b.almax || a.min != b.min || a.is_evng != b.is_evng)
+        {
+            return false;
+        }
+
+        // the overlapping tutorial slots must be the same in both directions
+        if(!SameIds(env.lecslot_tutslot[s], env.lecslot_tutslot[t]))
+        {
+            return false;
+        }
+        for(int i = 0; i < env.tutslot_lecslot.length; i++)
+        {
+            if(Contains(env.tutslot_lecslot[i], s) != Contains(env.tutslot_lecslot[i], t))
+            {
+                return false;
+            }
+        }
+
+        // every lecture must see the two slots the same way
+        for(int i = 0; i < env.lectures.length; i++)
+        {
+            Lecture lec = env.lectures[i];
+            if(lec.unwanted.contains(s) != lec.unwanted.contains(t))
+            {
+                return false;
+            }
+            if(lec.preferences.getOrDefault(a.lec_hash, 0).intValue() != lec.preferences.getOrDefault(b.lec_hash, 0).intValue())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * are tutorial slots s and t interchangeable, i.e. swapping them in any schedule gives the same validity and score
+     * @param env the environment
+     * @param s the first tutorial slot id
+     * @param t the second tutorial slot id
+     * @return true if they are interchangeable
+     */
+    private static boolean TutInterchangeable(Environment env, int s, int t)
+    {
+        Slot a = env.tut_slots_array[s];
+        Slot b = env.tut_slots_array[t];
+        if(a.max != b.max || a.almax != b.almax || a.min != b.min || a.is_evng != b.is_evng)
+        {
+            return false;
+        }
+
+        // the overlapping lecture slots must be the same in both directions
+        if(!SameIds(env.tutslot_lecslot[s], env.tutslot_lecslot[t]))
+        {
+            return false;
+        }
+        for(int i = 0; i < env.lecslot_tutslot.length; i++)
+        {
+            if(Contains(env.lecslot_tutslot[i], s) != Contains(env.lecslot_tutslot[i], t))
+            {
+                return false;
+            }
+        }
+
+        // every tutorial must see the two slots the same way
+        for(int i = 0; i < env.tutorials.length; i++)
+        {
+            Tutorial tut = env.tutorials[i];
+            if(tut.unwanted.contains(s) != tut.unwanted.contains(t))
+            {
+                return false;
+            }
+            if(tut.preferences.getOrDefault(a.tut_hash, 0).intValue() != tut.preferences.getOrDefault(b.tut_hash, 0).intValue())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * does lecture slot s dominate lecture slot t, i.e. it has at least the capacity, no more overlaps,
+     * and is at least as wanted and preferred by every lecture
+     * @param env the environment
+     * @param s the dominating lecture slot id
+     * @param t the dominated lecture slot id
+     * @return true if s dominates t
+     */
+    private static boolean LecDominates(Environment env, int s, int t)
+    {
+        Slot a = env.lec_slots_array[s];
+        Slot b = env.lec_slots_array[t];
+        if(a.max < b.max || a.almax < b.almax || a.is_evng != b.is_evng)
+        {
+            return false;
+        }
+
+        // s must not overlap any tutorial slot that t does not overlap
+        for(int i = 0; i < env.lecslot_tutslot[s].length; i++)
+        {
+            if(!Contains(env.lecslot_tutslot[t], env.lecslot_tutslot[s][i]))
+            {
+                return false;
+            }
+        }
+
+        for(int i = 0; i < env.lectures.length; i++)
+        {
+            Lecture lec = env.lectures[i];
+            if(lec.unwanted.contains(s) && !lec.unwanted.contains(t))
+            {
+                return false;
+            }
+            if(lec.preferences.getOrDefault(a.lec_hash, 0) < lec.preferences.getOrDefault(b.lec_hash, 0))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * does tutorial slot s dominate tutorial slot t, i.e. it has at least the capacity, no more overlaps,
+     * and is at least as wanted and preferred by every tutorial
+     * @param env the environment
+     * @param s the dominating tutorial slot id
+     * @param t the dominated tutorial slot id
+     * @return true if s dominates t
+     */
+    private static boolean TutDominates(Environment env, int s, int t)
+    {
+        Slot a = env.tut_slots_array[s];
+        Slot b = env.tut_slots_array[t];
+        if(a.max < b.max || a.almax < b.almax || a.is_evng != b.is_evng)
+        {
+            return false;
+        }
+
+        // s must not overlap any lecture slot that t does not overlap
+        for(int i = 0; i < env.tutslot_lecslot[s].length; i++)
+        {
+            if(!Contains(env.tutslot_lecslot[t], env.tutslot_lecslot[s][i]))
+            {
+                return false;
+            }
+        }
+
+        for(int i = 0; i < env.tutorials.length; i++)
+        {
+            Tutorial tut = env.tutorials[i];
+            if(tut.unwanted.contains(s) && !tut.unwanted.contains(t))
+            {
+                return false;
+            }
+            if(tut.preferences.getOrDefault(a.tut_hash, 0) < tut.preferences.getOrDefault(b.tut_hash, 0))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * does an array of ids contain an id
+     * @param ids the array to search
+     * @param id the id to look for
+     * @return true if the id was found
+     */
+    private static boolean Contains(int[] ids, int id)
+    {
+        for(int i = 0; i < ids.length; i++)
+        {
+            if(ids[i] == id)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * do two arrays contain the same ids (ignoring order)
+     * @param a the first array
+     * @param b the second array
+     * @return true if they have the same ids
+     */
+    private static boolean SameIds(int[] a, int[] b)
+    {
+        if(a.length != b.length)
+        {
+            return false;
+        }
+        for(int i = 0; i < a.length; i++)
+        {
+            if(!Contains(b, a[i]))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
+
+/**
+ * SlotRankComparator sorts slot ids so that the slots with the lowest rank go first
+ */
+class SlotRankComparator implements Comparator<Integer>
+{
+    // index is the slot id, value is the rank of the slot
+    private int[] slot_rank;
+
+    public SlotRankComparator(int[] _slot_rank)
+    {
+        slot_rank = _slot_rank;
+    }
+
+    /**
+     * implements the sorting function for comparator
+     * @param a the first slot id
+     * @param b the second slot id
+     * @return negative if a should go first, positive otherwise
+     */
+    public int compare(Integer a, Integer b)
+    {
+        // lowest rank first, tie break on the slot id
+        if(slot_rank[a] != slot_rank[b])
+        {
+            return slot_rank[a] - slot_rank[b];
+        }
+        return a - b;
+    }
+}
@@ -0,0 +1,25 @@
+package schedulesearch;
+
+/**
+ * DominanceOrdering keeps the order of Dominance.OrderSlots (dominating slots first)
+ */
+class DominanceOrdering implements ValueOrdering
+{
+    /**
+     * only move the slot of the guiding solution to the front
+     * @param pr the problem that was divided
+     * @param env the environment
+     * @param entity the id of the assigned lecture/tutorial
+     * @param children the children, sorted in place
+     * @param slots the slot of each child, sorted with the children
+     */
+    public void Order(Problem pr, Environment env, int entity, Problem[] children, int[] slots)
+    {
+        double[] keys = new double[children.length];
+        for(int i = 0; i < children.length; i++)
+        {
+            keys[i] = Functions.FollowsGuide(pr, env, entity, slots[i]) ? -1 : 0;
+        }
+        RestartSearch.SortByKey(children, keys, slots);
+    }
+}
@@ -1,6 +1,7 @@
 package schedulesearch;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The Environment class holds all the un-changing information for the search
@@ -23,20 +24,36 @@ public class Environment
 
     // max iterations
     int max_iterations;
+    // the allowed relative distance from the optimum, problems are pruned if bound * (1 + epsilon) >= best_score
+    double epsilon = 0;
+    // build a greedy schedule before the search so FBound can prune from the start
+    boolean warm_start = true;
+    // the maximum number of discrepancies of a problem in the And search (-1 for no limit)
+    int max_discrepancies = -1;
+    // run the And search with 0, 1, ... max_discrepancies discrepancies instead of only max_discrepancies
+    boolean iterative_lds = false;
+    // try the slot of the best solution first (phase saving)
+    boolean phase_saving = false;
+    // the slots to try first until there is a best solution, e.g. the schedule of an earlier run (null for none)
+    Problem guide_sol;
     // time limit in seconds
     long time_limit; 
 
     // RECORD ############################################################################################
-    // the current execution time since the start of the search
-    long current_time = 0;
-    // the start time (needed for measuring time since timer does not start at zero)
-    long start_time = 0;
+    // the soft and hard time limits of the run (shared by every copy)
+    Deadline deadline = Deadline.None();
     // the number of iterations used so far
     int iterations = 0;
-    // the best solution found so far
-    Problem best_sol;
+    // the best solution found so far (volatile because searches running in parallel share their best solutions)
+    volatile Problem best_sol;
     // the score of the best solution found so far
-    int best_score = 2000000000;
+    volatile int best_score = 2000000000;
+    // the proven lower bound on the score of any schedule (set when the search finishes)
+    int lower_bound = 0;
+    // told about every new best solution (null if nobody is listening)
+    IncumbentListener listener;
+    // set to stop every search that uses this environment or a copy of it
+    AtomicBoolean stop = new AtomicBoolean(false);
 
     // Environment DATA #####################################################################################
     String dataset_name;
@@ -73,10 +90,162 @@ public class Environment
     // index is the lecture slot id, value is the corresponding tutorial slot
     int[][] lecslot_tutslot;
 
+    // slot dominance (filled by Dominance.Analyse, null if the analysis was not run)
+    // index is the slot id, value is the lowest slot id that it is interchangeable with
+    int[] lec_slot_class;
+    int[] tut_slot_class;
+    // index is the slot id, value is the number of slots that dominate it (lower ranks are tried first)
+    int[] lec_slot_rank;
+    int[] tut_slot_rank;
+
+    // the lectures/tutorials that the search has to assign (null means all of them)
+    // used to solve the independent components of a problem separately
+    boolean[] lec_active;
+    boolean[] tut_active;
+
+    // the optional lagrangian relaxation of the slot capacities used by MinBoundScore (null if not used)
+    LagrangianBound lagrangian_bound;
+    // the learned constraint weights of the dom/wdeg variable ordering (null for fewest valid slots first)
+    ConstraintWeights weights;
+    // the variable selection, value ordering, frontier policy and bounding of the And search
+    SearchStrategy strategy = SearchStrategy.Default();
+
     public Environment()
     {
     }
 
+    /**
+     * create a copy of this environment for running a separate search
+     * the data is shared (it is never changed by a search), but the copy has its own record
+     * @return the copy
+     */
+    public Environment Copy()
+    {
+        Environment temp = new Environment();
+        temp.w_minfilled = w_minfilled;
+        temp.w_pref = w_pref;
+        temp.w_pair = w_pair;
+        temp.w_secdiff = w_secdiff;
+        temp.pen_lecturemin = pen_lecturemin;
+        temp.pen_tutorialmin = pen_tutorialmin;
+        temp.pen_notpaired = pen_notpaired;
+        temp.pen_section = pen_section;
+        temp.max_iterations = max_iterations;
+        temp.epsilon = epsilon;
+        temp.warm_start = warm_start;
+        temp.max_discrepancies = max_discrepancies;
+        temp.iterative_lds = iterative_lds;
+        temp.phase_saving = phase_saving;
+        temp.guide_sol = guide_sol;
+        temp.time_limit = time_limit;
+
+        temp.dataset_name = dataset_name;
+        temp.num_lectures = num_lectures;
+        temp.num_tutorials = num_tutorials;
+        temp.lectures = lectures;
+        temp.tutorials = tutorials;
+        temp.lec_slots_array = lec_slots_array;
+        temp.tut_slots_array = tut_slots_array;
+        temp.lectures_5xx = lectures_5xx;
+        temp.sections = sections;
+        temp.pairs = pairs;
+        temp.lecture_slots = lecture_slots;
+        temp.tutorial_slots = tutorial_slots;
+        temp.tutslot_lecslot = tutslot_lecslot;
+        temp.lecslot_tutslot = lecslot_tutslot;
+        temp.lec_slot_class = lec_slot_class;
+        temp.tut_slot_class = tut_slot_class;
+        temp.lec_slot_rank = lec_slot_rank;
+        temp.tut_slot_rank = tut_slot_rank;
+        temp.lec_active = lec_active;
+        temp.tut_active = tut_active;
+        temp.stop = stop;
+        temp.deadline = deadline;
+        // the weights are shared so what one search learns is used by the others and by the next restart
+        temp.weights = weights;
+        temp.strategy = strategy;
+        // the multipliers are updated during the search so every copy needs its own
+        temp.lagrangian_bound = (lagrangian_bound == null) ? null : lagrangian_bound.Copy();
+        return temp;
+    }
+
+    /**
+     * record a solution as the best solution if it has a better score than the best solution so far
+     * @param pr the complete solution
+     * @param score the score of the solution
+     * @return true if the solution is the new best solution
+     */
+    public boolean UpdateBest(Problem pr, int score)
+    {
+        if(!ShareBest(pr, score))
+        {
+            return false;
+        }
+
+        // the listener is told outside the lock, it may pass the solution on to other environments
+        if(listener != null)
+        {
+            listener.NewIncumbent(pr, score, iterations);
+        }
+        return true;
+    }
+
+    /**
+     * record a solution that another search found as the best solution if it is better, the listener is not told
+     * @param pr the complete solution
+     * @param score the score of the solution
+     * @return true if the solution is the new best solution
+     */
+    public synchronized boolean ShareBest(Problem pr, int score)
+    {
+        if(score >= best_score)
+        {
+            return false;
+        }
+
+        best_score = score;
+        best_sol = pr;
+        return true;
+    }
+
+    /**
+     * has the search been stopped or has the hard time limit passed, cheap enough to check for every node
+     * @return true if the search has to stop
+     */
+    public boolean Stopped()
+    {
+        return stop.get() || deadline.Poll();
+    }
+
+    /**
+     * has the search been stopped or has the soft time limit passed, checked where a search can stop cleanly
+     * @return true if the search should stop
+     */
+    public boolean SoftStopped()
+    {
+        return stop.get() || deadline.SoftExpired();
+    }
+
+    /**
+     * does the search have to assign this lecture
+     * @param lec_id the id of the lecture
+     * @return true if the lecture is active
+     */
+    public boolean LectureActive(int lec_id)
+    {
+        return lec_active == null || lec_active[lec_id];
+    }
+
+    /**
+     * does the search have to assign this tutorial
+     * @param tut_id the id of the tutorial
+     * @return true if the tutorial is active
+     */
+    public boolean TutorialActive(int tut_id)
+    {
+        return tut_active == null || tut_active[tut_id];
+    }
+
     /**
      * set all the weights and penalties used for calculating the scores of problems 
      * @param _w_minfilled 
@@ -100,6 +269,6 @@ public class Environment
         pen_notpaired = _pen_notpaired;
         pen_section = _pen_section;
         max_iterations = _max_iterations;
-        time_limit = ((int)_time_limit) * 1000000000;
+        time_limit = _time_limit;
     }
 }
\ No newline at end of file
@@ -0,0 +1,369 @@
+package schedulesearch;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * Exporter writes the pseudo-Boolean model of a problem (PbEncoding) in standard formats, so the same instance can be
+ * given to reference MaxSAT and constraint solvers
+ *      WCNF: weighted partial MaxSAT in DIMACS format, the at-most constraints are written as sequential counters
+ *      MiniZinc: a dzn data file and a model file that reads it (same name with .mzn)
+ * The optimum of the exported model plus the offset (written as a comment) is the optimum score of the schedule.
+ * The var of every lecture/tutorial in a slot is written as a comment, so a model can be read back into a schedule
+ */
+public final class Exporter
+{
+    // the MiniZinc model for the dzn files written by WriteDzn
+    private static final String MINIZINC_MODEL = String.join("\n",
+        "% pseudo-Boolean model of a schedule, the data is written by the exporter",
+        "% literals are DIMACS literals: v is var v and -v is its negation",
+        "int: num_vars;",
+        "int: num_clauses;",
+        "array[1..num_clauses + 1] of int: clause_start;",
+        "array[int] of int: clause_lits;",
+        "int: num_at_most;",
+        "array[1..num_at_most + 1] of int: at_most_start;",
+        "array[int] of int: at_most_lits;",
+        "array[int] of int: at_most_weights;",
+        "array[1..num_at_most] of int: at_most_bound;",
+        "array[int] of int: objective_lits;",
+        "array[int] of int: objective_weights;",
+        "int: offset;",
+        "",
+        "array[1..num_vars] of var bool: x;",
+        "function var bool: lit(int: l) = if l > 0 then x[l] else not x[-l] endif;",
+        "",
+        "constraint forall(c in 1..num_clauses)(exists(i in clause_start[c]..clause_start[c + 1] - 1)(lit(clause_lits[i])));",
+        "constraint forall(c in 1..num_at_most)(sum(i in at_most_start[c]..at_most_start[c + 1] - 1)(at_most_weights[i] * bool2int(lit(at_most_lits[i]))) <= at_most_bound[c]);",
+        "var int: score = offset + sum(i in index_set(objective_lits))(objective_weights[i] * bool2int(lit(objective_lits[i])));",
+        "",
+        "solve minimize score;",
+        "output [\"score = \\(score)\\n\"];",
+        "");
+
+    /**
+     * write a model as weighted partial MaxSAT (p wcnf)
+     * @param encoding the model
+     * @param env the environment of the model (for the names in the comments)
+     * @param file_name the file to write
+     * @return true if the file was written, false otherwise
+     */
+    public static boolean WriteWcnf(PbEncoding encoding, Environment env, String file_name)
+    {
+        // sudo code:
+        // the clauses are hard
+        // every at-most constraint becomes hard clauses of a sequential counter (with new vars)
+        // every objective term (weight w on literal l) becomes the soft clause (not l) with weight w
+        // the hard clauses get the weight top, which is more than the sum of the soft weights
+
+        if(!encoding.feasible)
+        {
+            System.out.println("Error, the problem has no valid schedule, so there is nothing to export");
+            return false;
+        }
+
+        ArrayList<int[]> hard = new ArrayList<int[]>(encoding.clauses);
+        int[] num_vars = new int[]{encoding.num_vars};
+        for(int i = 0; i < encoding.at_most_lits.size(); i++)
+        {
+            if(!AtMostClauses(encoding.at_most_lits.get(i), encoding.at_most_weights.get(i), encoding.at_most_bounds.get(i), hard, num_vars))
+            {
+                return false;
+            }
+        }
+
+        long top = 1;
+        for(Integer weight: encoding.objective_weights)
+        {
+            top += weight;
+        }
+
+        try{
+            PrintStream out = new PrintStream(new FileOutputStream(file_name));
+            WriteComments(out, "c", encoding, env);
+            out.println(String.format("p wcnf %d %d %d", num_vars[0], hard.size() + encoding.objective_lits.size(), top));
+            for(int[] clause: hard)
+            {
+                out.println(top + " " + Dimacs(clause) + " 0");
+            }
+            for(int i = 0; i < encoding.objective_lits.size(); i++)
+            {
+                out.println(encoding.objective_weights.get(i) + " " + Dimacs(new int[]{PbSolver.Not(encoding.objective_lits.get(i))}) + " 0");
+            }
+            out.close();
+        }catch(IOException e)
+        {
+            System.out.println("Could not write the WCNF file: " + file_name);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * write a model as MiniZinc data, the model that reads it is written to the same name with .mzn
+     * @param encoding the model
+     * @param env the environment of the model (for the names in the comments)
+     * @param file_name the dzn file to write
+     * @return true if the files were written, false otherwise
+     */
+    public static boolean WriteDzn(PbEncoding encoding, Environment env, String file_name)
+    {
+        if(!encoding.feasible)
+        {
+            System.out.println("Error, the problem has no valid schedule, so there is nothing to export");
+            return false;
+        }
+
+        String model_name = (file_name.endsWith(".dzn") ? file_name.substring(0, file_name.length() - 4) : file_name) + ".mzn";
+        try{
+            PrintStream out = new PrintStream(new FileOutputStream(file_name));
+            WriteComments(out, "%", encoding, env);
+            out.println(String.format("num_vars = %d;", encoding.num_vars));
+
+            // the clauses and the at-most constraints are flattened, constraint c has the entries start[c] to start[c + 1] - 1
+            out.println(String.format("num_clauses = %d;", encoding.clauses.size()));
+            out.println("clause_start = " + Starts(encoding.clauses) + ";");
+            out.println("clause_lits = [" + Join(encoding.clauses, true) + "];");
+            out.println(String.format("num_at_most = %d;", encoding.at_most_lits.size()));
+            out.println("at_most_start = " + Starts(encoding.at_most_lits) + ";");
+            out.println("at_most_lits = [" + Join(encoding.at_most_lits, true) + "];");
+            out.println("at_most_weights = [" + Join(encoding.at_most_weights, false) + "];");
+            out.println("at_most_bound = " + encoding.at_most_bounds + ";");
+
+            int[] objective = new int[encoding.objective_lits.size()];
+            for(int i = 0; i < objective.length; i++)
+            {
+                objective[i] = encoding.objective_lits.get(i);
+            }
+            out.println("objective_lits = [" + Dimacs(objective).replace(' ', ',') + "];");
+            out.println("objective_weights = " + encoding.objective_weights + ";");
+            out.println(String.format("offset = %d;", encoding.offset));
+            out.close();
+
+            PrintStream model = new PrintStream(new FileOutputStream(model_name));
+            model.print(MINIZINC_MODEL);
+            model.close();
+        }catch(IOException e)
+        {
+            System.out.println("Could not write the MiniZinc files: " + file_name + ", " + model_name);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * add the clauses of a sequential counter for an at-most constraint
+     * the literals have weight 1, except for at most one literal with a higher weight: that one turns on a second
+     * counter with the bound minus its weight (this is the form the min filled constraints of PbEncoding have)
+     * @param lits the literals
+     * @param weights the weight of each literal
+     * @param bound the bound
+     * @param clauses the clauses to add to
+     * @param num_vars index 0 is the number of vars, the new vars are added to it
+     * @return false if the constraint has more than one literal with a weight over 1
+     */
+    static boolean AtMostClauses(int[] lits, int[] weights, int bound, ArrayList<int[]> clauses, int[] num_vars)
+    {
+        ArrayList<Integer> units = new ArrayList<Integer>();
+        int heavy = -1;
+        int heavy_weight = 0;
+        for(int i = 0; i < lits.length; i++)
+        {
+            if(weights[i] == 1)
+            {
+                units.add(lits[i]);
+            }
+            else if(heavy == -1)
+            {
+                heavy = lits[i];
+                heavy_weight = weights[i];
+            }
+            else
+            {
+                System.out.println("Error, an at-most constraint has more than one literal with a weight over 1");
+                return false;
+            }
+        }
+
+        SequentialCounter(units, bound, -1, clauses, num_vars);
+        if(heavy != -1)
+        {
+            SequentialCounter(units, bound - heavy_weight, heavy, clauses, num_vars);
+        }
+        return true;
+    }
+
+    /**
+     * add the clauses of a sequential counter (Sinz): at most bound of the literals are true
+     * @param lits the literals
+     * @param bound the number of literals that may be true
+     * @param guard the counter only applies if this literal is true (-1 if it always applies)
+     * @param clauses the clauses to add to
+     * @param num_vars index 0 is the number of vars, the new vars are added to it
+     */
+    static void SequentialCounter(ArrayList<Integer> lits, int bound, int guard, ArrayList<int[]> clauses, int[] num_vars)
+    {
+        int n = lits.size();
+        if(bound >= n)
+        {
+            return;
+        }
+        if(bound < 0)
+        {
+            // the guard can never be true
+            clauses.add(Guarded(guard));
+            return;
+        }
+        if(bound == 0)
+        {
+            for(int i = 0; i < n; i++)
+            {
+                clauses.add(Guarded(guard, PbSolver.Not(lits.get(i))));
+            }
+            return;
+        }
+
+        // s[i][j] is true if at least j + 1 of the first i + 1 literals are true
+        int[][] s = new int[n - 1][bound];
+        for(int i = 0; i < n - 1; i++)
+        {
+            for(int j = 0; j < bound; j++)
+            {
+                s[i][j] = PbSolver.Pos(num_vars[0]++);
+            }
+        }
+
+        clauses.add(Guarded(guard, PbSolver.Not(lits.get(0)), s[0][0]));
+        for(int j = 1; j < bound; j++)
+        {
+            clauses.add(Guarded(guard, PbSolver.Not(s[0][j])));
+        }
+        for(int i = 1; i < n - 1; i++)
+        {
+            int x = PbSolver.Not(lits.get(i));
+            clauses.add(Guarded(guard, x, s[i][0]));
+            clauses.add(Guarded(guard, PbSolver.Not(s[i - 1][0]), s[i][0]));
+            for(int j = 1; j < bound; j++)
+            {
+                clauses.add(Guarded(guard, x, PbSolver.Not(s[i - 1][j - 1]), s[i][j]));
+                clauses.add(Guarded(guard, PbSolver.Not(s[i - 1][j]), s[i][j]));
+            }
+            clauses.add(Guarded(guard, x, PbSolver.Not(s[i - 1][bound - 1])));
+        }
+        clauses.add(Guarded(guard, PbSolver.Not(lits.get(n - 1)), PbSolver.Not(s[n - 2][bound - 1])));
+    }
+
+    /**
+     * make a clause that only applies if the guard is true
+     * @param guard the guard literal (-1 if there is none)
+     * @param lits the literals of the clause
+     * @return the clause, with the negation of the guard added
+     */
+    private static int[] Guarded(int guard, int... lits)
+    {
+        if(guard == -1)
+        {
+            return lits;
+        }
+        int[] clause = new int[lits.length + 1];
+        System.arraycopy(lits, 0, clause, 0, lits.length);
+        clause[lits.length] = PbSolver.Not(guard);
+        return clause;
+    }
+
+    /**
+     * write the header comments: the dataset, the offset and the var of every lecture/tutorial in a slot
+     * @param out the stream to write to
+     * @param comment the comment prefix of the format
+     * @param encoding the model
+     * @param env the environment of the model
+     */
+    private static void WriteComments(PrintStream out, String comment, PbEncoding encoding, Environment env)
+    {
+        out.println(String.format("%s dataset %s", comment, env.dataset_name));
+        out.println(String.format("%s offset %d (the score of a schedule is the offset plus the cost of its model)", comment, encoding.offset));
+        for(int e = 0; e < encoding.vars.length; e++)
+        {
+            if(encoding.vars[e] == null)
+            {
+                continue;
+            }
+            boolean is_lec = e < env.num_lectures;
+            String name = is_lec ? env.lectures[e].name : env.tutorials[e - env.num_lectures].name;
+            for(int i = 0; i < encoding.vars[e].length; i++)
+            {
+                Slot slot = is_lec ? env.lec_slots_array[encoding.domains[e][i]] : env.tut_slots_array[encoding.domains[e][i]];
+                out.println(String.format("%s x %d %s, %s", comment, encoding.vars[e][i] + 1, name, slot.name));
+            }
+        }
+    }
+
+    /**
+     * convert literals to DIMACS literals
+     * @param lits the literals
+     * @return the DIMACS literals separated by spaces
+     */
+    private static String Dimacs(int[] lits)
+    {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < lits.length; i++)
+        {
+            if(i > 0)
+            {
+                builder.append(' ');
+            }
+            int var = (lits[i] >> 1) + 1;
+            builder.append(((lits[i] & 1) == 0) ? var : -var);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * the MiniZinc array of the start index of every constraint of a flattened list (1 based, with one past the end)
+     * @param list the constraints
+     * @return the array
+     */
+    private static String Starts(ArrayList<int[]> list)
+    {
+        StringBuilder builder = new StringBuilder("[1");
+        int start = 1;
+        for(int[] entry: list)
+        {
+            start += entry.length;
+            builder.append(',').append(start);
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * flatten a list of arrays
+     * @param list the arrays
+     * @param literals true to convert the entries to DIMACS literals
+     * @return the entries separated by commas
+     */
+    private static String Join(ArrayList<int[]> list, boolean literals)
+    {
+        StringBuilder builder = new StringBuilder();
+        for(int[] entry: list)
+        {
+            for(int i = 0; i < entry.length; i++)
+            {
+                if(builder.length() > 0)
+                {
+                    builder.append(',');
+                }
+                if(literals)
+                {
+                    int var = (entry[i] >> 1) + 1;
+                    builder.append(((entry[i] & 1) == 0) ? var : -var);
+                }
+                else
+                {
+                    builder.append(entry[i]);
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
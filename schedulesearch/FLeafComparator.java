@@ -0,0 +1,41 @@
+package schedulesearch;
+import java.util.Comparator;
+
+/**
+ * FLeafComparator is used to sort the Problems in the priority queue
+ */
+class FLeafComparator implements Comparator<Problem>
+{
+    /**
+     * This methode implements the f_leaf function to sort problems p1 and p2
+     * @param p1 the first problem to sort
+     * @param p2 the second problem to sort
+     * @return negative if the first object should go first in the list, positive otherwise
+     */
+    public int compare(Problem p1, Problem p2)
+    {
+        // sort on the following priority
+        // 1: solvable nodes go first
+        if(p1.solvable != p2.solvable)
+        {
+            return p1.solvable ? -1 : 1;
+        }
+        // 2: deepest nodes go first
+        if(p1.depth != p2.depth)
+        {
+            return p2.depth - p1.depth;
+        }
+        // 3: the earlier choice of the value ordering goes first
+        if(p1.rank != p2.rank)
+        {
+            return Integer.compare(p1.rank, p2.rank);
+        }
+        // 4: lowest score according to MinBoundScore go first
+        if(p1.bound != p2.bound)
+        {
+            return Integer.compare(p1.bound, p2.bound);
+        }
+        // 5: tie break on problem unique id
+        return Integer.compare(p1.id, p2.id);
+    }
+}
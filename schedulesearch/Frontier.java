@@ -0,0 +1,30 @@
+package schedulesearch;
+
+/**
+ * Frontier holds the leaves of the And tree that have not been expanded yet and decides which one is expanded next
+ */
+public interface Frontier extends Iterable<Problem>
+{
+    /**
+     * add a leaf, the children of a problem are added from the last choice of the value ordering to the first
+     * @param pr the leaf
+     */
+    void Add(Problem pr);
+
+    /**
+     * remove the next leaf to expand
+     * @return the leaf, or null if the frontier is empty
+     */
+    Problem Poll();
+
+    /**
+     * is the frontier empty
+     * @return true if there are no leaves left
+     */
+    boolean IsEmpty();
+
+    /**
+     * remove every leaf
+     */
+    void Clear();
+}
@@ -1,5 +1,7 @@
 package schedulesearch;
+import java.io.PrintStream;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -21,21 +23,138 @@ public final class Functions
         // EvalPref and EvalSecDiff are permenant scores that cannot be reduced as more assignments are made
         int sum = EvalPref(pr, env);
         sum += EvalSecDiff(pr, env);
+
+        // the unassigned lectures/tutorials can not do better than the lagrangian relaxation of the slot capacities
+        if(env.lagrangian_bound != null)
+        {
+            sum += env.lagrangian_bound.Bound(pr, env);
+        }
         return sum;
     }
 
     /**
      * Solvable determines if problem pr is solvable
      * @param pr the problem to check
+     * @param env the environment used to find the valid slots
      * @return true if pr is solvable, false otherwise
      */ 
-    public static boolean Solvable(Problem pr)
+    public static boolean Solvable(Problem pr, Environment env)
     {
         // sudo code
         // if all lectures and tutorials have a non null assignment in pr, then the problem is solvable so return true
         // if there are lectures or tutorials with null assignments in pr, and there are no valid slots to assign the null
         // lectures or tutorials then the problem is solvable
-        return false;
+        for(int i = 0; i < pr.lectures.length; i++)
+        {
+            if(pr.lectures[i] == -1 && env.LectureActive(i) && ValidLectureSlots(env, i, pr) == null)
+            {
+                if(env.weights != null)
+                {
+                    env.weights.Failure(env, pr, i);
+                }
+                return true;
+            }
+        }
+
+        for(int i = 0; i < pr.tutorials.length; i++)
+        {
+            if(pr.tutorials[i] == -1 && env.TutorialActive(i) && ValidTutSlots(env, i, pr) == null)
+            {
+                if(env.weights != null)
+                {
+                    env.weights.Failure(env, pr, env.num_lectures + i);
+                }
+                return true;
+            }
+        }
+
+        // every unassigned lecture/tutorial still has a slot, so this is only solvable if nothing is unassigned
+        return IsComplete(pr, env);
+    }
+
+    /**
+     * SelectionKey is the key of the variable ordering, the unassigned lecture/tutorial with the lowest key is assigned first
+     * @param pr the problem
+     * @param env the environment with the constraint weights
+     * @param entity the id of the lecture/tutorial (lectures are 0 to num_lectures-1, tutorials follow)
+     * @param num_slots the number of valid slots of the lecture/tutorial
+     * @return the number of valid slots, divided by the weighted degree if the constraint weights are learned
+     */
+    public static double SelectionKey(Problem pr, Environment env, int entity, int num_slots)
+    {
+        if(env.weights == null)
+        {
+            return num_slots;
+        }
+        return env.weights.Key(env, pr, entity, num_slots);
+    }
+
+    /**
+     * FollowsGuide determines if an assignment is the one of the guiding solution, the value ordering tries it first
+     * the guiding solution is the best solution with phase saving, otherwise (or until there is one) the guide solution
+     * @param pr the problem before the assignment
+     * @param env the environment with the guiding solutions
+     * @param entity the id of the lecture/tutorial (lectures are 0 to num_lectures-1, tutorials follow)
+     * @param slot the slot id of the assignment
+     * @return true if the slot is the slot of the guiding solution, or an empty slot that is interchangeable with it
+     */
+    public static boolean FollowsGuide(Problem pr, Environment env, int entity, int slot)
+    {
+        Problem guide = (env.phase_saving && env.best_sol != null) ? env.best_sol : env.guide_sol;
+        if(guide == null)
+        {
+            return false;
+        }
+
+        boolean is_lec = entity < env.num_lectures;
+        int guide_slot = is_lec ? guide.lectures[entity] : guide.tutorials[entity - env.num_lectures];
+        if(guide_slot == -1 || guide_slot == slot)
+        {
+            return guide_slot == slot;
+        }
+
+        // Dominance.OrderSlots only keeps one of the empty slots of an interchangeable class
+        int[] slot_class = is_lec ? env.lec_slot_class : env.tut_slot_class;
+        if(slot_class == null || slot_class[slot] != slot_class[guide_slot])
+        {
+            return false;
+        }
+        int[] assigned = is_lec ? pr.lectures : pr.tutorials;
+        for(int i = 0; i < assigned.length; i++)
+        {
+            if(assigned[i] == slot || assigned[i] == guide_slot)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * IsComplete determines if every active lecture and tutorial of a problem has been assigned
+     * @param pr the problem to check
+     * @param env the environment with the active lectures/tutorials
+     * @return true if there are no unassigned active lectures or tutorials, false otherwise
+     */
+    public static boolean IsComplete(Problem pr, Environment env)
+    {
+        for(int i = 0; i < pr.lectures.length; i++)
+        {
+            if(pr.lectures[i] == -1 && env.LectureActive(i))
+            {
+                return false;
+            }
+        }
+
+        for(int i = 0; i < pr.tutorials.length; i++)
+        {
+            if(pr.tutorials[i] == -1 && env.TutorialActive(i))
+            {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     /**
@@ -50,7 +169,8 @@ public final class Functions
         // sudo code
         // evaluate the minboundscore of pr, if this score is greater than the best score found so far return true
         // return false otherwise
-        return false;
+        // with epsilon > 0 the problem is also pruned if it can not improve the best score by more than a factor of (1 + epsilon)
+        return pr.bound * (1.0 + env.epsilon) >= env.best_score;
     }
 
     /**
@@ -60,10 +180,8 @@ public final class Functions
      */ 
     public static int Depth(Problem pr)
     {
-        // sudo code 
-        // during each expansion, only one lecture or tutorial is assigned, so depth is the number of tutorials and lectures assigned
-        // maybe add a feild to Problem that records the depth in the tree and just return that
-        return 0;
+        // during each expansion, only one lecture or tutorial is assigned, so depth is recorded in the problem
+        return pr.depth;
     }
 
     /**
@@ -81,24 +199,183 @@ public final class Functions
         return sum;
     }
 
+    /**
+     * EvalMinFilled calculates the penalty for slots that have less than their minimum number of lectures/tutorials
+     * @param pr the problem to score
+     * @param env the environment with the scoring parameters
+     * @return the weighted min filled score
+     */
     private static int EvalMinFilled(Problem pr, Environment env)
     {
-        return 0;
+        int[] lec_fill = new int[env.lec_slots_array.length];
+        int[] tut_fill = new int[env.tut_slots_array.length];
+
+        // count the number of lectures and tutorials in each slot
+        for(int i = 0; i < pr.lectures.length; i++)
+        {
+            if(pr.lectures[i] != -1)
+            {
+                lec_fill[pr.lectures[i]]++;
+            }
+        }
+
+        for(int i = 0; i < pr.tutorials.length; i++)
+        {
+            if(pr.tutorials[i] != -1)
+            {
+                tut_fill[pr.tutorials[i]]++;
+            }
+        }
+
+        // every missing lecture/tutorial in a slot is penalized
+        int sum = 0;
+        for(int i = 0; i < lec_fill.length; i++)
+        {
+            if(lec_fill[i] < env.lec_slots_array[i].min)
+            {
+                sum += (env.lec_slots_array[i].min - lec_fill[i]) * env.pen_lecturemin;
+            }
+        }
+
+        for(int i = 0; i < tut_fill.length; i++)
+        {
+            if(tut_fill[i] < env.tut_slots_array[i].min)
+            {
+                sum += (env.tut_slots_array[i].min - tut_fill[i]) * env.pen_tutorialmin;
+            }
+        }
+
+        return sum * env.w_minfilled;
     }
 
+    /**
+     * EvalPref calculates the penalty for assigned lectures/tutorials that did not get their preferred slots
+     * NOTE: preferences are keyed by the slot hash (as given by the input parser), not the slot id
+     * @param pr the problem to score
+     * @param env the environment with the scoring parameters
+     * @return the weighted preference score
+     */
     private static int EvalPref(Problem pr, Environment env)
     {
-        return 0;
+        int sum = 0;
+        for(int i = 0; i < pr.lectures.length; i++)
+        {
+            if(pr.lectures[i] != -1)
+            {
+                int hash = env.lec_slots_array[pr.lectures[i]].lec_hash;
+                for(Map.Entry<Integer, Integer> pref: env.lectures[i].preferences.entrySet())
+                {
+                    if(pref.getKey() != hash)
+                    {
+                        sum += pref.getValue();
+                    }
+                }
+            }
+        }
+
+        for(int i = 0; i < pr.tutorials.length; i++)
+        {
+            if(pr.tutorials[i] != -1)
+            {
+                int hash = env.tut_slots_array[pr.tutorials[i]].tut_hash;
+                for(Map.Entry<Integer, Integer> pref: env.tutorials[i].preferences.entrySet())
+                {
+                    if(pref.getKey() != hash)
+                    {
+                        sum += pref.getValue();
+                    }
+                }
+            }
+        }
+
+        return sum * env.w_pref;
     }
     
+    /**
+     * EvalPair calculates the penalty for pairs that have both been assigned, but not at the same time
+     * @param pr the problem to score
+     * @param env the environment with the scoring parameters
+     * @return the weighted pair score
+     */
     private static int EvalPair(Problem pr, Environment env)
     {
-        return 0;
+        int sum = 0;
+        for(int i = 0; i < env.pairs.length; i++)
+        {
+            Pair pair = env.pairs[i];
+            int slot1 = pair.is_lec1 ? pr.lectures[pair.id1] : pr.tutorials[pair.id1];
+            int slot2 = pair.is_lec2 ? pr.lectures[pair.id2] : pr.tutorials[pair.id2];
+
+            // only pairs that have both been assigned can be scored
+            if(slot1 != -1 && slot2 != -1 && !SameTime(slot1, pair.is_lec1, slot2, pair.is_lec2, env))
+            {
+                sum += env.pen_notpaired;
+            }
+        }
+
+        return sum * env.w_pair;
     }
 
+    /**
+     * EvalSecDiff calculates the penalty for lectures of the same section that have been assigned the same slot
+     * @param pr the problem to score
+     * @param env the environment with the scoring parameters
+     * @return the weighted section difference score
+     */
     private static int EvalSecDiff(Problem pr, Environment env)
     {
-        return 0;
+        int sum = 0;
+        for(Integer[] section: env.sections.values())
+        {
+            for(int i = 0; i < section.length; i++)
+            {
+                int slot = pr.lectures[section[i]];
+                if(slot == -1)
+                {
+                    continue;
+                }
+
+                for(int j = i + 1; j < section.length; j++)
+                {
+                    if(pr.lectures[section[j]] == slot)
+                    {
+                        sum += env.pen_section;
+                    }
+                }
+            }
+        }
+
+        return sum * env.w_secdiff;
+    }
+
+    /**
+     * SameTime determines if two assigned slots happen at the same time
+     * @param slot1 the id of the first slot
+     * @param is_lec1 is the first slot a lecture slot
+     * @param slot2 the id of the second slot
+     * @param is_lec2 is the second slot a lecture slot
+     * @param env the environment with the slot overlap maps
+     * @return true if the slots overlap, false otherwise
+     */
+    public static boolean SameTime(int slot1, boolean is_lec1, int slot2, boolean is_lec2, Environment env)
+    {
+        if(is_lec1 == is_lec2)
+        {
+            return slot1 == slot2;
+        }
+
+        // one lecture slot and one tutorial slot, so use the overlap map
+        int lec_slot = is_lec1 ? slot1 : slot2;
+        int tut_slot = is_lec1 ? slot2 : slot1;
+        for(int i = 0; i < env.lecslot_tutslot[lec_slot].length; i++)
+        {
+            if(env.lecslot_tutslot[lec_slot][i] == tut_slot)
+            {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -440,6 +717,17 @@ public final class Functions
      * @param env the environment variables
      */
     public static void PrintProblem(Problem pr, Environment env)
+    {
+        PrintProblem(pr, env, System.out);
+    }
+
+    /**
+     * prints the assignments of lectures and tutorials to slots in a nice format
+     * @param pr the problem to print
+     * @param env the environment variables
+     * @param out the stream to print to
+     */
+    public static void PrintProblem(Problem pr, Environment env, PrintStream out)
     {
         // create an array for holding the data
         ArrayList<LectureFormat> output = new ArrayList<LectureFormat>();
@@ -481,11 +769,11 @@ public final class Functions
 
         for(int i = 0; i < output.size(); i++)
         {
-            System.out.println(output.get(i).lecture + " " + output.get(i).slot);
+            out.println(output.get(i).lecture + " " + output.get(i).slot);
 
             for(int j =0; j < output.get(i).tutorials.size(); j++)
             {
-                System.out.println(output.get(i).tutorials.get(j).tutorial + " " + output.get(i).tutorials.get(j).slot);
+                out.println(output.get(i).tutorials.get(j).tutorial + " " + output.get(i).tutorials.get(j).slot);
             }
         }
     } 
@@ -0,0 +1,438 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * GeneticSearch is a memetic search over a population of complete schedules
+ * A child inherits whole groups from its parents (a group is the lectures of a section together with their tutorials),
+ * so the lectures and tutorials that interact the most are copied together. The inherited assignments that break a
+ * hard constraint are dropped and the child is repaired with ValidLectureSlots/ValidTutSlots, then improved with a
+ * short local search. The children of a generation are built and evaluated in parallel on all cores
+ */
+public class GeneticSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the time limit in milliseconds
+    long time_limit;
+    // the maximum number of generations
+    int max_generations;
+    // the number of schedules in the population
+    int population_size;
+    // the number of local search moves tried on every child (0 for no local search)
+    int local_search;
+    // the random number generator (every child gets its own generator seeded from this one)
+    Random rand;
+
+    // the groups of entities that are inherited together
+    int[][] groups;
+    // the population, sorted by score
+    ArrayList<Problem> population = new ArrayList<Problem>();
+
+    // the probability that repair assigns a random valid slot instead of the best one
+    static final double MUTATION = 0.1;
+    // the number of attempts to build each schedule of the first population
+    static final int INITIAL_ATTEMPTS = 20;
+
+    /**
+     * initialization function for the GeneticSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _time_limit the time limit in milliseconds
+     * @param _max_generations the maximum number of generations
+     * @param _population_size the number of schedules in the population
+     * @param _local_search the number of local search moves tried on every child (0 for no local search)
+     * @param seed the seed of the random number generator
+     */
+    public GeneticSearch(Environment _env, Problem _s0, long _time_limit, int _max_generations, int _population_size, int _local_search, long seed)
+    {
+        env = _env;
+        s0 = _s0;
+        time_limit = _time_limit;
+        max_generations = _max_generations;
+        population_size = Math.max(2, _population_size);
+        local_search = _local_search;
+        rand = new Random(seed);
+    }
+
+    /**
+     * run the genetic search
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // build the first population with randomised repair of the starting state
+        // until the generation or time budget runs out:
+        //      in parallel, make population_size children:
+        //          select two parents with tournaments
+        //          copy every group from one of the two parents
+        //          repair the child and improve it with local search
+        //      keep the best population_size different schedules of the parents and children
+
+        s0.bound = Functions.MinBoundScore(s0, env);
+        BuildGroups();
+
+        long start_time = System.nanoTime();
+        int num_threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(num_threads);
+
+        // the first population #########################################################################################################
+        if(env.warm_start && env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+        if(env.best_sol != null)
+        {
+            population.add(env.best_sol);
+        }
+
+        ArrayList<Future<Problem>> results = new ArrayList<Future<Problem>>();
+        for(int i = population.size(); i < population_size; i++)
+        {
+            long child_seed = rand.nextLong();
+            results.add(executor.submit(() -> {
+                Random child_rand = new Random(child_seed);
+                for(int attempt = 0; attempt < INITIAL_ATTEMPTS; attempt++)
+                {
+                    Problem child = Improve(Repair(new ScheduleState(env, s0, s0), child_rand), child_rand);
+                    if(child != null)
+                    {
+                        return child;
+                    }
+                }
+                return null;
+            }));
+        }
+        Collect(results);
+
+        if(population.isEmpty())
+        {
+            executor.shutdown();
+            System.out.println("Genetic: could not build a complete schedule");
+            return false;
+        }
+        System.out.println(String.format("Genetic: first population of %d, best %d, worst %d, %d threads", population.size(),
+            population.get(0).score, population.get(population.size() - 1).score, num_threads));
+
+        // the generations ################################################################################################################
+        int generation = 0;
+        for(; generation < max_generations && (System.nanoTime() - start_time) / 1000000 < time_limit && !env.SoftStopped(); generation++)
+        {
+            results.clear();
+            for(int i = 0; i < population_size; i++)
+            {
+                Problem parent_a = Tournament();
+                Problem parent_b = Tournament();
+                long child_seed = rand.nextLong();
+                results.add(executor.submit(() -> {
+                    Random child_rand = new Random(child_seed);
+                    return Improve(Crossover(parent_a, parent_b, child_rand), child_rand);
+                }));
+            }
+            Collect(results);
+
+            if(generation % 10 == 0)
+            {
+                System.out.println(String.format("Genetic: generation %d, best %d, worst %d", generation,
+                    population.get(0).score, population.get(population.size() - 1).score));
+            }
+        }
+        executor.shutdown();
+
+        System.out.println(String.format("Genetic: finished after %d generations, best %d", generation, env.best_score));
+
+        // only the root bound is known
+        env.lower_bound = Math.min(s0.bound, env.best_score);
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+
+    /**
+     * wait for the children and merge them into the population
+     * @param results the children being built
+     */
+    private void Collect(ArrayList<Future<Problem>> results)
+    {
+        for(int i = 0; i < results.size(); i++)
+        {
+            Problem child;
+            try{
+                child = results.get(i).get();
+            }catch(InterruptedException | ExecutionException e)
+            {
+                System.out.println("Genetic: building a child failed: " + e.getMessage());
+                child = null;
+            }
+
+            if(child == null || Contains(child))
+            {
+                continue;
+            }
+            env.iterations++;
+            population.add(child);
+            env.UpdateBest(child, child.score);
+        }
+
+        // survival of the best
+        population.sort(new ScoreComparator());
+        while(population.size() > population_size)
+        {
+            population.remove(population.size() - 1);
+        }
+    }
+
+    /**
+     * is a schedule already in the population
+     * @param pr the schedule
+     * @return true if the population has a schedule with the same assignments
+     */
+    private boolean Contains(Problem pr)
+    {
+        for(Problem other: population)
+        {
+            if(other.score == pr.score && Arrays.equals(other.lectures, pr.lectures) && Arrays.equals(other.tutorials, pr.tutorials))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * select a parent with a tournament of two
+     * @return the better of two random schedules of the population
+     */
+    private Problem Tournament()
+    {
+        Problem a = population.get(rand.nextInt(population.size()));
+        Problem b = population.get(rand.nextInt(population.size()));
+        return (a.score <= b.score) ? a : b;
+    }
+
+    /**
+     * make a child that inherits every group from one of two parents
+     * @param parent_a the first parent
+     * @param parent_b the second parent
+     * @param child_rand the random number generator of this child
+     * @return the repaired child, or null if it could not be repaired
+     */
+    private Problem Crossover(Problem parent_a, Problem parent_b, Random child_rand)
+    {
+        ScheduleState state = new ScheduleState(env, s0, s0);
+
+        // visit the groups in a random order so no parent is favoured when the inherited assignments clash
+        int[] order = new int[groups.length];
+        for(int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+        for(int i = order.length - 1; i > 0; i--)
+        {
+            int j = child_rand.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        for(int g = 0; g < order.length; g++)
+        {
+            Problem parent = child_rand.nextBoolean() ? parent_a : parent_b;
+            int[] group = groups[order[g]];
+            for(int i = 0; i < group.length; i++)
+            {
+                int e = group[i];
+                int slot = (e < env.num_lectures) ? parent.lectures[e] : parent.tutorials[e - env.num_lectures];
+                // an inherited assignment that breaks a hard constraint is left for the repair
+                if(state.CanPlace(e, slot))
+                {
+                    state.Place(e, slot);
+                }
+            }
+        }
+
+        return Repair(state, child_rand);
+    }
+
+    /**
+     * complete a schedule, the lecture/tutorial with the fewest valid slots is assigned first
+     * and it mostly gets the valid slot that adds the least to the score
+     * @param state the schedule to complete
+     * @param child_rand the random number generator of this child
+     * @return the complete schedule, or null if a lecture/tutorial ran out of valid slots
+     */
+    private Problem Repair(ScheduleState state, Random child_rand)
+    {
+        while(true)
+        {
+            int best_entity = -1;
+            int[] best_slots = null;
+            for(int e = 0; e < state.movable.length; e++)
+            {
+                if(!state.movable[e] || state.SlotOf(e) != -1)
+                {
+                    continue;
+                }
+
+                int[] slots = state.IsLecture(e) ? Functions.ValidLectureSlots(env, e, state.pr)
+                                                 : Functions.ValidTutSlots(env, e - env.num_lectures, state.pr);
+                if(slots == null)
+                {
+                    return null;
+                }
+                if(best_slots == null || slots.length < best_slots.length)
+                {
+                    best_entity = e;
+                    best_slots = slots;
+                }
+            }
+
+            if(best_entity == -1)
+            {
+                break;
+            }
+
+            int slot = best_slots[child_rand.nextInt(best_slots.length)];
+            if(child_rand.nextDouble() >= MUTATION)
+            {
+                int best_delta = Integer.MAX_VALUE;
+                for(int j = 0; j < best_slots.length; j++)
+                {
+                    int delta = state.PlaceDelta(best_entity, best_slots[j]);
+                    if(delta < best_delta)
+                    {
+                        best_delta = delta;
+                        slot = best_slots[j];
+                    }
+                }
+            }
+            state.Place(best_entity, slot);
+        }
+
+        Problem child = new Problem(state.pr);
+        child.score = state.score;
+        return child;
+    }
+
+    /**
+     * improve a complete schedule with random single moves and swaps that do not make it worse
+     * @param pr the schedule (null if the child could not be built)
+     * @param child_rand the random number generator of this child
+     * @return the improved schedule, or null if pr is null
+     */
+    private Problem Improve(Problem pr, Random child_rand)
+    {
+        if(pr == null || local_search == 0)
+        {
+            return pr;
+        }
+
+        ScheduleState state = new ScheduleState(env, pr, s0);
+        int[] entities = state.MovableEntities();
+        for(int k = 0; k < local_search && entities.length > 0; k++)
+        {
+            int a = entities[child_rand.nextInt(entities.length)];
+            if(child_rand.nextBoolean())
+            {
+                int b = entities[child_rand.nextInt(entities.length)];
+                int old_score = state.score;
+                if(Moves.Swap(state, a, b) && state.score > old_score)
+                {
+                    Moves.Swap(state, a, b);
+                }
+            }
+            else
+            {
+                int slot = child_rand.nextInt(state.NumSlots(a));
+                if(state.CanMove(a, slot) && state.MoveDelta(a, slot) <= 0)
+                {
+                    state.Move(a, slot);
+                }
+            }
+        }
+
+        Problem child = new Problem(state.pr);
+        child.score = state.score;
+        return child;
+    }
+
+    /**
+     * build the groups of entities that are inherited together, a group is the movable lectures of a section and their tutorials
+     */
+    private void BuildGroups()
+    {
+        ScheduleState state = new ScheduleState(env, s0, s0);
+        ArrayList<int[]> list = new ArrayList<int[]>();
+        boolean[] grouped = new boolean[state.movable.length];
+        for(Integer[] section: env.sections.values())
+        {
+            ArrayList<Integer> group = new ArrayList<Integer>();
+            for(int i = 0; i < section.length; i++)
+            {
+                AddToGroup(group, grouped, state.movable, section[i]);
+                for(int j = 0; j < env.lectures[section[i]].tutorials.length; j++)
+                {
+                    AddToGroup(group, grouped, state.movable, env.num_lectures + env.lectures[section[i]].tutorials[j]);
+                }
+            }
+            if(!group.isEmpty())
+            {
+                list.add(ToArray(group));
+            }
+        }
+
+        // anything that is not in a section is a group of its own
+        for(int e = 0; e < grouped.length; e++)
+        {
+            if(state.movable[e] && !grouped[e])
+            {
+                list.add(new int[]{e});
+            }
+        }
+        groups = list.toArray(new int[0][]);
+    }
+
+    /**
+     * add an entity to a group if it is movable and not in a group yet
+     * @param group the group
+     * @param grouped index is the entity id, value is true if it is in a group
+     * @param movable index is the entity id, value is true if it is movable
+     * @param entity the entity id
+     */
+    private static void AddToGroup(ArrayList<Integer> group, boolean[] grouped, boolean[] movable, int entity)
+    {
+        if(movable[entity] && !grouped[entity])
+        {
+            grouped[entity] = true;
+            group.add(entity);
+        }
+    }
+
+    /**
+     * convert a list of ids to an array
+     * @param list the list
+     * @return the array
+     */
+    private static int[] ToArray(ArrayList<Integer> list)
+    {
+        int[] array = new int[list.size()];
+        for(int i = 0; i < array.length; i++)
+        {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,135 @@
+package schedulesearch;
+
+/**
+ * GreedySearch quickly builds a complete schedule without backtracking so the And search starts with a best score
+ * It works like DSatur: the unassigned lecture/tutorial with the fewest valid slots is assigned first
+ * (ties go to the one with the most constraints), and it gets its lowest penalty valid slot
+ */
+public final class GreedySearch
+{
+    /**
+     * build a schedule and install it as the best solution of the environment if it is better
+     * @param env the environment
+     * @param s0 the starting state (this is not modified)
+     * @return true if a complete schedule was built
+     */
+    public static boolean WarmStart(Environment env, Problem s0)
+    {
+        Problem pr = Construct(env, s0);
+        if(pr == null)
+        {
+            System.out.println("Greedy: could not build a complete schedule");
+            return false;
+        }
+
+        pr.score = Functions.Eval(pr, env);
+        env.UpdateBest(pr, pr.score);
+        return true;
+    }
+
+    /**
+     * build a complete schedule
+     * @param env the environment
+     * @param s0 the starting state (this is not modified)
+     * @return the schedule, or null if a lecture/tutorial ran out of valid slots
+     */
+    public static Problem Construct(Environment env, Problem s0)
+    {
+        // sudo code:
+        // while there are unassigned lectures/tutorials
+        //      find the valid slots of every unassigned lecture/tutorial
+        //      select the one with the fewest valid slots, tie break on the most neighbours in the conflict graph
+        //      assign it to the valid slot that gives the lowest score
+        //      if any lecture/tutorial has no valid slots then give up
+
+        ConflictGraph graph = new ConflictGraph(env);
+        Problem pr = new Problem(s0);
+
+        while(true)
+        {
+            if(env.Stopped())
+            {
+                System.out.println("Greedy: time limit reached");
+                return null;
+            }
+
+            int best_entity = -1;
+            int[] best_slots = null;
+
+            for(int i = 0; i < env.num_lectures + env.num_tutorials; i++)
+            {
+                int[] slots;
+                if(i < env.num_lectures)
+                {
+                    if(pr.lectures[i] != -1 || !env.LectureActive(i))
+                    {
+                        continue;
+                    }
+                    slots = Functions.ValidLectureSlots(env, i, pr);
+                }
+                else
+                {
+                    int tut_id = i - env.num_lectures;
+                    if(pr.tutorials[tut_id] != -1 || !env.TutorialActive(tut_id))
+                    {
+                        continue;
+                    }
+                    slots = Functions.ValidTutSlots(env, tut_id, pr);
+                }
+
+                if(slots == null)
+                {
+                    // no backtracking, so this is a dead end
+                    return null;
+                }
+
+                if(best_slots == null || slots.length < best_slots.length
+                    || (slots.length == best_slots.length && graph.neighbours[i].length > graph.neighbours[best_entity].length))
+                {
+                    best_entity = i;
+                    best_slots = slots;
+                }
+            }
+
+            if(best_entity == -1)
+            {
+                // everything is assigned
+                return pr;
+            }
+
+            // assign the slot with the lowest score
+            int best_slot = -1;
+            int best_score = Integer.MAX_VALUE;
+            for(int j = 0; j < best_slots.length; j++)
+            {
+                Assign(pr, env, best_entity, best_slots[j]);
+                int score = Functions.Eval(pr, env);
+                if(score < best_score)
+                {
+                    best_score = score;
+                    best_slot = best_slots[j];
+                }
+            }
+            Assign(pr, env, best_entity, best_slot);
+        }
+    }
+
+    /**
+     * assign a lecture/tutorial to a slot
+     * @param pr the problem to change
+     * @param env the environment
+     * @param entity the entity id (lectures are 0 to num_lectures-1, tutorials follow)
+     * @param slot_id the slot to assign
+     */
+    private static void Assign(Problem pr, Environment env, int entity, int slot_id)
+    {
+        if(entity < env.num_lectures)
+        {
+            pr.AssignLecture(entity, slot_id);
+        }
+        else
+        {
+            pr.AssignTutorial(entity - env.num_lectures, slot_id);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package schedulesearch;
+
+/**
+ * IdaSearch runs iterative deepening on the cost bound (IDA*) over the And tree
+ * Every pass is a depth first search that only explores the problems with a MinBoundScore of at most the threshold,
+ * the next threshold is the smallest bound that went over the last one. Only the path from the root is kept in memory,
+ * so it finds the optimal schedule with linear memory where the best first search of the AndSearch runs out of heap
+ */
+public class IdaSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the time limit in milliseconds
+    long time_limit;
+
+    // the score threshold of the current pass
+    int threshold;
+    // the smallest bound over the threshold in the current pass
+    int next_threshold;
+    // the smallest bound of all the problems that were pruned by FBound
+    int pruned_bound = Integer.MAX_VALUE;
+    // the time the search started
+    long start_time;
+
+    /**
+     * initialization function for the IdaSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _time_limit the time limit in milliseconds
+     */
+    public IdaSearch(Environment _env, Problem _s0, long _time_limit)
+    {
+        env = _env;
+        s0 = _s0;
+        time_limit = _time_limit;
+    }
+
+    /**
+     * run depth first passes with a growing threshold until the best solution is proven or a budget runs out
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // the first threshold is the bound of the starting state
+        // while the threshold is below the best score:
+        //      depth first search, skipping the problems with a bound over the threshold
+        //      the next threshold is the smallest bound that was skipped
+        // every schedule that scores below the threshold has been seen, so the threshold is a lower bound
+        // (if a pass skips nothing the whole tree has been seen and only the pruned problems bound the score)
+
+        if(env.warm_start && env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+
+        s0.bound = Functions.MinBoundScore(s0, env);
+        start_time = System.nanoTime();
+        threshold = s0.bound;
+        boolean stopped = false;
+        boolean exhausted = false;
+        int passes = 0;
+        while(threshold < env.best_score)
+        {
+            if(env.SoftStopped())
+            {
+                stopped = true;
+                break;
+            }
+            passes++;
+            next_threshold = Integer.MAX_VALUE;
+            if(!Dfs(new Problem(s0)))
+            {
+                stopped = true;
+                break;
+            }
+            System.out.println(String.format("IDA: pass %d with threshold %d done, best %d, nodes %d", passes, threshold, env.best_score, env.iterations));
+            if(next_threshold == Integer.MAX_VALUE)
+            {
+                // nothing was skipped, the whole tree has been explored
+                exhausted = true;
+                break;
+            }
+            threshold = next_threshold;
+        }
+
+        if(stopped)
+        {
+            System.out.println(String.format("IDA: stopped in pass %d with threshold %d, best %d", passes, threshold, env.best_score));
+        }
+        // the threshold only bounds the schedules that were skipped, after a full tree nothing was skipped
+        env.lower_bound = exhausted ? Math.min(pruned_bound, env.best_score) : Math.min(Math.min(threshold, pruned_bound), env.best_score);
+
+        if(env.best_sol == null)
+        {
+            return false;
+        }
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+
+    /**
+     * depth first search below a problem, skipping the problems with a bound over the threshold
+     * @param pr the problem (its bound is set)
+     * @return true if the subtree was explored, false if the search was stopped
+     */
+    private boolean Dfs(Problem pr)
+    {
+        if(env.iterations >= env.max_iterations || env.Stopped() || ((env.iterations & 255) == 0 && OutOfTime()))
+        {
+            return false;
+        }
+        env.iterations++;
+
+        if(Functions.FBound(pr, env))
+        {
+            pruned_bound = Math.min(pruned_bound, pr.bound);
+            return true;
+        }
+        if(pr.bound > threshold)
+        {
+            next_threshold = Math.min(next_threshold, pr.bound);
+            return true;
+        }
+        if(Functions.IsComplete(pr, env))
+        {
+            pr.score = Functions.Eval(pr, env);
+            env.UpdateBest(pr, pr.score);
+            return true;
+        }
+
+        // select the lecture/tutorial with the lowest selection key
+        int entity = -1;
+        int[] slots = null;
+        double best_key = 0;
+        for(int i = 0; i < env.num_lectures + env.num_tutorials; i++)
+        {
+            int[] valid;
+            if(i < env.num_lectures)
+            {
+                if(pr.lectures[i] != -1 || !env.LectureActive(i))
+                {
+                    continue;
+                }
+                valid = Functions.ValidLectureSlots(env, i, pr);
+            }
+            else
+            {
+                if(pr.tutorials[i - env.num_lectures] != -1 || !env.TutorialActive(i - env.num_lectures))
+                {
+                    continue;
+                }
+                valid = Functions.ValidTutSlots(env, i - env.num_lectures, pr);
+            }
+
+            if(valid == null)
+            {
+                // dead end
+                if(env.weights != null)
+                {
+                    env.weights.Failure(env, pr, i);
+                }
+                return true;
+            }
+            double key = Functions.SelectionKey(pr, env, i, valid.length);
+            if(slots == null || key < best_key)
+            {
+                entity = i;
+                slots = valid;
+                best_key = key;
+            }
+        }
+
+        // make the children and explore the lowest bounds first
+        boolean is_lec = entity < env.num_lectures;
+        slots = Dominance.OrderSlots(env, pr, is_lec, slots);
+        Problem[] children = new Problem[slots.length];
+        double[] keys = new double[slots.length];
+        for(int i = 0; i < slots.length; i++)
+        {
+            children[i] = new Problem(pr);
+            if(is_lec)
+            {
+                children[i].AssignLecture(entity, slots[i]);
+            }
+            else
+            {
+                children[i].AssignTutorial(entity - env.num_lectures, slots[i]);
+            }
+            children[i].depth = pr.depth + 1;
+            children[i].bound = Functions.MinBoundScore(children[i], env);
+            keys[i] = children[i].bound;
+        }
+        RestartSearch.SortByKey(children, keys, slots);
+
+        for(int i = 0; i < children.length; i++)
+        {
+            if(!Dfs(children[i]))
+            {
+                return false;
+            }
+            // the child is not needed any more, only the path from the root stays in memory
+            children[i] = null;
+        }
+        return true;
+    }
+
+    /**
+     * has the time limit of the IDA* search been reached
+     * @return true if the search has to stop
+     */
+    private boolean OutOfTime()
+    {
+        return (System.nanoTime() - start_time) / 1000000 > time_limit;
+    }
+}
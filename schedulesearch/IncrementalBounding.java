@@ -0,0 +1,87 @@
+package schedulesearch;
+import java.util.Map;
+
+/**
+ * IncrementalBounding gives the same bound as MinBoundScore, but the bound of a child is the bound of its parent plus
+ * the preference and section penalties of the new assignment, instead of a sum over every assignment
+ * The lagrangian part of the bound is not incremental, so with the lagrangian relaxation it is MinBoundBounding
+ */
+class IncrementalBounding implements Bounding
+{
+    /**
+     * the lower bound of the root of a search
+     * @param pr the problem
+     * @param env the environment
+     * @return MinBoundScore of the problem
+     */
+    public int Bound(Problem pr, Environment env)
+    {
+        return Functions.MinBoundScore(pr, env);
+    }
+
+    /**
+     * the lower bound of a child
+     * @param parent the parent problem (its bound is set)
+     * @param child the child
+     * @param env the environment
+     * @param entity the id of the assigned lecture/tutorial
+     * @param slot the slot it was assigned to
+     * @return MinBoundScore of the child
+     */
+    public int ChildBound(Problem parent, Problem child, Environment env, int entity, int slot)
+    {
+        if(env.lagrangian_bound != null)
+        {
+            return Functions.MinBoundScore(child, env);
+        }
+
+        // the preference penalty of the new assignment (see EvalPref)
+        Map<Integer, Integer> preferences;
+        int hash;
+        if(entity < env.num_lectures)
+        {
+            preferences = env.lectures[entity].preferences;
+            hash = env.lec_slots_array[slot].lec_hash;
+        }
+        else
+        {
+            preferences = env.tutorials[entity - env.num_lectures].preferences;
+            hash = env.tut_slots_array[slot].tut_hash;
+        }
+        int pref = 0;
+        for(Map.Entry<Integer, Integer> entry: preferences.entrySet())
+        {
+            if(entry.getKey() != hash)
+            {
+                pref += entry.getValue();
+            }
+        }
+
+        // the section penalty of the new assignment (see EvalSecDiff)
+        int secdiff = 0;
+        if(entity < env.num_lectures)
+        {
+            Integer[] section = env.sections.get(env.lectures[entity].section);
+            for(int i = 0; i < section.length; i++)
+            {
+                if(section[i] != entity && parent.lectures[section[i]] == slot)
+                {
+                    secdiff += env.pen_section;
+                }
+            }
+        }
+
+        return parent.bound + pref * env.w_pref + secdiff * env.w_secdiff;
+    }
+
+    /**
+     * can a problem be pruned
+     * @param pr the problem (its bound is set)
+     * @param env the environment with the best score
+     * @return the result of FBound
+     */
+    public boolean Prune(Problem pr, Environment env)
+    {
+        return Functions.FBound(pr, env);
+    }
+}
@@ -0,0 +1,15 @@
+package schedulesearch;
+
+/**
+ * IncumbentListener is told about every new best solution that a search finds
+ */
+public interface IncumbentListener
+{
+    /**
+     * called every time the best solution of an environment improves
+     * @param pr the new best solution (this must not be changed)
+     * @param score the score of the new best solution
+     * @param nodes the number of problems the search has expanded so far
+     */
+    void NewIncumbent(Problem pr, int score, int nodes);
+}
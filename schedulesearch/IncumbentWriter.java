@@ -0,0 +1,90 @@
+package schedulesearch;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * IncumbentWriter prints every new best solution as soon as it is found, so a usable schedule is available
+ * long before the search finishes. A line with the score, elapsed time and node count is printed for each one,
+ * and if a results file is given the full schedule is written to it. The file is replaced atomically
+ * so it always holds a complete valid schedule
+ */
+public class IncumbentWriter implements IncumbentListener
+{
+    // the parsed environment (the solutions are printed with its slots)
+    Environment env;
+    // the presolve used to map the solutions back to the parsed environment
+    Presolve presolve;
+    // the file to write the best schedule to (null to only print to stdout)
+    String results_file;
+    // the number of solutions written
+    int count = 0;
+    // the score of the last solution written (searches running in parallel may report out of order)
+    int last_score = Integer.MAX_VALUE;
+
+    /**
+     * create the writer
+     * @param _env the parsed environment
+     * @param _presolve the presolve used to reduce the environment
+     * @param _results_file the file to write the best schedule to (null to only print to stdout)
+     */
+    public IncumbentWriter(Environment _env, Presolve _presolve, String _results_file)
+    {
+        env = _env;
+        presolve = _presolve;
+        results_file = _results_file;
+    }
+
+    /**
+     * print the new best solution and write it to the results file
+     * @param pr the new best solution of the reduced environment
+     * @param score the score of the new best solution in the reduced environment
+     * @param nodes the number of problems the search has expanded so far
+     */
+    public synchronized void NewIncumbent(Problem pr, int score, int nodes)
+    {
+        if(score >= last_score)
+        {
+            return;
+        }
+        last_score = score;
+
+        Problem result = presolve.MapBack(pr);
+        int parsed_score = Functions.Eval(result, env);
+        // the same clock as the time limits of the run
+        long elapsed = env.deadline.ElapsedMillis();
+        count++;
+
+        System.out.println(String.format("New best: Eval-value: %d, time: %d ms, nodes: %d", parsed_score, elapsed, nodes));
+
+        if(results_file == null)
+        {
+            return;
+        }
+
+        // write to a temporary file first so the results file is never partially written
+        File file = new File(results_file);
+        File temp = new File(results_file + ".tmp");
+        try{
+            PrintStream out = new PrintStream(new FileOutputStream(temp));
+            out.println(String.format("Eval-value: %d", parsed_score));
+            out.println(String.format("Solution: %d, time: %d ms, nodes: %d", count, elapsed, nodes));
+            Functions.PrintProblem(result, env, out);
+            out.close();
+            // a PrintStream hides its errors, a partly written schedule must not replace the last complete one
+            if(out.checkError())
+            {
+                temp.delete();
+                System.out.println("Could not write to results file: " + results_file);
+                return;
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch(IOException e)
+        {
+            System.out.println("Could not write to results file: " + results_file);
+        }
+    }
+}
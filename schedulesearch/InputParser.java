@@ -401,6 +401,86 @@ public final class InputParser
         return true;
     }
 
+    /**
+     * parse a schedule written by PrintProblem (a results file), it is used to guide the search of a changed dataset
+     * every line is the name of a lecture/tutorial followed by the name of its slot, other lines are skipped
+     * @param schedule_file the schedule file to parse
+     * @param env the parsed environment
+     * @param schedule returns the schedule, the lectures/tutorials that are not in the file or are not in the environment are unassigned
+     * @return false if the file could not be read, otherwise true
+     */
+    public static boolean ParseScheduleFile(String schedule_file, Environment env, Problem schedule)
+    {
+        // sudo code:
+        // for every line of the file:
+        //      find a slot whose name ends the line
+        //      the rest of the line is the name of a lecture (for a lecture slot) or a tutorial (for a tutorial slot)
+        //      if that lecture/tutorial exists then assign it to the slot
+
+        HashMap<String, Integer> lecture_ids = new HashMap<String, Integer>();
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            lecture_ids.put(env.lectures[i].name.trim(), i);
+        }
+        HashMap<String, Integer> tutorial_ids = new HashMap<String, Integer>();
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            tutorial_ids.put(env.tutorials[i].name.trim(), i);
+        }
+
+        schedule.SetupProblem(env.num_lectures, env.num_tutorials);
+        int found = 0;
+        try{
+            BufferedReader bufferedReader = new BufferedReader(new FileReader(schedule_file));
+            String line;
+            while((line = bufferedReader.readLine()) != null)
+            {
+                line = line.trim();
+                if(TryAssignScheduleLine(line, env.lec_slots_array, lecture_ids, schedule.lectures)
+                    || TryAssignScheduleLine(line, env.tut_slots_array, tutorial_ids, schedule.tutorials))
+                {
+                    found++;
+                }
+            }
+            bufferedReader.close();
+        }catch(IOException e)
+        {
+            System.out.println("Could not load the schedule from file: " + schedule_file);
+            return false;
+        }
+
+        schedule.depth = found;
+        System.out.println(String.format("Read %d assignments from schedule file: %s", found, schedule_file));
+        return true;
+    }
+
+    /**
+     * try to read one assignment of a schedule file
+     * @param line the line of the file
+     * @param slots the lecture or tutorial slots
+     * @param ids the map from lecture/tutorial names to ids
+     * @param assignments returns the slot of the lecture/tutorial if the line is an assignment
+     * @return true if the line was an assignment, false otherwise
+     */
+    private static boolean TryAssignScheduleLine(String line, Slot[] slots, HashMap<String, Integer> ids, int[] assignments)
+    {
+        for(int i = 0; i < slots.length; i++)
+        {
+            String slot_name = slots[i].name.trim();
+            if(line.length() <= slot_name.length() || !line.endsWith(slot_name))
+            {
+                continue;
+            }
+            Integer id = ids.get(line.substring(0, line.length() - slot_name.length()).trim());
+            if(id != null)
+            {
+                assignments[id] = i;
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * prints all the information obtained from parsing the file
      * @param env the environment information
@@ -0,0 +1,309 @@
+package schedulesearch;
+import java.util.Arrays;
+
+/**
+ * LagrangianBound gives a lower bound on the preference score of the unassigned lectures/tutorials of a problem
+ * The max and almax capacity constraints of the slots are relaxed with lagrange multipliers, then every unassigned
+ * lecture/tutorial can simply take its cheapest valid slot (preference penalty plus the multipliers of the slot).
+ * Any multipliers >= 0 give a valid bound, subgradient iterations are used to tighten them at the root
+ * and at every depth_interval levels of the tree, the other problems reuse the last multipliers
+ */
+public class LagrangianBound
+{
+    // the number of subgradient iterations to run when the multipliers are updated
+    int iterations;
+    // the multipliers are updated at depths that are a multiple of this
+    int depth_interval;
+
+    // the multipliers of the max constraints, index is the slot id
+    double[] lec_lambda;
+    double[] tut_lambda;
+    // the multipliers of the almax constraints, index is the slot id
+    double[] lec_al_lambda;
+    double[] tut_al_lambda;
+
+    /**
+     * create the bound for an environment
+     * @param env the environment
+     * @param _iterations the number of subgradient iterations per update
+     * @param _depth_interval the multipliers are updated at depths that are a multiple of this
+     */
+    public LagrangianBound(Environment env, int _iterations, int _depth_interval)
+    {
+        iterations = _iterations;
+        depth_interval = Math.max(1, _depth_interval);
+        lec_lambda = new double[env.lec_slots_array.length];
+        tut_lambda = new double[env.tut_slots_array.length];
+        lec_al_lambda = new double[env.lec_slots_array.length];
+        tut_al_lambda = new double[env.tut_slots_array.length];
+    }
+
+    /**
+     * create a copy with its own multipliers (used for searches that run in parallel)
+     * @return the copy
+     */
+    public LagrangianBound Copy()
+    {
+        LagrangianBound temp = new LagrangianBound(iterations, depth_interval);
+        temp.lec_lambda = lec_lambda.clone();
+        temp.tut_lambda = tut_lambda.clone();
+        temp.lec_al_lambda = lec_al_lambda.clone();
+        temp.tut_al_lambda = tut_al_lambda.clone();
+        return temp;
+    }
+
+    /**
+     * create a bound without multipliers (used by Copy)
+     * @param _iterations the number of subgradient iterations per update
+     * @param _depth_interval the multipliers are updated at depths that are a multiple of this
+     */
+    private LagrangianBound(int _iterations, int _depth_interval)
+    {
+        iterations = _iterations;
+        depth_interval = _depth_interval;
+    }
+
+    /**
+     * calculate the lower bound of the preference score of the unassigned lectures/tutorials
+     * @param pr the problem to bound
+     * @param env the environment
+     * @return the lower bound (to be added to the score of the assigned lectures/tutorials)
+     */
+    public int Bound(Problem pr, Environment env)
+    {
+        // sudo code:
+        // find the valid slots and their preference penalty for every unassigned lecture/tutorial
+        // L(lambda) = sum over lectures/tutorials of min over slots (penalty + lambda of slot)
+        //           - sum over slots of lambda * remaining capacity
+        // if this is the root or a selected depth then run subgradient iterations:
+        //      lambda = max(0, lambda + step * (number choosing slot - remaining capacity))
+        // return the largest L found
+
+        // the penalty of each valid slot of each unassigned lecture/tutorial (null if assigned)
+        int[][] lec_slots = new int[env.num_lectures][];
+        int[][] lec_costs = new int[env.num_lectures][];
+        int[][] tut_slots = new int[env.num_tutorials][];
+        int[][] tut_costs = new int[env.num_tutorials][];
+        int max_cost = 1;
+
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            if(pr.lectures[i] != -1 || !env.LectureActive(i))
+            {
+                continue;
+            }
+            lec_slots[i] = Functions.ValidLectureSlots(env, i, pr);
+            if(lec_slots[i] == null)
+            {
+                // this problem is a dead end, it is handled by Solvable
+                return 0;
+            }
+            lec_costs[i] = new int[lec_slots[i].length];
+            int total = TotalPreference(env.lectures[i].preferences.values());
+            for(int j = 0; j < lec_slots[i].length; j++)
+            {
+                int hash = env.lec_slots_array[lec_slots[i][j]].lec_hash;
+                lec_costs[i][j] = (total - env.lectures[i].preferences.getOrDefault(hash, 0)) * env.w_pref;
+                max_cost = Math.max(max_cost, lec_costs[i][j]);
+            }
+        }
+
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            if(pr.tutorials[i] != -1 || !env.TutorialActive(i))
+            {
+                continue;
+            }
+            tut_slots[i] = Functions.ValidTutSlots(env, i, pr);
+            if(tut_slots[i] == null)
+            {
+                return 0;
+            }
+            tut_costs[i] = new int[tut_slots[i].length];
+            int total = TotalPreference(env.tutorials[i].preferences.values());
+            for(int j = 0; j < tut_slots[i].length; j++)
+            {
+                int hash = env.tut_slots_array[tut_slots[i][j]].tut_hash;
+                tut_costs[i][j] = (total - env.tutorials[i].preferences.getOrDefault(hash, 0)) * env.w_pref;
+                max_cost = Math.max(max_cost, tut_costs[i][j]);
+            }
+        }
+
+        // the remaining capacity of every slot
+        int[] lec_cap = new int[env.lec_slots_array.length];
+        int[] lec_al_cap = new int[env.lec_slots_array.length];
+        int[] tut_cap = new int[env.tut_slots_array.length];
+        int[] tut_al_cap = new int[env.tut_slots_array.length];
+        RemainingCapacity(env.lec_slots_array, pr.lectures, true, env, lec_cap, lec_al_cap);
+        RemainingCapacity(env.tut_slots_array, pr.tutorials, false, env, tut_cap, tut_al_cap);
+
+        // the number of lectures/tutorials that choose each slot in the relaxed problem
+        int[] lec_count = new int[lec_cap.length];
+        int[] lec_al_count = new int[lec_cap.length];
+        int[] tut_count = new int[tut_cap.length];
+        int[] tut_al_count = new int[tut_cap.length];
+
+        int num_iterations = (pr.depth % depth_interval == 0) ? iterations : 1;
+        double best = 0;
+        for(int k = 0; k < num_iterations; k++)
+        {
+            Arrays.fill(lec_count, 0);
+            Arrays.fill(lec_al_count, 0);
+            Arrays.fill(tut_count, 0);
+            Arrays.fill(tut_al_count, 0);
+
+            double value = Relaxed(lec_slots, lec_costs, lec_lambda, lec_al_lambda, lec_count, lec_al_count, lec_cap, lec_al_cap, true, env)
+                         + Relaxed(tut_slots, tut_costs, tut_lambda, tut_al_lambda, tut_count, tut_al_count, tut_cap, tut_al_cap, false, env);
+            best = Math.max(best, value);
+
+            if(k == num_iterations - 1)
+            {
+                break;
+            }
+
+            // subgradient step with a decreasing step size
+            double step = (double)max_cost / (k + 1);
+            boolean moved = Update(lec_lambda, lec_count, lec_cap, step);
+            moved |= Update(lec_al_lambda, lec_al_count, lec_al_cap, step);
+            moved |= Update(tut_lambda, tut_count, tut_cap, step);
+            moved |= Update(tut_al_lambda, tut_al_count, tut_al_cap, step);
+            if(!moved)
+            {
+                // the multipliers are stationary so the bound can not improve
+                break;
+            }
+        }
+
+        // the scores are integers so the bound can be rounded up
+        return (int)Math.ceil(best - 1e-6);
+    }
+
+    /**
+     * evaluate the relaxed problem for lectures or tutorials with the current multipliers
+     * @param slots the valid slots of each unassigned lecture/tutorial (null if assigned)
+     * @param costs the preference penalty of each valid slot
+     * @param lambda the multipliers of the max constraints
+     * @param al_lambda the multipliers of the almax constraints
+     * @param count returns the number of lectures/tutorials that chose each slot
+     * @param al_count returns the number of active learning lectures/tutorials that chose each slot
+     * @param cap the remaining max capacity of each slot
+     * @param al_cap the remaining almax capacity of each slot
+     * @param is_lec are these lectures
+     * @param env the environment
+     * @return the value of the relaxed problem
+     */
+    private static double Relaxed(int[][] slots, int[][] costs, double[] lambda, double[] al_lambda,
+                                  int[] count, int[] al_count, int[] cap, int[] al_cap, boolean is_lec, Environment env)
+    {
+        double sum = 0;
+        for(int i = 0; i < slots.length; i++)
+        {
+            if(slots[i] == null)
+            {
+                continue;
+            }
+            boolean is_al = is_lec ? env.lectures[i].is_al : env.tutorials[i].is_al;
+
+            // choose the cheapest slot
+            double min = Double.MAX_VALUE;
+            int choice = -1;
+            for(int j = 0; j < slots[i].length; j++)
+            {
+                int s = slots[i][j];
+                double value = costs[i][j] + lambda[s] + (is_al ? al_lambda[s] : 0);
+                if(value < min)
+                {
+                    min = value;
+                    choice = s;
+                }
+            }
+
+            sum += min;
+            count[choice]++;
+            if(is_al)
+            {
+                al_count[choice]++;
+            }
+        }
+
+        for(int s = 0; s < cap.length; s++)
+        {
+            sum -= lambda[s] * cap[s] + al_lambda[s] * al_cap[s];
+        }
+        return sum;
+    }
+
+    /**
+     * update multipliers with a subgradient step, keeping them >= 0
+     * @param lambda the multipliers to update
+     * @param count the number of lectures/tutorials that chose each slot in the relaxed problem
+     * @param cap the remaining capacity of each slot
+     * @param step the step size
+     * @return true if any multiplier changed
+     */
+    private static boolean Update(double[] lambda, int[] count, int[] cap, double step)
+    {
+        boolean moved = false;
+        for(int s = 0; s < lambda.length; s++)
+        {
+            double value = Math.max(0, lambda[s] + step * (count[s] - cap[s]));
+            if(value != lambda[s])
+            {
+                lambda[s] = value;
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * find the remaining max and almax capacity of slots
+     * @param slots the slots
+     * @param assigned the current assignments to the slots
+     * @param is_lec are these lecture slots
+     * @param env the environment
+     * @param cap returns the remaining max capacity of each slot
+     * @param al_cap returns the remaining almax capacity of each slot
+     */
+    private static void RemainingCapacity(Slot[] slots, int[] assigned, boolean is_lec, Environment env, int[] cap, int[] al_cap)
+    {
+        for(int s = 0; s < slots.length; s++)
+        {
+            cap[s] = slots[s].max;
+            al_cap[s] = slots[s].almax;
+        }
+
+        for(int i = 0; i < assigned.length; i++)
+        {
+            if(assigned[i] != -1)
+            {
+                cap[assigned[i]]--;
+                if(is_lec ? env.lectures[i].is_al : env.tutorials[i].is_al)
+                {
+                    al_cap[assigned[i]]--;
+                }
+            }
+        }
+
+        for(int s = 0; s < slots.length; s++)
+        {
+            cap[s] = Math.max(0, cap[s]);
+            al_cap[s] = Math.max(0, al_cap[s]);
+        }
+    }
+
+    /**
+     * sum the values of a set of preferences
+     * @param values the preference values
+     * @return the sum
+     */
+    private static int TotalPreference(Iterable<Integer> values)
+    {
+        int total = 0;
+        for(Integer value: values)
+        {
+            total += value;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,276 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * LnsSearch improves a complete schedule with large neighbourhood search
+ * Every round it frees a small set of lectures/tutorials of the best schedule (a section, a time band or a connected
+ * cluster of the ConflictGraph) and solves them again with an AndSearch under a node budget, the rest of the schedule
+ * stays fixed. The number of freed lectures/tutorials grows while the sub problems are solved within the budget and
+ * shrinks when they are not
+ */
+public class LnsSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the time limit in milliseconds
+    long time_limit;
+    // the node budget of each AndSearch
+    int node_budget;
+    // the number of lectures/tutorials to free each round
+    int size;
+    // the random number generator
+    Random rand;
+
+    // the conflict graph of the environment
+    ConflictGraph graph;
+    // index is the entity id, value is true if it is not assigned in the starting state
+    boolean[] movable;
+    // the ids of the movable entities
+    int[] entities;
+
+    // the neighbourhoods
+    static final int SECTION = 0;
+    static final int TIME_BAND = 1;
+    static final int CLUSTER = 2;
+    static final String[] NEIGHBOURHOOD_NAMES = {"section", "time band", "cluster"};
+
+    /**
+     * initialization function for the LnsSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _time_limit the time limit in milliseconds
+     * @param _node_budget the node budget of each AndSearch
+     * @param _size the number of lectures/tutorials to free in the first round
+     * @param seed the seed of the random number generator
+     */
+    public LnsSearch(Environment _env, Problem _s0, long _time_limit, int _node_budget, int _size, long seed)
+    {
+        env = _env;
+        s0 = _s0;
+        time_limit = _time_limit;
+        node_budget = _node_budget;
+        size = Math.max(2, _size);
+        rand = new Random(seed);
+    }
+
+    /**
+     * run the large neighbourhood search
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // start with a complete schedule
+        // until the time limit:
+        //      select a neighbourhood and free its lectures/tutorials in a copy of the best schedule
+        //      solve the freed lectures/tutorials with an AndSearch that only accepts better schedules
+        //      keep the result if it is better
+        //      grow the neighbourhood if the AndSearch finished within its budget, otherwise shrink it
+
+        if(env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+        if(env.best_sol == null)
+        {
+            System.out.println("LNS: no complete schedule to start from");
+            return false;
+        }
+
+        // only the root bound is known
+        s0.bound = Functions.MinBoundScore(s0, env);
+        env.lower_bound = Math.min(s0.bound, env.best_score);
+
+        graph = new ConflictGraph(env);
+        ScheduleState state = new ScheduleState(env, env.best_sol, s0);
+        movable = state.movable;
+        entities = state.MovableEntities();
+        if(entities.length == 0)
+        {
+            return CopyBest(sf);
+        }
+        size = Math.min(size, entities.length);
+
+        long start_time = System.nanoTime();
+        int rounds = 0;
+        int improvements = 0;
+        System.out.println(String.format("LNS: start score %d, %d movable lectures/tutorials", env.best_score, entities.length));
+
+        while((System.nanoTime() - start_time) / 1000000 < time_limit && !env.SoftStopped())
+        {
+            rounds++;
+            int neighbourhood = rand.nextInt(3);
+            boolean[] free = SelectNeighbourhood(neighbourhood);
+
+            // the sub problem is the best schedule with the selected lectures/tutorials unassigned
+            Problem best = env.best_sol;
+            Problem sub_s0 = new Problem(best);
+            Environment sub_env = env.Copy();
+            sub_env.lec_active = new boolean[env.num_lectures];
+            sub_env.tut_active = new boolean[env.num_tutorials];
+            for(int e = 0; e < free.length; e++)
+            {
+                if(!free[e])
+                {
+                    continue;
+                }
+                if(e < env.num_lectures)
+                {
+                    sub_s0.lectures[e] = -1;
+                    sub_env.lec_active[e] = true;
+                }
+                else
+                {
+                    sub_s0.tutorials[e - env.num_lectures] = -1;
+                    sub_env.tut_active[e - env.num_lectures] = true;
+                }
+                sub_s0.depth--;
+            }
+
+            // the current best schedule is a solution of the sub problem, so only better ones are searched for
+            sub_env.best_sol = best;
+            sub_env.best_score = best.score;
+            sub_env.max_iterations = node_budget;
+            sub_env.warm_start = false;
+
+            AndSearch search = new AndSearch(sub_env, sub_s0);
+            Problem sub_sf = new Problem();
+            search.RunSearch(sub_sf);
+            env.iterations += sub_env.iterations;
+
+            if(sub_env.best_score < env.best_score)
+            {
+                improvements++;
+                System.out.println(String.format("LNS: round %d, %s of %d improved %d to %d", rounds, NEIGHBOURHOOD_NAMES[neighbourhood], size, env.best_score, sub_env.best_score));
+                env.UpdateBest(sub_env.best_sol, sub_env.best_score);
+            }
+
+            // an exhausted tree means the neighbourhood was solved to optimality, so try a larger one
+            if(sub_env.iterations < node_budget)
+            {
+                size = Math.min(size + 1, entities.length);
+            }
+            else
+            {
+                size = Math.max(2, size - 1);
+            }
+        }
+
+        System.out.println(String.format("LNS: finished after %d rounds (%d improvements), best %d", rounds, improvements, env.best_score));
+        return CopyBest(sf);
+    }
+
+    /**
+     * select the lectures/tutorials to free
+     * @param neighbourhood the kind of neighbourhood (SECTION, TIME_BAND or CLUSTER)
+     * @return index is the entity id, value is true if it is freed
+     */
+    private boolean[] SelectNeighbourhood(int neighbourhood)
+    {
+        boolean[] free = new boolean[movable.length];
+        int count = 0;
+        Problem best = env.best_sol;
+
+        // keep adding neighbourhoods around random lectures/tutorials until enough are free
+        while(count < size)
+        {
+            int seed_entity = entities[rand.nextInt(entities.length)];
+            ArrayList<Integer> group = new ArrayList<Integer>();
+
+            if(neighbourhood == SECTION)
+            {
+                // the lectures of a section and their tutorials
+                int lec_id = (seed_entity < env.num_lectures) ? seed_entity : env.tutorials[seed_entity - env.num_lectures].lec_id;
+                Integer[] section = env.sections.get(env.lectures[lec_id].section);
+                for(int i = 0; i < section.length; i++)
+                {
+                    group.add(section[i]);
+                    for(int j = 0; j < env.lectures[section[i]].tutorials.length; j++)
+                    {
+                        group.add(env.num_lectures + env.lectures[section[i]].tutorials[j]);
+                    }
+                }
+            }
+            else if(neighbourhood == TIME_BAND)
+            {
+                // everything that starts in the same hour
+                int hour = SlotOf(best, seed_entity).hour;
+                for(int i = 0; i < entities.length; i++)
+                {
+                    if(SlotOf(best, entities[i]).hour == hour)
+                    {
+                        group.add(entities[i]);
+                    }
+                }
+            }
+            else
+            {
+                // a breadth first cluster of the conflict graph
+                group.add(seed_entity);
+                for(int i = 0; i < group.size() && group.size() < size - count; i++)
+                {
+                    int[] neighbours = graph.neighbours[group.get(i)];
+                    for(int j = 0; j < neighbours.length; j++)
+                    {
+                        if(movable[neighbours[j]] && !free[neighbours[j]] && !group.contains(neighbours[j]))
+                        {
+                            group.add(neighbours[j]);
+                        }
+                    }
+                }
+            }
+
+            // the group is visited in a random order so a large band or section is cut at a random place
+            for(int i = group.size() - 1; i > 0; i--)
+            {
+                int j = rand.nextInt(i + 1);
+                Integer temp = group.get(i);
+                group.set(i, group.get(j));
+                group.set(j, temp);
+            }
+            for(int i = 0; i < group.size() && count < size; i++)
+            {
+                int e = group.get(i);
+                if(movable[e] && !free[e])
+                {
+                    free[e] = true;
+                    count++;
+                }
+            }
+        }
+        return free;
+    }
+
+    /**
+     * get the slot of an entity in a schedule
+     * @param pr the schedule
+     * @param entity the entity id (must be assigned)
+     * @return the slot
+     */
+    private Slot SlotOf(Problem pr, int entity)
+    {
+        if(entity < env.num_lectures)
+        {
+            return env.lec_slots_array[pr.lectures[entity]];
+        }
+        return env.tut_slots_array[pr.tutorials[entity - env.num_lectures]];
+    }
+
+    /**
+     * return the best solution of the environment by reference
+     * @param sf the final state to return
+     * @return true
+     */
+    private boolean CopyBest(Problem sf)
+    {
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+}
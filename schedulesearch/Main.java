@@ -1,4 +1,7 @@
 package schedulesearch;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * program entry point
@@ -10,11 +13,61 @@ public class Main
 
     public static void main(String[] args)
     {
+        // get the optional arguments (--name=value), the rest are the positional input variables
+        HashMap<String, String> options = new HashMap<String, String>();
+        args = ParseOptions(args, options);
+
         // check that the number of input arguments is correct
         if(args.length < 9)
         {
-            System.out.println("Not enough input variables, usage java -jar ./build/Build.jar <input_file_name.txt> <w_minfilled> <w_pref> <w_pair> <w_secdiff> <pen_lecturemin> <pen_tutorialmin> <pen_notpaired> <pen_section> <max_iterations> <time_limit>");
+            System.out.println("Not enough input variables, usage java -jar ./build/Build.jar <input_file_name.txt> <w_minfilled> <w_pref> <w_pair> <w_secdiff> <pen_lecturemin> <pen_tutorialmin> <pen_notpaired> <pen_section> <max_iterations> <time_limit> [options]");
             System.out.println("If max_iterations or time_limit is not set, then they will both be set to infinity");
+            System.out.println("Options:");
+            System.out.println("\t--bound=lagrangian use the lagrangian relaxation of the slot capacities in MinBoundScore");
+            System.out.println("\t--lagrangian-iterations=<n> subgradient iterations per multiplier update (default 20)");
+            System.out.println("\t--lagrangian-depth=<n> update the multipliers every n levels of the tree (default 5)");
+            System.out.println("\t--soft-limit=<ms> stop the search at the next clean point (between restarts, passes or rounds) after this many milliseconds, time_limit is the hard limit");
+            System.out.println("\t--epsilon=<e> accept any schedule that is proven to be within a factor of (1 + e) of the optimum (default 0)");
+            System.out.println("\t--results=<file> write every new best schedule to this file as soon as it is found");
+            System.out.println("\t--no-warm-start do not build a greedy schedule before the search");
+            System.out.println("\t--lds=<k> limited discrepancy search, the And search only explores problems with at most k discrepancies");
+            System.out.println("\t--ilds=<k> iterative limited discrepancy search, run the And search with 0, 1, ... k discrepancies");
+            System.out.println("\t--variable=mrv|static|max-degree the lecture/tutorial the And search assigns next, the fewest valid slots (default), the first in input order, or the fewest valid slots with the most constraints");
+            System.out.println("\t--value=bound|dominance|random the order the And search tries the slots in, the lowest bound first (default), dominating slots first, or random");
+            System.out.println("\t--frontier=depth-first|best-first|discrepancy|stack the leaf the And search expands next, deepest then lowest bound (default, fewest discrepancies first with --lds), lowest bound, fewest discrepancies, or a plain stack");
+            System.out.println("\t--bounding=min-bound|incremental how the And search bounds a problem, MinBoundScore (default) or the same bound computed from the bound of the parent");
+            System.out.println("\t--phase-saving try the slot of the best schedule so far first (And and restart search)");
+            System.out.println("\t--previous=<file> try the slots of a schedule written by an earlier run first, e.g. to reoptimise a changed dataset");
+            System.out.println("\t--wdeg assign the lecture/tutorial with the fewest valid slots per weighted degree first, the weights are learned from the dead ends");
+            System.out.println("\t--wdeg-file=<file> load the learned weights from the file if it exists and save them to it at the end (implies --wdeg)");
+            System.out.println("\t--engine=and|parallel|restart|ida|beam|maxsat|anneal|tabu|lns|genetic|portfolio the search engine, the exact And-tree search (default), the And-tree search on several threads with the same result on every run, depth first search with restarts, iterative deepening on the score bound (IDA*), beam search, a pseudo-Boolean (MaxSAT) model solved by clause learning, simulated annealing, tabu search, large neighbourhood search, a genetic search or a portfolio of engines run in parallel");
+            System.out.println("\t--threads=<n> number of threads of the parallel search (default the number of processors)");
+            System.out.println("\t--epoch-nodes=<n> problems every subtree of the parallel search expands between two barriers (default 2000)");
+            System.out.println("\t--restart-time=<ms> time limit of the restart search in milliseconds (default and at most the rest of time_limit)");
+            System.out.println("\t--restart-unit=<n> the node budget of a run is this times the next term of the Luby sequence (default 100)");
+            System.out.println("\t--ida-time=<ms> time limit of the IDA* search in milliseconds (default and at most the rest of time_limit)");
+            System.out.println("\t--beam-width=<n> number of problems the beam search keeps at every level (default 50)");
+            System.out.println("\t--maxsat-time=<ms> time limit of the pseudo-Boolean solver in milliseconds (default and at most the rest of time_limit)");
+            System.out.println("\t--anneal-time=<ms> time limit of the annealing in milliseconds (default and at most the rest of time_limit)");
+            System.out.println("\t--anneal-iterations=<n> number of moves the annealing tries (default 1000000)");
+            System.out.println("\t--tabu-time=<ms> time limit of the tabu search in milliseconds (default and at most the rest of time_limit)");
+            System.out.println("\t--tabu-iterations=<n> number of moves the tabu search makes (default 100000)");
+            System.out.println("\t--tabu-tenure=<n> number of iterations a lecture/tutorial may not return to the slot it left (default 10)");
+            System.out.println("\t--lns-time=<ms> time limit of the large neighbourhood search in milliseconds (default and at most the rest of time_limit)");
+            System.out.println("\t--lns-nodes=<n> node budget of the And-tree search of each neighbourhood (default 2000)");
+            System.out.println("\t--lns-size=<n> number of lectures/tutorials freed in the first neighbourhood (default 8)");
+            System.out.println("\t--genetic-time=<ms> time limit of the genetic search in milliseconds (default and at most the rest of time_limit)");
+            System.out.println("\t--genetic-generations=<n> maximum number of generations (default 1000)");
+            System.out.println("\t--genetic-population=<n> number of schedules in the population (default 30)");
+            System.out.println("\t--genetic-local-search=<n> local search moves tried on every child, 0 for none (default 500)");
+            System.out.println("\t--portfolio=<engines> comma separated engines the portfolio runs in parallel (default and,lns,anneal,tabu)");
+            System.out.println("\t--portfolio-time=<ms> time limit of the portfolio in milliseconds (default and at most the rest of time_limit)");
+            System.out.println("\t--seed=<n> seed of the random number generator (default 0)");
+            System.out.println("\t--checkpoint=<file> write the state of the And search to the file periodically and at the end (the problem is not split into components)");
+            System.out.println("\t--checkpoint-interval=<s> seconds between two checkpoints (default 60)");
+            System.out.println("\t--resume=<file> go on with the And search from a checkpoint of an earlier run with the same input and options");
+            System.out.println("\t--export-wcnf=<file> write the problem as weighted partial MaxSAT (WCNF) and exit");
+            System.out.println("\t--export-dzn=<file> write the problem as MiniZinc data, with the model in the same name with .mzn, and exit");
             return;
         }
     
@@ -62,15 +115,468 @@ public class Main
         Environment env = new Environment();
         // set the calculation variables for the environment
         env.SetWeights(input_values[0],input_values[1],input_values[2],input_values[3],input_values[4],input_values[5],input_values[6],input_values[7],input_values[8],input_values[9]); 
+
+        // start the clock, time_limit (in seconds) is the hard limit of the whole run, parsing and presolve included
+        int[] soft_limit = new int[1];
+        if(!GetIntOption(options, "soft-limit", -1, soft_limit))
+        {
+            return;
+        }
+        env.deadline = new Deadline((soft_limit[0] < 0) ? Deadline.NO_LIMIT : soft_limit[0], env.time_limit * 1000);
         Problem s0 = new Problem();
 
         // use the input parser to create the environment and starting state
-        if(InputParser.ParseInputFile(args[0], env, s0))
+        if(!InputParser.ParseInputFile(args[0], env, s0))
+        {
+            return;
+        }
+
+        // write the pseudo-Boolean model of the parsed problem for other solvers instead of searching
+        if(options.containsKey("export-wcnf") || options.containsKey("export-dzn"))
+        {
+            PbEncoding encoding = new PbEncoding(env, s0);
+            if(options.containsKey("export-wcnf") && Exporter.WriteWcnf(encoding, env, options.get("export-wcnf")))
+            {
+                System.out.println("Wrote the WCNF file: " + options.get("export-wcnf"));
+            }
+            if(options.containsKey("export-dzn") && Exporter.WriteDzn(encoding, env, options.get("export-dzn")))
+            {
+                System.out.println("Wrote the MiniZinc data file: " + options.get("export-dzn"));
+            }
+            return;
+        }
+
+        // reduce the problem before searching
+        Presolve presolve = new Presolve();
+        if(!presolve.Reduce(env, s0))
+        {
+            System.out.println("No valid schedule exists");
+            return;
+        }
+
+        // find the interchangeable and dominated slots of the reduced problem
+        Dominance.Analyse(presolve.reduced_env);
+
+        // set the allowed distance from the optimum
+        double[] epsilon = new double[1];
+        if(!GetDoubleOption(options, "epsilon", 0, epsilon))
+        {
+            return;
+        }
+        presolve.reduced_env.epsilon = epsilon[0];
+        presolve.reduced_env.warm_start = !options.containsKey("no-warm-start");
+
+        // limit the discrepancies of the And search
+        int[] discrepancies = new int[1];
+        if(options.containsKey("ilds"))
+        {
+            if(!GetIntOption(options, "ilds", -1, discrepancies))
+            {
+                return;
+            }
+            presolve.reduced_env.iterative_lds = true;
+        }
+        else if(!GetIntOption(options, "lds", -1, discrepancies))
+        {
+            return;
+        }
+        presolve.reduced_env.max_discrepancies = discrepancies[0];
+
+        // select the bound used by MinBoundScore
+        if(options.containsKey("bound"))
+        {
+            if(options.get("bound").equals("lagrangian"))
+            {
+                int[] iterations = new int[1];
+                int[] depth = new int[1];
+                if(!GetIntOption(options, "lagrangian-iterations", 20, iterations) || !GetIntOption(options, "lagrangian-depth", 5, depth))
+                {
+                    return;
+                }
+                presolve.reduced_env.lagrangian_bound = new LagrangianBound(presolve.reduced_env, iterations[0], depth[0]);
+            }
+            else if(!options.get("bound").equals("assigned"))
+            {
+                System.out.println("Error, unknown bound: " + options.get("bound"));
+                return;
+            }
+        }
+
+        // read the checkpoint to resume from, its seed is the default seed so the strategies are the same
+        Checkpoint resume = null;
+        if(options.containsKey("resume"))
+        {
+            resume = Checkpoint.Read(options.get("resume"), presolve.reduced_env);
+            if(resume == null)
+            {
+                return;
+            }
+        }
+
+        // pick the strategies of the And search
+        int[] strategy_seed = new int[1];
+        if(!GetIntOption(options, "seed", (resume == null) ? 0 : (int)resume.seed, strategy_seed))
+        {
+            return;
+        }
+        presolve.reduced_env.strategy = SearchStrategy.Create(presolve.reduced_env, options.getOrDefault("variable", "mrv"), options.getOrDefault("value", "bound"),
+                                                              options.get("frontier"), options.getOrDefault("bounding", "min-bound"), strategy_seed[0]);
+        if(presolve.reduced_env.strategy == null)
+        {
+            return;
+        }
+
+        // try the slots of the best solution and of a previous schedule first
+        presolve.reduced_env.phase_saving = options.containsKey("phase-saving");
+        if(options.containsKey("previous"))
+        {
+            Problem previous = new Problem();
+            if(!InputParser.ParseScheduleFile(options.get("previous"), env, previous))
+            {
+                return;
+            }
+            presolve.reduced_env.guide_sol = presolve.MapForward(previous);
+        }
+
+        // learn the constraint weights of the dom/wdeg variable ordering, starting from the weights of an earlier run
+        String weights_file = options.get("wdeg-file");
+        if(options.containsKey("wdeg") || weights_file != null)
+        {
+            presolve.reduced_env.weights = new ConstraintWeights(presolve.reduced_env);
+            if(weights_file != null && new File(weights_file).exists())
+            {
+                presolve.reduced_env.weights.Load(weights_file, presolve.reduced_env);
+            }
+        }
+
+        // report every new best schedule as soon as it is found
+        presolve.reduced_env.listener = new IncumbentWriter(env, presolve, options.get("results"));
+
+        // select the search engine
+        SearchEngine search;
+        String engine = options.getOrDefault("engine", "and");
+        if(engine.equals("portfolio"))
+        {
+            int[] time = new int[1];
+            if(!GetTimeOption(options, "portfolio-time", presolve.reduced_env, time))
+            {
+                return;
+            }
+            PortfolioSearch portfolio = new PortfolioSearch(presolve.reduced_env, presolve.reduced_s0, time[0]);
+            String[] names = options.getOrDefault("portfolio", "and,lns,anneal,tabu").split(",");
+            for(int i = 0; i < names.length; i++)
+            {
+                // every engine gets a different seed so two engines of the same kind do not do the same search
+                Environment engine_env = portfolio.NewEnvironment();
+                SearchEngine portfolio_engine = CreateEngine(names[i], engine_env, new Problem(presolve.reduced_s0), options, i);
+                if(portfolio_engine == null)
+                {
+                    return;
+                }
+                portfolio.AddEngine(names[i], portfolio_engine, engine_env);
+            }
+            search = portfolio;
+        }
+        else if(options.containsKey("checkpoint") || resume != null)
+        {
+            if(!engine.equals("and"))
+            {
+                System.out.println("Error, checkpoints are only supported by the And search");
+                return;
+            }
+
+            // a checkpoint holds a single frontier, so the problem is not split into components
+            AndSearch and_search = new AndSearch(presolve.reduced_env, presolve.reduced_s0);
+            if(resume != null)
+            {
+                and_search.Resume(resume);
+            }
+            if(options.containsKey("checkpoint"))
+            {
+                int[] interval = new int[1];
+                if(!GetIntOption(options, "checkpoint-interval", 60, interval))
+                {
+                    return;
+                }
+                and_search.checkpoint_writer = new CheckpointWriter(options.get("checkpoint"), interval[0] * 1000L);
+            }
+            search = and_search;
+        }
+        else
+        {
+            search = CreateEngine(engine, presolve.reduced_env, presolve.reduced_s0, options, 0);
+            if(search == null)
+            {
+                return;
+            }
+        }
+
+        Problem pr = new Problem();
+        boolean found = search.RunSearch(pr);
+        if(env.deadline.SoftExpired())
+        {
+            System.out.println(String.format("Time limit reached after %d ms, the best schedule found so far is returned", env.deadline.ElapsedMillis()));
+        }
+        if(weights_file != null)
+        {
+            presolve.reduced_env.weights.Save(weights_file, presolve.reduced_env);
+        }
+
+        if(found)
+        {
+            // convert the solution back to the slots of the parsed environment
+            Problem result = presolve.MapBack(pr);
+            int score = Functions.Eval(result, env);
+            System.out.println(String.format("\nEval-value: %d", score));
+
+            // the scores of the reduced and parsed problems only differ by the min penalty of the removed slots
+            int lower_bound = presolve.reduced_env.lower_bound + presolve.score_offset;
+            int gap = score - lower_bound;
+            System.out.println(String.format("Lower bound: %d, gap: %d (%.2f%%)", lower_bound, gap, (score == 0) ? 0.0 : 100.0 * gap / score));
+            Functions.PrintProblem(result, env);
+        }
+        else
         {
-            AndSearch search = new AndSearch(env, s0);
-            Problem pr = new Problem();
-            search.RunSearch(pr);
+            System.out.println("No valid schedule was found");
+        }
+    }
+
+    /**
+     * create a search engine
+     * @param engine the name of the engine
+     * @param env the environment
+     * @param s0 the starting state
+     * @param options the optional arguments
+     * @param seed_offset added to the seed of the random number generator
+     * @return the engine, or null if the name or one of its options is not valid
+     */
+    private static SearchEngine CreateEngine(String engine, Environment env, Problem s0, HashMap<String, String> options, int seed_offset)
+    {
+        if(engine.equals("and"))
+        {
+            // solve the independent components of the reduced problem separately
+            return new Decomposition(env, s0);
+        }
+        else if(engine.equals("anneal"))
+        {
+            int[] time = new int[1];
+            int[] iterations = new int[1];
+            int[] seed = new int[1];
+            if(!GetTimeOption(options, "anneal-time", env, time) || !GetIntOption(options, "anneal-iterations", 1000000, iterations)
+                || !GetIntOption(options, "seed", 0, seed))
+            {
+                return null;
+            }
+            return new AnnealingSearch(env, s0, iterations[0], time[0], seed[0] + seed_offset);
+        }
+        else if(engine.equals("tabu"))
+        {
+            int[] time = new int[1];
+            int[] iterations = new int[1];
+            int[] tenure = new int[1];
+            int[] seed = new int[1];
+            if(!GetTimeOption(options, "tabu-time", env, time) || !GetIntOption(options, "tabu-iterations", 100000, iterations)
+                || !GetIntOption(options, "tabu-tenure", 10, tenure) || !GetIntOption(options, "seed", 0, seed))
+            {
+                return null;
+            }
+            return new TabuSearch(env, s0, iterations[0], time[0], tenure[0], seed[0] + seed_offset);
+        }
+        else if(engine.equals("lns"))
+        {
+            int[] time = new int[1];
+            int[] nodes = new int[1];
+            int[] size = new int[1];
+            int[] seed = new int[1];
+            if(!GetTimeOption(options, "lns-time", env, time) || !GetIntOption(options, "lns-nodes", 2000, nodes)
+                || !GetIntOption(options, "lns-size", 8, size) || !GetIntOption(options, "seed", 0, seed))
+            {
+                return null;
+            }
+            return new LnsSearch(env, s0, time[0], nodes[0], size[0], seed[0] + seed_offset);
+        }
+        else if(engine.equals("genetic"))
+        {
+            int[] time = new int[1];
+            int[] generations = new int[1];
+            int[] population = new int[1];
+            int[] local_search = new int[1];
+            int[] seed = new int[1];
+            if(!GetTimeOption(options, "genetic-time", env, time) || !GetIntOption(options, "genetic-generations", 1000, generations)
+                || !GetIntOption(options, "genetic-population", 30, population) || !GetIntOption(options, "genetic-local-search", 500, local_search)
+                || !GetIntOption(options, "seed", 0, seed))
+            {
+                return null;
+            }
+            return new GeneticSearch(env, s0, time[0], generations[0], population[0], local_search[0], seed[0] + seed_offset);
+        }
+        else if(engine.equals("parallel"))
+        {
+            if(env.iterative_lds)
+            {
+                // the subtrees share one pass, so the discrepancy limit can not grow between passes
+                System.out.println("Error, --ilds is not supported by the parallel engine, use --lds");
+                return null;
+            }
+            int[] threads = new int[1];
+            int[] epoch_nodes = new int[1];
+            if(!GetIntOption(options, "threads", Runtime.getRuntime().availableProcessors(), threads) || !GetIntOption(options, "epoch-nodes", 2000, epoch_nodes))
+            {
+                return null;
+            }
+            return new ParallelSearch(env, s0, threads[0], epoch_nodes[0]);
+        }
+        else if(engine.equals("restart"))
+        {
+            int[] time = new int[1];
+            int[] unit = new int[1];
+            int[] seed = new int[1];
+            if(!GetTimeOption(options, "restart-time", env, time) || !GetIntOption(options, "restart-unit", 100, unit)
+                || !GetIntOption(options, "seed", 0, seed))
+            {
+                return null;
+            }
+            return new RestartSearch(env, s0, time[0], unit[0], seed[0] + seed_offset);
+        }
+        else if(engine.equals("ida"))
+        {
+            int[] time = new int[1];
+            if(!GetTimeOption(options, "ida-time", env, time))
+            {
+                return null;
+            }
+            return new IdaSearch(env, s0, time[0]);
+        }
+        else if(engine.equals("beam"))
+        {
+            int[] width = new int[1];
+            if(!GetIntOption(options, "beam-width", 50, width))
+            {
+                return null;
+            }
+            return new BeamSearch(env, s0, width[0]);
+        }
+        else if(engine.equals("maxsat"))
+        {
+            int[] time = new int[1];
+            if(!GetTimeOption(options, "maxsat-time", env, time))
+            {
+                return null;
+            }
+            return new MaxSatSearch(env, s0, time[0]);
+        }
+        else
+        {
+            System.out.println("Error, unknown engine: " + engine);
+            return null;
+        }
+    }
+
+    /**
+     * separate the optional arguments from the positional arguments
+     * @param args the command line arguments
+     * @param options returns the optional arguments, key is the name and value is the value ("" if not given)
+     * @return the positional arguments
+     */
+    private static String[] ParseOptions(String[] args, HashMap<String, String> options)
+    {
+        ArrayList<String> positional = new ArrayList<String>();
+        for(int i = 0; i < args.length; i++)
+        {
+            if(args[i].startsWith("--"))
+            {
+                int split = args[i].indexOf('=');
+                if(split == -1)
+                {
+                    options.put(args[i].substring(2), "");
+                }
+                else
+                {
+                    options.put(args[i].substring(2, split), args[i].substring(split + 1));
+                }
+            }
+            else
+            {
+                positional.add(args[i]);
+            }
+        }
+
+        return positional.toArray(new String[0]);
+    }
+
+    /**
+     * Get an integer option
+     * @param options the optional arguments
+     * @param name the name of the option
+     * @param default_value the value to use if the option was not given
+     * @param int_return the array to put the integer in (will be put into index 0)
+     * @return true if the option was valid or not given, false if it was not an integer
+     */
+    private static boolean GetIntOption(HashMap<String, String> options, String name, int default_value, int[] int_return)
+    {
+        if(!options.containsKey(name))
+        {
+            int_return[0] = default_value;
+            return true;
+        }
+
+        if(!GetSafeIntFromString(options.get(name), int_return))
+        {
+            System.out.println(String.format("Error, invalid input to --%s", name));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the time limit of an engine, time_limit is the hard limit of the whole run so an option can only shorten it
+     * @param options the optional arguments
+     * @param name the name of the option
+     * @param env the environment with the deadline of the run
+     * @param int_return the array to put the time in milliseconds in (will be put into index 0)
+     * @return true if the option was valid or not given, false otherwise
+     */
+    private static boolean GetTimeOption(HashMap<String, String> options, String name, Environment env, int[] int_return)
+    {
+        long remaining = env.deadline.RemainingNanos() / 1000000;
+        int default_value = (int)Math.min(Integer.MAX_VALUE, remaining);
+        if(!GetIntOption(options, name, default_value, int_return))
+        {
+            return false;
+        }
+        int_return[0] = Math.min(int_return[0], default_value);
+        return true;
+    }
+
+    /**
+     * Get a double option
+     * @param options the optional arguments
+     * @param name the name of the option
+     * @param default_value the value to use if the option was not given
+     * @param double_return the array to put the double in (will be put into index 0)
+     * @return true if the option was valid or not given, false if it was not a non negative number
+     */
+    private static boolean GetDoubleOption(HashMap<String, String> options, String name, double default_value, double[] double_return)
+    {
+        if(!options.containsKey(name))
+        {
+            double_return[0] = default_value;
+            return true;
+        }
+
+        try{
+            double_return[0] = Double.parseDouble(options.get(name));
+        }catch(NumberFormatException e)
+        {
+            double_return[0] = -1;
+        }
+
+        if(!(double_return[0] >= 0))
+        {
+            System.out.println(String.format("Error, invalid input to --%s", name));
+            return false;
         }
+        return true;
     }
 
     /**
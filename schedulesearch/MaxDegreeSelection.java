@@ -0,0 +1,68 @@
+package schedulesearch;
+
+/**
+ * MaxDegreeSelection selects the unassigned active lecture/tutorial with the fewest valid slots, ties go to the one
+ * with the most neighbours in the ConflictGraph (like the greedy construction)
+ */
+class MaxDegreeSelection implements VariableSelection
+{
+    // index is the entity id, value is its number of neighbours in the conflict graph
+    private int[] degree;
+
+    /**
+     * initialization function for the MaxDegreeSelection
+     * @param env the environment to build the conflict graph from
+     */
+    public MaxDegreeSelection(Environment env)
+    {
+        ConflictGraph graph = new ConflictGraph(env);
+        degree = new int[graph.neighbours.length];
+        for(int i = 0; i < degree.length; i++)
+        {
+            degree[i] = graph.neighbours[i].length;
+        }
+    }
+
+    /**
+     * select the lecture/tutorial with the fewest valid slots and the most neighbours
+     * @param pr the problem to select from
+     * @param env the environment
+     * @param entity returns the selected id in index 0
+     * @return the valid slots of the selected lecture/tutorial, or null if nothing can be assigned
+     */
+    public int[] Select(Problem pr, Environment env, int[] entity)
+    {
+        int[] best_slots = null;
+        entity[0] = -1;
+
+        for(int i = 0; i < env.num_lectures + env.num_tutorials; i++)
+        {
+            int[] slots;
+            if(i < env.num_lectures)
+            {
+                if(pr.lectures[i] != -1 || !env.LectureActive(i))
+                {
+                    continue;
+                }
+                slots = Functions.ValidLectureSlots(env, i, pr);
+            }
+            else
+            {
+                if(pr.tutorials[i - env.num_lectures] != -1 || !env.TutorialActive(i - env.num_lectures))
+                {
+                    continue;
+                }
+                slots = Functions.ValidTutSlots(env, i - env.num_lectures, pr);
+            }
+
+            if(slots != null && (best_slots == null || slots.length < best_slots.length
+                || (slots.length == best_slots.length && degree[i] > degree[entity[0]])))
+            {
+                best_slots = slots;
+                entity[0] = i;
+            }
+        }
+
+        return best_slots;
+    }
+}
@@ -0,0 +1,121 @@
+package schedulesearch;
+
+/**
+ * MaxSatSearch solves the problem as a weighted pseudo-Boolean model (PbEncoding) with the CDCL solver of PbSolver
+ * The objective is an at-most constraint of the solver. Every model is a schedule that beats the best score, so the
+ * bound of the objective is lowered to one below its score and the solver goes on with its learned clauses until it
+ * proves that no better schedule exists (linear SAT-UNSAT search). The greedy schedule gives the first bound
+ */
+public class MaxSatSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the time limit in milliseconds
+    long time_limit;
+
+    /**
+     * initialization function for the MaxSatSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _time_limit the time limit in milliseconds
+     */
+    public MaxSatSearch(Environment _env, Problem _s0, long _time_limit)
+    {
+        env = _env;
+        s0 = _s0;
+        time_limit = _time_limit;
+    }
+
+    /**
+     * find models with a lower objective until there are none left or the time runs out
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // encode the problem and load it into the solver
+        // bound the objective by the best score - 1
+        // while the solver finds a model:
+        //      decode the schedule and record it
+        //      bound the objective by its score - 1
+        // if the solver proves that there is no model then the best solution is optimal
+
+        if(env.warm_start && env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+
+        long end_time = System.nanoTime() + time_limit * 1000000;
+        PbEncoding encoding = new PbEncoding(env, s0);
+        boolean optimal = !encoding.feasible;
+        int models = 0;
+        PbSolver solver = new PbSolver();
+        if(encoding.feasible)
+        {
+            int objective = encoding.Load(solver);
+            if(env.best_sol != null)
+            {
+                // the solver looks for the better schedules near the best one first
+                boolean[] phases = encoding.Encode(env.best_sol);
+                for(int i = 0; i < phases.length; i++)
+                {
+                    solver.SetPhase(i, phases[i]);
+                }
+            }
+            System.out.println(String.format("MaxSat: %d vars, %d clauses, %d at-most constraints, %d objective terms",
+                encoding.num_vars, encoding.clauses.size(), encoding.at_most_lits.size() + 1, encoding.objective_lits.size()));
+
+            while(!env.SoftStopped() && System.nanoTime() - end_time < 0)
+            {
+                if(env.best_sol != null && !solver.SetBound(objective, env.best_score - 1 - encoding.offset))
+                {
+                    optimal = true;
+                    break;
+                }
+
+                int status = solver.Solve(env, end_time);
+                if(status == PbSolver.UNSAT)
+                {
+                    optimal = true;
+                    break;
+                }
+                if(status == PbSolver.UNKNOWN)
+                {
+                    break;
+                }
+
+                Problem pr = encoding.Decode(solver.Model());
+                if(!Functions.IsComplete(pr, env))
+                {
+                    System.out.println("MaxSat: a model is not a complete schedule");
+                    break;
+                }
+                pr.score = Functions.Eval(pr, env);
+                env.UpdateBest(pr, pr.score);
+                models++;
+                System.out.println(String.format("MaxSat: model %d scores %d, best %d, conflicts %d", models, pr.score, env.best_score, solver.conflicts));
+            }
+        }
+        env.iterations += (int)Math.min(Integer.MAX_VALUE, solver.conflicts);
+
+        System.out.println(String.format("MaxSat: %d models, %d conflicts%s", models, solver.conflicts, optimal ? ", no better schedule exists" : ""));
+
+        // an unsatisfiable objective bound proves the best solution, otherwise only the root bound is known
+        env.lower_bound = optimal ? env.best_score : Math.min(Functions.MinBoundScore(s0, env), env.best_score);
+
+        if(env.best_sol == null)
+        {
+            return false;
+        }
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+}
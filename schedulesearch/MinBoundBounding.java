@@ -0,0 +1,43 @@
+package schedulesearch;
+
+/**
+ * MinBoundBounding is MinBoundScore (with the lagrangian relaxation if it is used) and FBound
+ */
+class MinBoundBounding implements Bounding
+{
+    /**
+     * the lower bound of the root of a search
+     * @param pr the problem
+     * @param env the environment
+     * @return MinBoundScore of the problem
+     */
+    public int Bound(Problem pr, Environment env)
+    {
+        return Functions.MinBoundScore(pr, env);
+    }
+
+    /**
+     * the lower bound of a child
+     * @param parent the parent problem (its bound is set)
+     * @param child the child
+     * @param env the environment
+     * @param entity the id of the assigned lecture/tutorial
+     * @param slot the slot it was assigned to
+     * @return MinBoundScore of the child
+     */
+    public int ChildBound(Problem parent, Problem child, Environment env, int entity, int slot)
+    {
+        return Functions.MinBoundScore(child, env);
+    }
+
+    /**
+     * can a problem be pruned
+     * @param pr the problem (its bound is set)
+     * @param env the environment with the best score
+     * @return the result of FBound
+     */
+    public boolean Prune(Problem pr, Environment env)
+    {
+        return Functions.FBound(pr, env);
+    }
+}
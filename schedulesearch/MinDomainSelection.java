@@ -0,0 +1,54 @@
+package schedulesearch;
+
+/**
+ * MinDomainSelection selects the unassigned active lecture/tutorial with the fewest valid slots
+ * (divided by its weighted degree if the constraint weights are learned)
+ */
+class MinDomainSelection implements VariableSelection
+{
+    /**
+     * select the lecture/tutorial with the lowest selection key
+     * @param pr the problem to select from
+     * @param env the environment
+     * @param entity returns the selected id in index 0
+     * @return the valid slots of the selected lecture/tutorial, or null if nothing can be assigned
+     */
+    public int[] Select(Problem pr, Environment env, int[] entity)
+    {
+        int[] best_slots = null;
+        double best_key = 0;
+        entity[0] = -1;
+
+        for(int i = 0; i < pr.lectures.length; i++)
+        {
+            if(pr.lectures[i] == -1 && env.LectureActive(i))
+            {
+                int[] slots = Functions.ValidLectureSlots(env, i, pr);
+                double key = (slots == null) ? 0 : Functions.SelectionKey(pr, env, i, slots.length);
+                if(slots != null && (best_slots == null || key < best_key))
+                {
+                    best_slots = slots;
+                    best_key = key;
+                    entity[0] = i;
+                }
+            }
+        }
+
+        for(int i = 0; i < pr.tutorials.length; i++)
+        {
+            if(pr.tutorials[i] == -1 && env.TutorialActive(i))
+            {
+                int[] slots = Functions.ValidTutSlots(env, i, pr);
+                double key = (slots == null) ? 0 : Functions.SelectionKey(pr, env, env.num_lectures + i, slots.length);
+                if(slots != null && (best_slots == null || key < best_key))
+                {
+                    best_slots = slots;
+                    best_key = key;
+                    entity[0] = env.num_lectures + i;
+                }
+            }
+        }
+
+        return best_slots;
+    }
+}
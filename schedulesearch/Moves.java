@@ -0,0 +1,183 @@
+package schedulesearch;
+import java.util.ArrayList;
+
+/**
+ * Moves holds the compound moves of the local search engines: swapping the slots of two lectures/tutorials and
+ * Kempe chain exchanges between two slots. Both keep every hard constraint (checked with ScheduleState.CanPlace, so with
+ * the overlap tables of the environment) and both are their own inverse, so a move is undone by making it again
+ */
+public final class Moves
+{
+    /**
+     * swap the slots of two lectures or two tutorials if the result is valid
+     * @param state the schedule
+     * @param a the first entity id
+     * @param b the second entity id (of the same type as a)
+     * @return true if the swap was made, otherwise the schedule is unchanged
+     */
+    public static boolean Swap(ScheduleState state, int a, int b)
+    {
+        int slot_a = state.SlotOf(a);
+        int slot_b = state.SlotOf(b);
+        if(a == b || state.IsLecture(a) != state.IsLecture(b) || slot_a == slot_b)
+        {
+            return false;
+        }
+
+        // place one at a time so each is checked against the other half of the swap
+        state.Remove(a);
+        state.Remove(b);
+        if(state.CanPlace(a, slot_b))
+        {
+            state.Place(a, slot_b);
+            if(state.CanPlace(b, slot_a))
+            {
+                state.Place(b, slot_a);
+                return true;
+            }
+            state.Remove(a);
+        }
+
+        state.Place(a, slot_a);
+        state.Place(b, slot_b);
+        return false;
+    }
+
+    /**
+     * find the change in score of swapping the slots of two lectures or two tutorials, the schedule is left unchanged
+     * @param state the schedule
+     * @param a the first entity id
+     * @param b the second entity id
+     * @return the change in score, or Integer.MAX_VALUE if the swap is not valid
+     */
+    public static int SwapDelta(ScheduleState state, int a, int b)
+    {
+        int old_score = state.score;
+        if(!Swap(state, a, b))
+        {
+            return Integer.MAX_VALUE;
+        }
+        int delta = state.score - old_score;
+        Swap(state, a, b);
+        return delta;
+    }
+
+    /**
+     * find the Kempe chain of an entity and a second slot
+     * the chain starts at the entity and follows the ConflictGraph through the lectures/tutorials of the same type
+     * that are in the slot of the entity or in the second slot, so it is every lecture/tutorial that has to change
+     * slot together with the entity when the two slots are exchanged
+     * @param state the schedule
+     * @param graph the conflict graph of the environment
+     * @param entity the entity id
+     * @param slot the second slot id (of the same type as the entity)
+     * @return the entity ids of the chain, or null if the chain contains a lecture/tutorial that can not be moved
+     */
+    public static int[] KempeChain(ScheduleState state, ConflictGraph graph, int entity, int slot)
+    {
+        int slot_a = state.SlotOf(entity);
+        if(slot_a == slot)
+        {
+            return null;
+        }
+
+        boolean is_lec = state.IsLecture(entity);
+        ArrayList<Integer> chain = new ArrayList<Integer>();
+        chain.add(entity);
+        for(int i = 0; i < chain.size(); i++)
+        {
+            int e = chain.get(i);
+            if(!state.movable[e])
+            {
+                return null;
+            }
+
+            int[] neighbours = graph.neighbours[e];
+            for(int j = 0; j < neighbours.length; j++)
+            {
+                int n = neighbours[j];
+                if(state.IsLecture(n) != is_lec || chain.contains(n))
+                {
+                    continue;
+                }
+                int n_slot = state.SlotOf(n);
+                if(n_slot == slot_a || n_slot == slot)
+                {
+                    chain.add(n);
+                }
+            }
+        }
+
+        int[] result = new int[chain.size()];
+        for(int i = 0; i < result.length; i++)
+        {
+            result[i] = chain.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * exchange the slots of the lectures/tutorials of a Kempe chain if the result is valid
+     * @param state the schedule
+     * @param chain the entity ids of the chain (every one is in slot_a or slot_b)
+     * @param slot_a the first slot id
+     * @param slot_b the second slot id
+     * @return true if the exchange was made, otherwise the schedule is unchanged
+     */
+    public static boolean Kempe(ScheduleState state, int[] chain, int slot_a, int slot_b)
+    {
+        int[] old_slots = new int[chain.length];
+        for(int i = 0; i < chain.length; i++)
+        {
+            old_slots[i] = state.SlotOf(chain[i]);
+            state.Remove(chain[i]);
+        }
+
+        // place one at a time so every pair in the chain is checked when the second one is placed
+        int placed = 0;
+        for(; placed < chain.length; placed++)
+        {
+            int new_slot = (old_slots[placed] == slot_a) ? slot_b : slot_a;
+            if(!state.CanPlace(chain[placed], new_slot))
+            {
+                break;
+            }
+            state.Place(chain[placed], new_slot);
+        }
+        if(placed == chain.length)
+        {
+            return true;
+        }
+
+        // undo the exchange
+        for(int i = 0; i < placed; i++)
+        {
+            state.Remove(chain[i]);
+        }
+        for(int i = 0; i < chain.length; i++)
+        {
+            state.Place(chain[i], old_slots[i]);
+        }
+        return false;
+    }
+
+    /**
+     * find the change in score of a Kempe chain exchange, the schedule is left unchanged
+     * @param state the schedule
+     * @param chain the entity ids of the chain (every one is in slot_a or slot_b)
+     * @param slot_a the first slot id
+     * @param slot_b the second slot id
+     * @return the change in score, or Integer.MAX_VALUE if the exchange is not valid
+     */
+    public static int KempeDelta(ScheduleState state, int[] chain, int slot_a, int slot_b)
+    {
+        int old_score = state.score;
+        if(!Kempe(state, chain, slot_a, slot_b))
+        {
+            return Integer.MAX_VALUE;
+        }
+        int delta = state.score - old_score;
+        Kempe(state, chain, slot_a, slot_b);
+        return delta;
+    }
+}
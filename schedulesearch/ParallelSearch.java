@@ -0,0 +1,297 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ParallelSearch runs the And search on several threads and gives the same result on every run
+ * The tree is split into a fixed number of subtrees, each one with its own AndSearch and its own copy of the environment
+ * (with its own random value ordering and constraint weights). The search runs in epochs: in every epoch each subtree
+ * expands the same number of problems, and only at the barrier between two epochs is the best solution of all the
+ * subtrees shared with the others. When there are fewer subtrees with leaves than threads, the subtree with the most
+ * leaves gives every second leaf to an empty subtree. None of this depends on the timing of the threads, so the best
+ * solution and the node counts only depend on the number of threads and the seed (unless the hard time limit stops an
+ * epoch half way, the soft limit is only checked at the barriers)
+ */
+public class ParallelSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the number of threads
+    int threads;
+    // the number of problems every subtree expands in an epoch
+    int epoch_nodes;
+
+    // the searches of the subtrees, the order is fixed
+    ArrayList<AndSearch> searches = new ArrayList<AndSearch>();
+    // the environment of each search
+    ArrayList<Environment> search_envs = new ArrayList<Environment>();
+
+    // the number of subtrees made for every thread at the start
+    static final int SUBTREES_PER_THREAD = 4;
+
+    /**
+     * initialization function for the ParallelSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _threads the number of threads
+     * @param _epoch_nodes the number of problems every subtree expands in an epoch
+     */
+    public ParallelSearch(Environment _env, Problem _s0, int _threads, int _epoch_nodes)
+    {
+        env = _env;
+        s0 = _s0;
+        threads = Math.max(1, _threads);
+        epoch_nodes = Math.max(1, _epoch_nodes);
+    }
+
+    /**
+     * run the subtrees in epochs until every tree is empty or a budget runs out
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // expand the starting state until there are enough leaves and deal them out to the subtrees
+        // while a subtree has leaves:
+        //      give every second leaf of the largest subtree to an empty one until every thread has a subtree
+        //      in parallel, every subtree expands epoch_nodes problems with the best score of the last barrier
+        //      barrier: the best solution of the subtrees (the first subtree wins a tie) is shared with all of them
+        // the lower bound is the smallest bound of the leaves and the pruned and dropped problems of all the subtrees
+        // the constraint weights each subtree learned are added to the weights of the environment, in subtree order
+
+        if(env.warm_start && env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+
+        // split the tree, the root is expanded on this thread only until there is a leaf for every subtree
+        AndSearch root = NewSearch();
+        int num_subtrees = threads * SUBTREES_PER_THREAD;
+        boolean empty = false;
+        while(!empty && root.NumLeaves() < num_subtrees)
+        {
+            empty = root.ExpandNodes(1);
+        }
+        ArrayList<Problem> leaves = root.TakeLeaves();
+        int count = Math.max(1, Math.min(leaves.size(), num_subtrees));
+        while(searches.size() < count)
+        {
+            NewSearch();
+        }
+        Deal(leaves, count);
+        Barrier();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        boolean exhausted = false;
+        int epochs = 0;
+        while(true)
+        {
+            if(env.iterations >= env.max_iterations || env.SoftStopped())
+            {
+                break;
+            }
+            Rebalance();
+
+            ArrayList<Integer> active = new ArrayList<Integer>();
+            ArrayList<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for(int i = 0; i < searches.size(); i++)
+            {
+                AndSearch search = searches.get(i);
+                if(search.NumLeaves() > 0)
+                {
+                    active.add(i);
+                    results.add(executor.submit(() -> search.ExpandNodes(epoch_nodes)));
+                }
+            }
+            if(active.isEmpty())
+            {
+                exhausted = true;
+                break;
+            }
+
+            // wait for every subtree, in order, so the barrier always sees the same state
+            for(int i = 0; i < results.size(); i++)
+            {
+                try{
+                    results.get(i).get();
+                }catch(InterruptedException | ExecutionException e)
+                {
+                    System.out.println("Parallel: the search of subtree " + active.get(i) + " failed: " + e.getMessage());
+                }
+            }
+            Barrier();
+            epochs++;
+        }
+        executor.shutdown();
+
+        // the subtrees learn on their own copies, so --wdeg-file saves what all of them learned
+        if(env.weights != null)
+        {
+            for(Environment search_env: search_envs)
+            {
+                env.weights.Merge(search_env.weights);
+            }
+        }
+
+        // an empty tree still leaves the problems dropped by the discrepancy limit and pruned by epsilon
+        int lower_bound = env.best_score;
+        for(AndSearch search: searches)
+        {
+            lower_bound = Math.min(lower_bound, search.LeafBound());
+        }
+        env.lower_bound = lower_bound;
+        System.out.println(String.format("Parallel: %d epochs, %d subtrees, best %d, nodes %d%s", epochs, searches.size(), env.best_score, env.iterations, exhausted ? ", tree exhausted" : ""));
+
+        if(env.best_sol == null)
+        {
+            return false;
+        }
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+
+    /**
+     * create the search of a new subtree, it starts with the starting state as its only leaf
+     * @return the search
+     */
+    private AndSearch NewSearch()
+    {
+        int index = searches.size();
+        Environment search_env = env.Copy();
+        // the searches only share what they find at the barriers, and only the node count of the barriers is a limit
+        search_env.listener = null;
+        search_env.max_iterations = Integer.MAX_VALUE;
+        search_env.iterations = 0;
+        search_env.strategy = env.strategy.Copy(env.strategy.seed + index);
+        search_env.weights = (env.weights == null) ? null : env.weights.Copy();
+        if(env.best_sol != null)
+        {
+            search_env.ShareBest(env.best_sol, env.best_score);
+        }
+
+        AndSearch search = new AndSearch(search_env, new Problem(s0));
+        searches.add(search);
+        search_envs.add(search_env);
+        return search;
+    }
+
+    /**
+     * deal leaves out to the subtrees in turn, the subtrees lose the leaves they had
+     * @param leaves the leaves
+     * @param count the number of subtrees to deal to (starting with the first one)
+     */
+    private void Deal(ArrayList<Problem> leaves, int count)
+    {
+        ArrayList<ArrayList<Problem>> hands = new ArrayList<ArrayList<Problem>>();
+        for(int i = 0; i < count; i++)
+        {
+            searches.get(i).TakeLeaves();
+            hands.add(new ArrayList<Problem>());
+        }
+        for(int i = 0; i < leaves.size(); i++)
+        {
+            hands.get(i % count).add(leaves.get(i));
+        }
+        for(int i = 0; i < count; i++)
+        {
+            searches.get(i).AddLeaves(hands.get(i));
+        }
+    }
+
+    /**
+     * split the largest subtrees until every thread has a subtree with leaves
+     */
+    private void Rebalance()
+    {
+        while(true)
+        {
+            int active = 0;
+            int largest = -1;
+            int largest_size = 0;
+            int empty = -1;
+            for(int i = 0; i < searches.size(); i++)
+            {
+                int size = searches.get(i).NumLeaves();
+                if(size > 0)
+                {
+                    active++;
+                }
+                else if(empty == -1)
+                {
+                    empty = i;
+                }
+                if(size > largest_size)
+                {
+                    largest = i;
+                    largest_size = size;
+                }
+            }
+            if(active >= threads || largest_size < 2)
+            {
+                return;
+            }
+            if(empty == -1)
+            {
+                NewSearch().TakeLeaves();
+                empty = searches.size() - 1;
+            }
+
+            // every second leaf in the order of the frontier, so both halves get some of the best leaves
+            ArrayList<Problem> leaves = searches.get(largest).TakeLeaves();
+            ArrayList<Problem> kept = new ArrayList<Problem>();
+            ArrayList<Problem> given = new ArrayList<Problem>();
+            for(int i = 0; i < leaves.size(); i++)
+            {
+                ((i % 2 == 0) ? kept : given).add(leaves.get(i));
+            }
+            searches.get(largest).AddLeaves(kept);
+            searches.get(empty).AddLeaves(given);
+        }
+    }
+
+    /**
+     * share the best solution of the subtrees with all of them and add up the node counts
+     */
+    private void Barrier()
+    {
+        int best = -1;
+        for(int i = 0; i < search_envs.size(); i++)
+        {
+            Environment search_env = search_envs.get(i);
+            if(search_env.best_sol != null && (best == -1 || search_env.best_score < search_envs.get(best).best_score))
+            {
+                best = i;
+            }
+        }
+
+        int iterations = 0;
+        for(Environment search_env: search_envs)
+        {
+            iterations += search_env.iterations;
+        }
+        env.iterations = iterations;
+
+        if(best != -1)
+        {
+            env.UpdateBest(search_envs.get(best).best_sol, search_envs.get(best).best_score);
+        }
+        if(env.best_sol != null)
+        {
+            for(Environment search_env: search_envs)
+            {
+                search_env.ShareBest(env.best_sol, env.best_score);
+            }
+        }
+    }
+}
@@ -0,0 +1,643 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * PbEncoding writes a scheduling problem as a weighted pseudo-Boolean model: hard clauses, hard at-most constraints
+ * and a weighted sum of literals to minimise. There is one variable x(e, s) for every lecture/tutorial e and every
+ * slot s it can use given the starting state (the assigned lectures/tutorials get the one slot they have). A model
+ * of the hard constraints is a valid schedule and its objective plus the offset is at least the score of that
+ * schedule, with equality for the best values of the auxiliary variables, so the optimum of the model is the optimum
+ * of the schedule. The hard constraints are:
+ *      every lecture/tutorial gets exactly one slot
+ *      the capacity and active learning capacity of every slot
+ *      at most one 5xx lecture in every lecture slot
+ *      not compatible lectures/tutorials and a lecture and its tutorials do not overlap
+ * The soft constraints are:
+ *      preferences, the weight of x(e, s) is the preference penalty of e in s
+ *      pairs, p(a, b) may only be true if a and b overlap and the penalty is paid if p(a, b) is false
+ *      sections, y(a, b, s) has to be true if a and b are both in s and the penalty is paid if it is true
+ *      min filled, f(s, k) may only be true if s has at least k lectures/tutorials and the penalty is paid for each false one
+ */
+public class PbEncoding
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+
+    // false if a lecture/tutorial has no valid slot, so there is no schedule
+    boolean feasible = true;
+    // the number of variables
+    int num_vars = 0;
+    // index is the entity id, value is the slots it can use (null if it is not in the model)
+    int[][] domains;
+    // index is the entity id, value is the var of each slot of its domain
+    int[][] vars;
+
+    // the hard clauses
+    ArrayList<int[]> clauses = new ArrayList<int[]>();
+    // the hard at-most constraints, the sum of the weights of the true literals is at most the bound
+    ArrayList<int[]> at_most_lits = new ArrayList<int[]>();
+    ArrayList<int[]> at_most_weights = new ArrayList<int[]>();
+    ArrayList<Integer> at_most_bounds = new ArrayList<Integer>();
+    // the objective, the sum of the weights of the true literals
+    ArrayList<Integer> objective_lits = new ArrayList<Integer>();
+    ArrayList<Integer> objective_weights = new ArrayList<Integer>();
+    // the part of the score that does not depend on the model
+    int offset = 0;
+
+    /**
+     * encode a problem
+     * @param _env the environment
+     * @param _s0 the starting state
+     */
+    public PbEncoding(Environment _env, Problem _s0)
+    {
+        env = _env;
+        s0 = _s0;
+
+        // sudo code:
+        // make the x variables from the valid slots of every lecture/tutorial
+        // add the hard constraints
+        // add the soft constraints to the objective, with auxiliary variables where the penalty depends on two or more slots
+
+        int num_entities = env.num_lectures + env.num_tutorials;
+        domains = new int[num_entities][];
+        vars = new int[num_entities][];
+        for(int i = 0; i < num_entities && feasible; i++)
+        {
+            MakeDomain(i);
+        }
+        if(!feasible)
+        {
+            return;
+        }
+
+        EncodeExactlyOne();
+        EncodeCapacities();
+        EncodeOverlaps();
+        EncodePreferences();
+        EncodePairs();
+        EncodeSections();
+        EncodeMinFilled();
+    }
+
+    /**
+     * make the domain and the variables of a lecture/tutorial
+     * @param entity the entity id
+     */
+    private void MakeDomain(int entity)
+    {
+        boolean is_lec = entity < env.num_lectures;
+        int id = is_lec ? entity : entity - env.num_lectures;
+        int slot = is_lec ? s0.lectures[id] : s0.tutorials[id];
+        if(slot != -1)
+        {
+            domains[entity] = new int[]{slot};
+        }
+        else if(is_lec ? env.LectureActive(id) : env.TutorialActive(id))
+        {
+            domains[entity] = is_lec ? Functions.ValidLectureSlots(env, id, s0) : Functions.ValidTutSlots(env, id, s0);
+            if(domains[entity] == null)
+            {
+                feasible = false;
+                return;
+            }
+        }
+        else
+        {
+            // the lecture/tutorial does not have to be assigned, so it is left out
+            return;
+        }
+
+        vars[entity] = new int[domains[entity].length];
+        for(int i = 0; i < vars[entity].length; i++)
+        {
+            vars[entity][i] = NewVar();
+        }
+    }
+
+    // hard constraints ####################################################################################################################
+
+    /**
+     * every lecture/tutorial in the model gets exactly one slot
+     */
+    private void EncodeExactlyOne()
+    {
+        for(int i = 0; i < vars.length; i++)
+        {
+            if(vars[i] == null)
+            {
+                continue;
+            }
+            clauses.add(Lits(vars[i], true));
+            if(vars[i].length > 1)
+            {
+                AddAtMost(Lits(vars[i], true), 1);
+            }
+        }
+    }
+
+    /**
+     * the capacity and active learning capacity of every slot, and at most one 5xx lecture in every lecture slot
+     */
+    private void EncodeCapacities()
+    {
+        for(int s = 0; s < env.lec_slots_array.length; s++)
+        {
+            ArrayList<Integer> all = new ArrayList<Integer>();
+            ArrayList<Integer> al = new ArrayList<Integer>();
+            ArrayList<Integer> lec_5xx = new ArrayList<Integer>();
+            for(int i = 0; i < env.num_lectures; i++)
+            {
+                int var = Var(i, s);
+                if(var == -1)
+                {
+                    continue;
+                }
+                all.add(PbSolver.Pos(var));
+                if(env.lectures[i].is_al)
+                {
+                    al.add(PbSolver.Pos(var));
+                }
+                if(env.lectures[i].is_5xx)
+                {
+                    lec_5xx.add(PbSolver.Pos(var));
+                }
+            }
+            AddCapacity(all, env.lec_slots_array[s].max);
+            AddCapacity(al, env.lec_slots_array[s].almax);
+            AddCapacity(lec_5xx, 1);
+        }
+
+        for(int s = 0; s < env.tut_slots_array.length; s++)
+        {
+            ArrayList<Integer> all = new ArrayList<Integer>();
+            ArrayList<Integer> al = new ArrayList<Integer>();
+            for(int i = 0; i < env.num_tutorials; i++)
+            {
+                int var = Var(env.num_lectures + i, s);
+                if(var == -1)
+                {
+                    continue;
+                }
+                all.add(PbSolver.Pos(var));
+                if(env.tutorials[i].is_al)
+                {
+                    al.add(PbSolver.Pos(var));
+                }
+            }
+            AddCapacity(all, env.tut_slots_array[s].max);
+            AddCapacity(al, env.tut_slots_array[s].almax);
+        }
+    }
+
+    /**
+     * not compatible lectures/tutorials and a lecture and its tutorials are never in overlapping slots
+     */
+    private void EncodeOverlaps()
+    {
+        // the binary hard constraints are the edges of the constraint weights
+        ConstraintWeights graph = new ConstraintWeights(env);
+        for(int a = 0; a < vars.length; a++)
+        {
+            for(int j = 0; vars[a] != null && j < graph.neighbours[a].length; j++)
+            {
+                int b = graph.neighbours[a][j];
+                if(b < a || vars[b] == null)
+                {
+                    continue;
+                }
+                for(int i = 0; i < domains[a].length; i++)
+                {
+                    for(int k = 0; k < domains[b].length; k++)
+                    {
+                        if(Overlap(a, domains[a][i], b, domains[b][k]))
+                        {
+                            clauses.add(new int[]{PbSolver.Neg(vars[a][i]), PbSolver.Neg(vars[b][k])});
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // soft constraints ####################################################################################################################
+
+    /**
+     * the preference penalty of every slot of every lecture/tutorial
+     * every lecture/tutorial gets exactly one slot, so its cheapest slot goes in the offset and the weights are what
+     * the other slots cost more, which lets the solver see the cost of the unassigned lectures/tutorials as well
+     * NOTE: preferences are keyed by the slot hash, like in Functions.EvalPref
+     */
+    private void EncodePreferences()
+    {
+        for(int e = 0; e < vars.length; e++)
+        {
+            if(vars[e] == null)
+            {
+                continue;
+            }
+            boolean is_lec = e < env.num_lectures;
+            Map<Integer, Integer> preferences = is_lec ? env.lectures[e].preferences : env.tutorials[e - env.num_lectures].preferences;
+            int[] costs = new int[domains[e].length];
+            int min = Integer.MAX_VALUE;
+            for(int i = 0; i < domains[e].length; i++)
+            {
+                int hash = is_lec ? env.lec_slots_array[domains[e][i]].lec_hash : env.tut_slots_array[domains[e][i]].tut_hash;
+                for(Map.Entry<Integer, Integer> pref: preferences.entrySet())
+                {
+                    if(pref.getKey() != hash)
+                    {
+                        costs[i] += pref.getValue() * env.w_pref;
+                    }
+                }
+                min = Math.min(min, costs[i]);
+            }
+
+            offset += min;
+            for(int i = 0; i < domains[e].length; i++)
+            {
+                AddObjective(PbSolver.Pos(vars[e][i]), costs[i] - min);
+            }
+        }
+    }
+
+    /**
+     * the penalty of every pair that does not overlap
+     */
+    private void EncodePairs()
+    {
+        int weight = env.pen_notpaired * env.w_pair;
+        if(weight <= 0)
+        {
+            return;
+        }
+
+        for(Pair pair: env.pairs)
+        {
+            int a = pair.is_lec1 ? pair.id1 : env.num_lectures + pair.id1;
+            int b = pair.is_lec2 ? pair.id2 : env.num_lectures + pair.id2;
+            if(vars[a] == null || vars[b] == null)
+            {
+                continue;
+            }
+
+            // p -> for the slot of a, b is in an overlapping slot
+            int p = NewVar();
+            AddObjective(PbSolver.Neg(p), weight);
+            for(int i = 0; i < domains[a].length; i++)
+            {
+                ArrayList<Integer> clause = new ArrayList<Integer>();
+                clause.add(PbSolver.Neg(p));
+                clause.add(PbSolver.Neg(vars[a][i]));
+                for(int k = 0; k < domains[b].length; k++)
+                {
+                    if(Overlap(a, domains[a][i], b, domains[b][k]))
+                    {
+                        clause.add(PbSolver.Pos(vars[b][k]));
+                    }
+                }
+                clauses.add(ToArray(clause));
+            }
+        }
+    }
+
+    /**
+     * the penalty of every two lectures of a section in the same slot
+     */
+    private void EncodeSections()
+    {
+        int weight = env.pen_section * env.w_secdiff;
+        if(weight <= 0)
+        {
+            return;
+        }
+
+        for(Integer[] section: env.sections.values())
+        {
+            for(int i = 0; i < section.length; i++)
+            {
+                for(int j = i + 1; j < section.length; j++)
+                {
+                    int a = section[i];
+                    int b = section[j];
+                    for(int k = 0; vars[a] != null && vars[b] != null && k < domains[a].length; k++)
+                    {
+                        int var_b = Var(b, domains[a][k]);
+                        if(var_b == -1)
+                        {
+                            continue;
+                        }
+                        // x(a, s) and x(b, s) -> y
+                        int y = NewVar();
+                        AddObjective(PbSolver.Pos(y), weight);
+                        clauses.add(new int[]{PbSolver.Neg(vars[a][k]), PbSolver.Neg(var_b), PbSolver.Pos(y)});
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * the penalty of every lecture/tutorial a slot is missing to reach its min
+     */
+    private void EncodeMinFilled()
+    {
+        for(int s = 0; s < env.lec_slots_array.length; s++)
+        {
+            EncodeMin(0, env.num_lectures, s, env.lec_slots_array[s].min, env.pen_lecturemin * env.w_minfilled);
+        }
+        for(int s = 0; s < env.tut_slots_array.length; s++)
+        {
+            EncodeMin(env.num_lectures, env.num_tutorials, s, env.tut_slots_array[s].min, env.pen_tutorialmin * env.w_minfilled);
+        }
+    }
+
+    /**
+     * encode the min of one slot
+     * @param first the first entity id of the slot type
+     * @param count the number of entities of the slot type
+     * @param slot the slot id
+     * @param min the min of the slot
+     * @param weight the penalty of every missing lecture/tutorial
+     */
+    private void EncodeMin(int first, int count, int slot, int min, int weight)
+    {
+        if(min <= 0 || weight <= 0)
+        {
+            return;
+        }
+
+        ArrayList<Integer> not_in_slot = new ArrayList<Integer>();
+        for(int i = first; i < first + count; i++)
+        {
+            int var = Var(i, slot);
+            if(var != -1)
+            {
+                not_in_slot.add(PbSolver.Neg(var));
+            }
+        }
+
+        // the slot can never get more than the lectures/tutorials that can use it
+        int n = not_in_slot.size();
+        if(min > n)
+        {
+            offset += (min - n) * weight;
+        }
+
+        // f(k) -> at least k in the slot, that is: (not in the slot) + k * f(k) <= n
+        int previous = -1;
+        for(int k = 1; k <= Math.min(min, n); k++)
+        {
+            int f = NewVar();
+            AddObjective(PbSolver.Neg(f), weight);
+            int[] lits = new int[n + 1];
+            int[] weights = new int[n + 1];
+            for(int i = 0; i < n; i++)
+            {
+                lits[i] = not_in_slot.get(i);
+                weights[i] = 1;
+            }
+            lits[n] = PbSolver.Pos(f);
+            weights[n] = k;
+            at_most_lits.add(lits);
+            at_most_weights.add(weights);
+            at_most_bounds.add(n);
+
+            // f(k) -> f(k - 1), so the solver does not try the same count in different ways
+            if(previous != -1)
+            {
+                clauses.add(new int[]{PbSolver.Neg(f), PbSolver.Pos(previous)});
+            }
+            previous = f;
+        }
+    }
+
+    // models ##############################################################################################################################
+
+    /**
+     * add the model to a solver
+     * @param solver the solver, it must not have any vars yet
+     * @return the id of the at-most constraint on the objective, its bound is the best score minus the offset
+     */
+    public int Load(PbSolver solver)
+    {
+        for(int i = 0; i < num_vars; i++)
+        {
+            solver.NewVar();
+        }
+        for(int[] clause: clauses)
+        {
+            solver.AddClause(clause);
+        }
+        for(int i = 0; i < at_most_lits.size(); i++)
+        {
+            solver.AddAtMost(at_most_lits.get(i), at_most_weights.get(i), at_most_bounds.get(i));
+        }
+        return solver.AddAtMost(ToArray(objective_lits), ToArray(objective_weights), Integer.MAX_VALUE);
+    }
+
+    /**
+     * get the schedule of a model
+     * @param model index is the var, value is the value of the var
+     * @return the starting state with the slot of every lecture/tutorial of the model assigned
+     */
+    public Problem Decode(boolean[] model)
+    {
+        Problem pr = new Problem(s0);
+        for(int e = 0; e < vars.length; e++)
+        {
+            if(vars[e] == null)
+            {
+                continue;
+            }
+            boolean is_lec = e < env.num_lectures;
+            int id = is_lec ? e : e - env.num_lectures;
+            if((is_lec ? pr.lectures[id] : pr.tutorials[id]) != -1)
+            {
+                continue;
+            }
+            for(int i = 0; i < vars[e].length; i++)
+            {
+                if(model[vars[e][i]])
+                {
+                    if(is_lec)
+                    {
+                        pr.AssignLecture(id, domains[e][i]);
+                    }
+                    else
+                    {
+                        pr.AssignTutorial(id, domains[e][i]);
+                    }
+                    pr.depth++;
+                    break;
+                }
+            }
+        }
+        return pr;
+    }
+
+    /**
+     * the model of a schedule, without the auxiliary variables
+     * @param pr the schedule
+     * @return index is the var, value is true if the lecture/tutorial of the var is in its slot
+     */
+    public boolean[] Encode(Problem pr)
+    {
+        boolean[] model = new boolean[num_vars];
+        for(int e = 0; e < vars.length; e++)
+        {
+            int slot = (e < env.num_lectures) ? pr.lectures[e] : pr.tutorials[e - env.num_lectures];
+            int var = Var(e, slot);
+            if(var != -1)
+            {
+                model[var] = true;
+            }
+        }
+        return model;
+    }
+
+    // helpers #############################################################################################################################
+
+    /**
+     * add a var
+     * @return the new var
+     */
+    private int NewVar()
+    {
+        return num_vars++;
+    }
+
+    /**
+     * the var of a lecture/tutorial in a slot
+     * @param entity the entity id
+     * @param slot the slot id
+     * @return the var, or -1 if the slot is not in the domain of the lecture/tutorial
+     */
+    int Var(int entity, int slot)
+    {
+        if(domains[entity] == null || slot == -1)
+        {
+            return -1;
+        }
+        for(int i = 0; i < domains[entity].length; i++)
+        {
+            if(domains[entity][i] == slot)
+            {
+                return vars[entity][i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * do two lectures/tutorials in two slots overlap
+     * @param a the first entity id
+     * @param slot_a the slot of the first entity
+     * @param b the second entity id
+     * @param slot_b the slot of the second entity
+     * @return true if the slots overlap in either of the overlap maps
+     */
+    private boolean Overlap(int a, int slot_a, int b, int slot_b)
+    {
+        boolean is_lec_a = a < env.num_lectures;
+        boolean is_lec_b = b < env.num_lectures;
+        if(Functions.SameTime(slot_a, is_lec_a, slot_b, is_lec_b, env))
+        {
+            return true;
+        }
+        if(is_lec_a == is_lec_b)
+        {
+            return false;
+        }
+
+        // ValidLectureSlots uses the tutorial to lecture map, so check that one as well
+        int lec_slot = is_lec_a ? slot_a : slot_b;
+        int tut_slot = is_lec_a ? slot_b : slot_a;
+        for(int i = 0; i < env.tutslot_lecslot[tut_slot].length; i++)
+        {
+            if(env.tutslot_lecslot[tut_slot][i] == lec_slot)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * add a capacity constraint if it can be violated
+     * @param lits the literals of the lectures/tutorials that can use the slot
+     * @param capacity the capacity
+     */
+    private void AddCapacity(ArrayList<Integer> lits, int capacity)
+    {
+        if(lits.size() > capacity)
+        {
+            AddAtMost(ToArray(lits), capacity);
+        }
+    }
+
+    /**
+     * add an at-most constraint where every literal has weight 1
+     * @param lits the literals
+     * @param bound the number of literals that may be true
+     */
+    private void AddAtMost(int[] lits, int bound)
+    {
+        int[] weights = new int[lits.length];
+        for(int i = 0; i < weights.length; i++)
+        {
+            weights[i] = 1;
+        }
+        at_most_lits.add(lits);
+        at_most_weights.add(weights);
+        at_most_bounds.add(bound);
+    }
+
+    /**
+     * add a term to the objective
+     * @param lit the literal
+     * @param weight the penalty paid when the literal is true
+     */
+    private void AddObjective(int lit, int weight)
+    {
+        if(weight > 0)
+        {
+            objective_lits.add(lit);
+            objective_weights.add(weight);
+        }
+    }
+
+    /**
+     * the literals of vars
+     * @param var_ids the vars
+     * @param positive true for the positive literals, false for the negative ones
+     * @return the literals
+     */
+    private static int[] Lits(int[] var_ids, boolean positive)
+    {
+        int[] lits = new int[var_ids.length];
+        for(int i = 0; i < lits.length; i++)
+        {
+            lits[i] = positive ? PbSolver.Pos(var_ids[i]) : PbSolver.Neg(var_ids[i]);
+        }
+        return lits;
+    }
+
+    /**
+     * convert a list to an array
+     * @param list the list
+     * @return the array
+     */
+    private static int[] ToArray(ArrayList<Integer> list)
+    {
+        int[] array = new int[list.size()];
+        for(int i = 0; i < array.length; i++)
+        {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,926 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * PbSolver is a small conflict driven clause learning (CDCL) solver for clauses and pseudo-Boolean at-most constraints
+ * (the sum of weight * literal is at most a bound). It has what the MaxSatSearch needs: two watched literals for the
+ * clauses, counter propagation with lazily built explanations for the at-most constraints, first UIP learning, VSIDS
+ * with phase saving, Luby restarts and a learned clause database that is halved when it grows too large.
+ * Literals are 2 * var for the positive and 2 * var + 1 for the negative literal
+ */
+public class PbSolver
+{
+    // the results of Solve
+    static final int SAT = 1;
+    static final int UNSAT = 0;
+    static final int UNKNOWN = -1;
+    // returned by Search when the conflict budget of a restart runs out
+    private static final int RESTART = -2;
+
+    // the number of conflicts of the first restart, the next ones follow the Luby sequence
+    static final int RESTART_UNIT = 100;
+    // the activity decay of the variables and the learned clauses
+    static final double VAR_DECAY = 0.95;
+    static final double CLAUSE_DECAY = 0.999;
+
+    // false once the constraints are unsatisfiable at level 0
+    boolean ok = true;
+    // the number of variables
+    int num_vars = 0;
+    // the number of conflicts so far
+    long conflicts = 0;
+
+    // index is the var, value is 1 for true, -1 for false and 0 for unassigned
+    private int[] value = new int[16];
+    // index is the var, value is the decision level it was assigned at
+    private int[] level = new int[16];
+    // index is the var, value is its position in the trail
+    private int[] trail_index = new int[16];
+    // index is the var, value is the clause that propagated it (null for decisions and at-most propagations)
+    private Clause[] reason = new Clause[16];
+    // index is the var, value is the at-most constraint that propagated it (-1 if none)
+    private int[] reason_at_most = new int[16];
+    // index is the var, value is its VSIDS activity
+    private double[] activity = new double[16];
+    // index is the var, value is the value it had last (phase saving)
+    private boolean[] phase = new boolean[16];
+    // index is the var, used by Analyse
+    private boolean[] seen = new boolean[16];
+
+    // the assigned literals in assignment order
+    private int[] trail = new int[16];
+    private int trail_size = 0;
+    // the next literal of the trail to propagate
+    private int qhead = 0;
+    // index is the decision level, value is the trail size when the level started
+    private ArrayList<Integer> trail_lim = new ArrayList<Integer>();
+
+    // index is the literal, value is the clauses that watch it
+    private ArrayList<ArrayList<Clause>> watches = new ArrayList<ArrayList<Clause>>();
+    // index is the literal, value is the {constraint, weight} of every at-most constraint it is in
+    private ArrayList<ArrayList<int[]>> occurs = new ArrayList<ArrayList<int[]>>();
+    // the at-most constraints
+    private ArrayList<AtMost> at_most = new ArrayList<AtMost>();
+    // the learned clauses
+    private ArrayList<Clause> learnts = new ArrayList<Clause>();
+    // the number of learned clauses before the database is reduced
+    private double max_learnts = 4000;
+
+    // the VSIDS increments
+    private double var_inc = 1;
+    private double clause_inc = 1;
+
+    // the binary max heap of the unassigned vars on activity
+    private int[] heap = new int[16];
+    private int heap_size = 0;
+    // index is the var, value is its position in the heap (-1 if it is not in the heap)
+    private int[] heap_index = new int[16];
+
+    /**
+     * the positive literal of a var
+     * @param var the var
+     * @return the literal
+     */
+    static int Pos(int var)
+    {
+        return 2 * var;
+    }
+
+    /**
+     * the negative literal of a var
+     * @param var the var
+     * @return the literal
+     */
+    static int Neg(int var)
+    {
+        return 2 * var + 1;
+    }
+
+    /**
+     * the negation of a literal
+     * @param lit the literal
+     * @return the negated literal
+     */
+    static int Not(int lit)
+    {
+        return lit ^ 1;
+    }
+
+    /**
+     * add a var
+     * @return the new var
+     */
+    public int NewVar()
+    {
+        if(num_vars == value.length)
+        {
+            Grow();
+        }
+        int var = num_vars++;
+        reason_at_most[var] = -1;
+        heap_index[var] = -1;
+        watches.add(new ArrayList<Clause>());
+        watches.add(new ArrayList<Clause>());
+        occurs.add(new ArrayList<int[]>());
+        occurs.add(new ArrayList<int[]>());
+        HeapInsert(var);
+        return var;
+    }
+
+    /**
+     * double the size of the arrays indexed by var
+     */
+    private void Grow()
+    {
+        int size = value.length * 2;
+        value = java.util.Arrays.copyOf(value, size);
+        level = java.util.Arrays.copyOf(level, size);
+        trail_index = java.util.Arrays.copyOf(trail_index, size);
+        reason = java.util.Arrays.copyOf(reason, size);
+        reason_at_most = java.util.Arrays.copyOf(reason_at_most, size);
+        activity = java.util.Arrays.copyOf(activity, size);
+        phase = java.util.Arrays.copyOf(phase, size);
+        seen = java.util.Arrays.copyOf(seen, size);
+        trail = java.util.Arrays.copyOf(trail, size);
+        heap = java.util.Arrays.copyOf(heap, size);
+        heap_index = java.util.Arrays.copyOf(heap_index, size);
+    }
+
+    /**
+     * the value of a var in the last model
+     * @param var the var
+     * @return true if the var is true
+     */
+    public boolean Value(int var)
+    {
+        return value[var] > 0;
+    }
+
+    /**
+     * set the value a var is tried with first, until phase saving replaces it
+     * @param var the var
+     * @param positive true to try the var as true first
+     */
+    public void SetPhase(int var, boolean positive)
+    {
+        phase[var] = positive;
+    }
+
+    /**
+     * the last model
+     * @return index is the var, value is true if the var is true
+     */
+    public boolean[] Model()
+    {
+        boolean[] model = new boolean[num_vars];
+        for(int i = 0; i < num_vars; i++)
+        {
+            model[i] = value[i] > 0;
+        }
+        return model;
+    }
+
+    /**
+     * the value of a literal
+     * @param lit the literal
+     * @return 1 for true, -1 for false and 0 for unassigned
+     */
+    private int LitValue(int lit)
+    {
+        int v = value[lit >> 1];
+        return ((lit & 1) == 0) ? v : -v;
+    }
+
+    /**
+     * add a clause, this is only allowed between calls of Solve
+     * @param lits the literals of the clause
+     * @return false if the constraints are now unsatisfiable
+     */
+    public boolean AddClause(int[] lits)
+    {
+        if(!ok)
+        {
+            return false;
+        }
+        Backtrack(0);
+
+        // drop the literals that are false at level 0, a true literal satisfies the clause
+        ArrayList<Integer> kept = new ArrayList<Integer>();
+        for(int i = 0; i < lits.length; i++)
+        {
+            int lit_value = LitValue(lits[i]);
+            if(lit_value > 0 || kept.contains(Not(lits[i])))
+            {
+                return true;
+            }
+            if(lit_value == 0 && !kept.contains(lits[i]))
+            {
+                kept.add(lits[i]);
+            }
+        }
+
+        if(kept.isEmpty())
+        {
+            ok = false;
+            return false;
+        }
+        if(kept.size() == 1)
+        {
+            Assign(kept.get(0), null, -1);
+            ok = (Propagate() == null);
+            return ok;
+        }
+
+        int[] clause_lits = new int[kept.size()];
+        for(int i = 0; i < clause_lits.length; i++)
+        {
+            clause_lits[i] = kept.get(i);
+        }
+        Clause clause = new Clause(clause_lits, false);
+        watches.get(clause_lits[0]).add(clause);
+        watches.get(clause_lits[1]).add(clause);
+        return true;
+    }
+
+    /**
+     * add an at-most constraint, this is only allowed between calls of Solve
+     * @param lits the literals
+     * @param weights the positive weight of each literal
+     * @param bound the sum of the weights of the true literals has to be at most this
+     * @return the id of the constraint (for SetBound)
+     */
+    public int AddAtMost(int[] lits, int[] weights, int bound)
+    {
+        Backtrack(0);
+
+        // the literals are sorted on weight so propagation can stop at the first weight that fits in the slack
+        Integer[] order = new Integer[lits.length];
+        for(int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+        java.util.Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b)
+            {
+                return Integer.compare(weights[b], weights[a]);
+            }
+        });
+
+        AtMost constraint = new AtMost();
+        constraint.lits = new int[lits.length];
+        constraint.weights = new int[lits.length];
+        for(int i = 0; i < order.length; i++)
+        {
+            constraint.lits[i] = lits[order[i]];
+            constraint.weights[i] = weights[order[i]];
+            if(LitValue(constraint.lits[i]) > 0)
+            {
+                constraint.sum_true += constraint.weights[i];
+            }
+        }
+        constraint.bound = bound;
+
+        int id = at_most.size();
+        at_most.add(constraint);
+        for(int i = 0; i < constraint.lits.length; i++)
+        {
+            occurs.get(constraint.lits[i]).add(new int[]{id, constraint.weights[i]});
+        }
+
+        if(ok)
+        {
+            ok = CheckAtMost(id) && Propagate() == null;
+        }
+        return id;
+    }
+
+    /**
+     * lower the bound of an at-most constraint, this is only allowed between calls of Solve
+     * the learned clauses stay valid since they follow from the looser bound
+     * @param id the id of the constraint
+     * @param bound the new bound
+     * @return false if the constraints are now unsatisfiable
+     */
+    public boolean SetBound(int id, int bound)
+    {
+        Backtrack(0);
+        at_most.get(id).bound = bound;
+        if(ok)
+        {
+            ok = CheckAtMost(id) && Propagate() == null;
+        }
+        return ok;
+    }
+
+    /**
+     * search for a model of the constraints
+     * @param env the environment that says when to stop
+     * @param end_time the System.nanoTime at which the search stops
+     * @return SAT (the model is kept until the next change), UNSAT or UNKNOWN if the search was stopped
+     */
+    public int Solve(Environment env, long end_time)
+    {
+        if(!ok)
+        {
+            return UNSAT;
+        }
+        Backtrack(0);
+        if(Propagate() != null)
+        {
+            ok = false;
+            return UNSAT;
+        }
+
+        for(int run = 1; ; run++)
+        {
+            int status = Search(RESTART_UNIT * RestartSearch.Luby(run), env, end_time);
+            if(status != RESTART)
+            {
+                return status;
+            }
+        }
+    }
+
+    /**
+     * run the CDCL loop until a model is found, the constraints are proven unsatisfiable or a budget runs out
+     * @param budget the number of conflicts before the search restarts
+     * @param env the environment that says when to stop
+     * @param end_time the System.nanoTime at which the search stops
+     * @return SAT, UNSAT, UNKNOWN or RESTART
+     */
+    private int Search(long budget, Environment env, long end_time)
+    {
+        long run_conflicts = 0;
+        while(true)
+        {
+            int[] conflict = Propagate();
+            if(conflict != null)
+            {
+                conflicts++;
+                run_conflicts++;
+                if(trail_lim.size() == 0)
+                {
+                    ok = false;
+                    return UNSAT;
+                }
+
+                int[] backtrack_level = new int[1];
+                int[] learnt = Analyse(conflict, backtrack_level);
+                Backtrack(backtrack_level[0]);
+                if(learnt.length == 1)
+                {
+                    Assign(learnt[0], null, -1);
+                }
+                else
+                {
+                    Clause clause = new Clause(learnt, true);
+                    learnts.add(clause);
+                    watches.get(learnt[0]).add(clause);
+                    watches.get(learnt[1]).add(clause);
+                    BumpClause(clause);
+                    Assign(learnt[0], clause, -1);
+                }
+                var_inc /= VAR_DECAY;
+                clause_inc /= CLAUSE_DECAY;
+                continue;
+            }
+
+            if(run_conflicts >= budget)
+            {
+                Backtrack(0);
+                return RESTART;
+            }
+            if(env.Stopped() || System.nanoTime() - end_time > 0)
+            {
+                Backtrack(0);
+                return UNKNOWN;
+            }
+            if(learnts.size() >= max_learnts + trail_size)
+            {
+                ReduceLearnts();
+            }
+
+            int var = PickBranchVar();
+            if(var == -1)
+            {
+                // every var is assigned, the trail is a model
+                return SAT;
+            }
+            trail_lim.add(trail_size);
+            Assign(phase[var] ? Pos(var) : Neg(var), null, -1);
+        }
+    }
+
+    /**
+     * make a literal true
+     * @param lit the literal
+     * @param clause the clause that propagated it (null if none)
+     * @param constraint the at-most constraint that propagated it (-1 if none)
+     */
+    private void Assign(int lit, Clause clause, int constraint)
+    {
+        int var = lit >> 1;
+        value[var] = ((lit & 1) == 0) ? 1 : -1;
+        level[var] = trail_lim.size();
+        trail_index[var] = trail_size;
+        reason[var] = clause;
+        reason_at_most[var] = constraint;
+        trail[trail_size++] = lit;
+
+        ArrayList<int[]> lit_occurs = occurs.get(lit);
+        for(int i = 0; i < lit_occurs.size(); i++)
+        {
+            at_most.get(lit_occurs.get(i)[0]).sum_true += lit_occurs.get(i)[1];
+        }
+    }
+
+    /**
+     * undo the assignments above a decision level
+     * @param target the decision level to go back to
+     */
+    private void Backtrack(int target)
+    {
+        if(trail_lim.size() <= target)
+        {
+            return;
+        }
+
+        int start = trail_lim.get(target);
+        for(int i = trail_size - 1; i >= start; i--)
+        {
+            int lit = trail[i];
+            int var = lit >> 1;
+            ArrayList<int[]> lit_occurs = occurs.get(lit);
+            for(int j = 0; j < lit_occurs.size(); j++)
+            {
+                at_most.get(lit_occurs.get(j)[0]).sum_true -= lit_occurs.get(j)[1];
+            }
+            phase[var] = value[var] > 0;
+            value[var] = 0;
+            reason[var] = null;
+            reason_at_most[var] = -1;
+            if(heap_index[var] == -1)
+            {
+                HeapInsert(var);
+            }
+        }
+        trail_size = start;
+        qhead = start;
+        while(trail_lim.size() > target)
+        {
+            trail_lim.remove(trail_lim.size() - 1);
+        }
+    }
+
+    /**
+     * propagate the assignments of the trail that have not been propagated yet
+     * @return null, or the literals of a clause that is false under the assignment
+     */
+    private int[] Propagate()
+    {
+        while(qhead < trail_size)
+        {
+            int lit = trail[qhead++];
+
+            // the at-most constraints that the literal is in
+            ArrayList<int[]> lit_occurs = occurs.get(lit);
+            for(int i = 0; i < lit_occurs.size(); i++)
+            {
+                if(!CheckAtMost(lit_occurs.get(i)[0]))
+                {
+                    return ExplainConflict(lit_occurs.get(i)[0]);
+                }
+            }
+
+            // the clauses that watch the negation of the literal, which is now false
+            int false_lit = Not(lit);
+            ArrayList<Clause> watchers = watches.get(false_lit);
+            int j = 0;
+            for(int i = 0; i < watchers.size(); i++)
+            {
+                Clause clause = watchers.get(i);
+                if(clause.deleted)
+                {
+                    continue;
+                }
+
+                // the false literal goes in position 1
+                int[] lits = clause.lits;
+                if(lits[0] == false_lit)
+                {
+                    lits[0] = lits[1];
+                    lits[1] = false_lit;
+                }
+                if(LitValue(lits[0]) > 0)
+                {
+                    watchers.set(j++, clause);
+                    continue;
+                }
+
+                // look for a new literal to watch
+                boolean moved = false;
+                for(int k = 2; k < lits.length; k++)
+                {
+                    if(LitValue(lits[k]) >= 0)
+                    {
+                        lits[1] = lits[k];
+                        lits[k] = false_lit;
+                        watches.get(lits[1]).add(clause);
+                        moved = true;
+                        break;
+                    }
+                }
+                if(moved)
+                {
+                    continue;
+                }
+
+                // the clause is unit or false
+                watchers.set(j++, clause);
+                if(LitValue(lits[0]) < 0)
+                {
+                    for(i++; i < watchers.size(); i++)
+                    {
+                        watchers.set(j++, watchers.get(i));
+                    }
+                    while(watchers.size() > j)
+                    {
+                        watchers.remove(watchers.size() - 1);
+                    }
+                    return lits;
+                }
+                Assign(lits[0], clause, -1);
+            }
+            while(watchers.size() > j)
+            {
+                watchers.remove(watchers.size() - 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * check an at-most constraint and propagate it
+     * @param id the id of the constraint
+     * @return false if the true literals are already over the bound
+     */
+    private boolean CheckAtMost(int id)
+    {
+        AtMost constraint = at_most.get(id);
+        if(constraint.sum_true > constraint.bound)
+        {
+            return false;
+        }
+
+        // every unassigned literal that does not fit in the slack has to be false
+        int slack = constraint.bound - constraint.sum_true;
+        for(int i = 0; i < constraint.lits.length && constraint.weights[i] > slack; i++)
+        {
+            if(LitValue(constraint.lits[i]) == 0)
+            {
+                Assign(Not(constraint.lits[i]), null, id);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * the clause of a violated at-most constraint
+     * @param id the id of the constraint
+     * @return the negations of its true literals
+     */
+    private int[] ExplainConflict(int id)
+    {
+        AtMost constraint = at_most.get(id);
+        ArrayList<Integer> lits = new ArrayList<Integer>();
+        for(int i = 0; i < constraint.lits.length; i++)
+        {
+            if(LitValue(constraint.lits[i]) > 0)
+            {
+                lits.add(Not(constraint.lits[i]));
+            }
+        }
+        return ToArray(lits);
+    }
+
+    /**
+     * the literals that made a propagated var false or true, without the var itself
+     * @param var the var
+     * @return the false literals of its reason
+     */
+    private int[] ReasonLits(int var)
+    {
+        if(reason[var] != null)
+        {
+            return reason[var].lits;
+        }
+
+        // the literals of the at-most constraint that were true before the var was propagated
+        AtMost constraint = at_most.get(reason_at_most[var]);
+        ArrayList<Integer> lits = new ArrayList<Integer>();
+        for(int i = 0; i < constraint.lits.length; i++)
+        {
+            int other = constraint.lits[i] >> 1;
+            if(LitValue(constraint.lits[i]) > 0 && trail_index[other] < trail_index[var])
+            {
+                lits.add(Not(constraint.lits[i]));
+            }
+        }
+        return ToArray(lits);
+    }
+
+    /**
+     * find the first UIP clause of a conflict
+     * @param conflict the literals of the false clause
+     * @param backtrack_level returns the level to go back to in index 0
+     * @return the learned clause, its first literal is the UIP
+     */
+    private int[] Analyse(int[] conflict, int[] backtrack_level)
+    {
+        ArrayList<Integer> learnt = new ArrayList<Integer>();
+        learnt.add(-1);
+        int current_level = trail_lim.size();
+        int counter = 0;
+        int index = trail_size - 1;
+        int uip = -1;
+        int[] lits = conflict;
+        int skip = -1;
+
+        while(true)
+        {
+            for(int i = 0; i < lits.length; i++)
+            {
+                int var = lits[i] >> 1;
+                if(var == skip || seen[var] || level[var] == 0)
+                {
+                    continue;
+                }
+                seen[var] = true;
+                BumpVar(var);
+                if(level[var] == current_level)
+                {
+                    counter++;
+                }
+                else
+                {
+                    learnt.add(lits[i]);
+                }
+            }
+
+            // the next literal of the current level on the trail
+            while(!seen[trail[index] >> 1])
+            {
+                index--;
+            }
+            uip = trail[index];
+            index--;
+            skip = uip >> 1;
+            seen[skip] = false;
+            counter--;
+            if(counter == 0)
+            {
+                break;
+            }
+            if(reason[skip] != null)
+            {
+                BumpClause(reason[skip]);
+            }
+            lits = ReasonLits(skip);
+        }
+        learnt.set(0, Not(uip));
+
+        // the second watch is the literal of the highest level, that is where the search goes back to
+        backtrack_level[0] = 0;
+        for(int i = 1; i < learnt.size(); i++)
+        {
+            int var = learnt.get(i) >> 1;
+            seen[var] = false;
+            if(level[var] > backtrack_level[0])
+            {
+                backtrack_level[0] = level[var];
+                Collections.swap(learnt, 1, i);
+            }
+        }
+        return ToArray(learnt);
+    }
+
+    /**
+     * remove the half of the learned clauses with the lowest activity, except the ones that are a reason
+     */
+    private void ReduceLearnts()
+    {
+        learnts.sort(new Comparator<Clause>() {
+            public int compare(Clause a, Clause b)
+            {
+                return Double.compare(a.activity, b.activity);
+            }
+        });
+
+        ArrayList<Clause> kept = new ArrayList<Clause>();
+        int half = learnts.size() / 2;
+        for(int i = 0; i < learnts.size(); i++)
+        {
+            Clause clause = learnts.get(i);
+            int var = clause.lits[0] >> 1;
+            boolean locked = reason[var] == clause && value[var] != 0;
+            if(i < half && !locked && clause.lits.length > 2)
+            {
+                // the watches are dropped the next time they are visited
+                clause.deleted = true;
+            }
+            else
+            {
+                kept.add(clause);
+            }
+        }
+        learnts = kept;
+        max_learnts *= 1.1;
+    }
+
+    /**
+     * pick the unassigned var with the highest activity
+     * @return the var, or -1 if every var is assigned
+     */
+    private int PickBranchVar()
+    {
+        while(heap_size > 0)
+        {
+            int var = HeapPop();
+            if(value[var] == 0)
+            {
+                return var;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * increase the activity of a var
+     * @param var the var
+     */
+    private void BumpVar(int var)
+    {
+        activity[var] += var_inc;
+        if(activity[var] > 1e100)
+        {
+            for(int i = 0; i < num_vars; i++)
+            {
+                activity[i] *= 1e-100;
+            }
+            var_inc *= 1e-100;
+        }
+        if(heap_index[var] != -1)
+        {
+            HeapUp(heap_index[var]);
+        }
+    }
+
+    /**
+     * increase the activity of a learned clause
+     * @param clause the clause
+     */
+    private void BumpClause(Clause clause)
+    {
+        if(!clause.learnt)
+        {
+            return;
+        }
+        clause.activity += clause_inc;
+        if(clause.activity > 1e20)
+        {
+            for(Clause learnt: learnts)
+            {
+                learnt.activity *= 1e-20;
+            }
+            clause_inc *= 1e-20;
+        }
+    }
+
+    // heap ####################################################################################################################
+
+    /**
+     * add a var to the heap
+     * @param var the var
+     */
+    private void HeapInsert(int var)
+    {
+        heap[heap_size] = var;
+        heap_index[var] = heap_size;
+        heap_size++;
+        HeapUp(heap_size - 1);
+    }
+
+    /**
+     * remove the var with the highest activity from the heap
+     * @return the var
+     */
+    private int HeapPop()
+    {
+        int top = heap[0];
+        heap_index[top] = -1;
+        heap_size--;
+        if(heap_size > 0)
+        {
+            heap[0] = heap[heap_size];
+            heap_index[heap[0]] = 0;
+            HeapDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * move a var up the heap until its parent has a higher activity
+     * @param i the position of the var
+     */
+    private void HeapUp(int i)
+    {
+        int var = heap[i];
+        while(i > 0 && activity[heap[(i - 1) / 2]] < activity[var])
+        {
+            heap[i] = heap[(i - 1) / 2];
+            heap_index[heap[i]] = i;
+            i = (i - 1) / 2;
+        }
+        heap[i] = var;
+        heap_index[var] = i;
+    }
+
+    /**
+     * move a var down the heap until its children have a lower activity
+     * @param i the position of the var
+     */
+    private void HeapDown(int i)
+    {
+        int var = heap[i];
+        while(2 * i + 1 < heap_size)
+        {
+            int child = 2 * i + 1;
+            if(child + 1 < heap_size && activity[heap[child + 1]] > activity[heap[child]])
+            {
+                child++;
+            }
+            if(activity[heap[child]] <= activity[var])
+            {
+                break;
+            }
+            heap[i] = heap[child];
+            heap_index[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = var;
+        heap_index[var] = i;
+    }
+
+    /**
+     * convert a list of literals to an array
+     * @param lits the list
+     * @return the array
+     */
+    private static int[] ToArray(ArrayList<Integer> lits)
+    {
+        int[] array = new int[lits.size()];
+        for(int i = 0; i < array.length; i++)
+        {
+            array[i] = lits.get(i);
+        }
+        return array;
+    }
+}
+
+/**
+ * Clause is a clause of the PbSolver, the first two literals are watched
+ */
+class Clause
+{
+    // the literals
+    int[] lits;
+    // true if the clause was learned from a conflict
+    boolean learnt;
+    // true once the clause has been removed from the learned clause database
+    boolean deleted = false;
+    // the activity of a learned clause
+    double activity = 0;
+
+    public Clause(int[] _lits, boolean _learnt)
+    {
+        lits = _lits;
+        learnt = _learnt;
+    }
+}
+
+/**
+ * AtMost is an at-most constraint of the PbSolver, the sum of the weights of the true literals is at most the bound
+ */
+class AtMost
+{
+    // the literals, sorted on weight from high to low
+    int[] lits;
+    // the weight of each literal
+    int[] weights;
+    // the bound
+    int bound;
+    // the sum of the weights of the literals that are true now
+    int sum_true = 0;
+}
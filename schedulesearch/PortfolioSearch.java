@@ -0,0 +1,224 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PortfolioSearch races several search engines on the same problem, each one in its own thread
+ * Every engine has its own copy of the environment, but a new best solution of any engine is passed on to all the
+ * others right away, so the exact searches prune with it and the local searches restart from it. The race ends when
+ * the time limit is reached, when every engine has finished, or when a finished engine has proven that the best
+ * solution is optimal
+ */
+public class PortfolioSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the time limit in milliseconds
+    long time_limit;
+
+    // the names of the engines
+    ArrayList<String> names = new ArrayList<String>();
+    // the engines
+    ArrayList<SearchEngine> engines = new ArrayList<SearchEngine>();
+    // the environments of the engines
+    ArrayList<Environment> engine_envs = new ArrayList<Environment>();
+
+    /**
+     * initialization function for the PortfolioSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _time_limit the time limit in milliseconds
+     */
+    public PortfolioSearch(Environment _env, Problem _s0, long _time_limit)
+    {
+        env = _env;
+        s0 = _s0;
+        time_limit = _time_limit;
+    }
+
+    /**
+     * create the environment for an engine, its new best solutions are shared with the other engines
+     * @return the environment
+     */
+    public Environment NewEnvironment()
+    {
+        Environment engine_env = env.Copy();
+        engine_env.listener = new PortfolioListener(this);
+        return engine_env;
+    }
+
+    /**
+     * add an engine to the portfolio
+     * @param name the name of the engine (for printing)
+     * @param engine the engine
+     * @param engine_env the environment of the engine (made with NewEnvironment)
+     */
+    public void AddEngine(String name, SearchEngine engine, Environment engine_env)
+    {
+        names.add(name);
+        engines.add(engine);
+        engine_envs.add(engine_env);
+    }
+
+    /**
+     * run every engine in parallel until the time limit or until the best solution is proven optimal
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // give every engine the greedy schedule
+        // start every engine in its own thread
+        // whenever an engine finishes:
+        //      its lower bound is a lower bound of the problem
+        //      if the lower bound reaches the best score then the best solution is optimal, so stop
+        // stop the remaining engines at the time limit
+        // the lower bound is the best lower bound of any engine
+
+        if(env.warm_start && env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+        if(env.best_sol != null)
+        {
+            for(int i = 0; i < engine_envs.size(); i++)
+            {
+                engine_envs.get(i).ShareBest(env.best_sol, env.best_score);
+            }
+        }
+
+        System.out.println(String.format("Portfolio: racing %s", String.join(", ", names)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(engines.size());
+        CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(executor);
+        for(int i = 0; i < engines.size(); i++)
+        {
+            int index = i;
+            completion.submit(() -> {
+                engines.get(index).RunSearch(new Problem());
+                return index;
+            });
+        }
+        executor.shutdown();
+
+        // the portfolio stops at its own time limit or at the hard limit of the run, whichever comes first
+        long deadline = System.nanoTime() + Math.min(time_limit * 1000000, env.deadline.RemainingNanos());
+        int lower_bound = 0;
+        for(int finished = 0; finished < engines.size(); finished++)
+        {
+            Future<Integer> result;
+            try{
+                result = completion.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }catch(InterruptedException e)
+            {
+                result = null;
+            }
+            if(result == null)
+            {
+                System.out.println("Portfolio: time limit reached");
+                break;
+            }
+
+            int index;
+            try{
+                index = result.get();
+            }catch(InterruptedException | ExecutionException e)
+            {
+                System.out.println("Portfolio: an engine failed: " + e.getMessage());
+                continue;
+            }
+
+            lower_bound = Math.max(lower_bound, engine_envs.get(index).lower_bound);
+            System.out.println(String.format("Portfolio: %s finished, best %d, lower bound %d", names.get(index), env.best_score, lower_bound));
+            if(env.best_sol != null && lower_bound >= env.best_score)
+            {
+                System.out.println("Portfolio: the best solution is optimal");
+                break;
+            }
+        }
+
+        // stop the engines that are still running and wait for them
+        env.stop.set(true);
+        try{
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }catch(InterruptedException e)
+        {
+            System.out.println("Portfolio: interrupted while stopping the engines");
+        }
+
+        // the lower bound of a stopped engine is still valid
+        for(int i = 0; i < engine_envs.size(); i++)
+        {
+            lower_bound = Math.max(lower_bound, engine_envs.get(i).lower_bound);
+        }
+
+        if(env.best_sol == null)
+        {
+            return false;
+        }
+        env.lower_bound = Math.min(lower_bound, env.best_score);
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+
+    /**
+     * record a new best solution of an engine and pass it on to the other engines
+     * @param pr the new best solution
+     * @param score the score of the new best solution
+     */
+    void ShareIncumbent(Problem pr, int score)
+    {
+        // the node count of the new best solution is the total of all the engines
+        int iterations = 0;
+        for(int i = 0; i < engine_envs.size(); i++)
+        {
+            iterations += engine_envs.get(i).iterations;
+        }
+        env.iterations = iterations;
+
+        env.UpdateBest(pr, score);
+        for(int i = 0; i < engine_envs.size(); i++)
+        {
+            engine_envs.get(i).ShareBest(pr, score);
+        }
+    }
+}
+
+/**
+ * PortfolioListener passes the new best solutions of an engine on to the portfolio
+ */
+class PortfolioListener implements IncumbentListener
+{
+    // the portfolio that shares the solutions
+    private PortfolioSearch portfolio;
+
+    public PortfolioListener(PortfolioSearch _portfolio)
+    {
+        portfolio = _portfolio;
+    }
+
+    /**
+     * pass the new best solution of the engine on to the portfolio
+     * @param pr the new best solution
+     * @param score the score of the new best solution
+     * @param nodes the number of problems the engine has expanded so far
+     */
+    public void NewIncumbent(Problem pr, int score, int nodes)
+    {
+        portfolio.ShareIncumbent(pr, score);
+    }
+}
@@ -0,0 +1,453 @@
+package schedulesearch;
+import java.util.HashMap;
+
+/**
+ * Presolve reduces a parsed problem before the search is run
+ * It fixes every lecture/tutorial that only has one valid slot (propagating each fix until nothing changes)
+ * and then removes the slots that no lecture/tutorial can ever be assigned to.
+ * The search runs on the reduced environment and MapBack converts its result to the original slot ids
+ */
+public class Presolve
+{
+    // the reduced environment to run the search on
+    Environment reduced_env;
+    // the reduced starting state to run the search on
+    Problem reduced_s0;
+
+    // index is the reduced lecture slot id, value is the original lecture slot id
+    int[] lec_slot_map;
+    // index is the reduced tutorial slot id, value is the original tutorial slot id
+    int[] tut_slot_map;
+    // index is the original lecture slot id, value is the reduced lecture slot id (-1 if the slot was removed)
+    int[] lec_inverse;
+    // index is the original tutorial slot id, value is the reduced tutorial slot id (-1 if the slot was removed)
+    int[] tut_inverse;
+
+    // the min filled penalty of the removed slots, the score of a schedule in the parsed environment is
+    // its score in the reduced environment plus this
+    int score_offset = 0;
+
+    // statistics for printing
+    int fixed_lectures = 0;
+    int fixed_tutorials = 0;
+
+    public Presolve()
+    {
+    }
+
+    /**
+     * Reduce the problem, fills reduced_env and reduced_s0
+     * @param env the parsed environment (this is not modified)
+     * @param s0 the parsed starting state (this is not modified)
+     * @return false if the presolve proved that there is no valid schedule, true otherwise
+     */
+    public boolean Reduce(Environment env, Problem s0)
+    {
+        // sudo code:
+        // repeat until nothing changes:
+        //      find the valid slots of every unassigned lecture/tutorial
+        //      if a lecture/tutorial has no valid slots then there is no solution
+        //      if a lecture/tutorial has exactly one valid slot then assign it
+        // mark the slots that are assigned or valid for at least one unassigned lecture/tutorial
+        // build a new environment without the unmarked slots
+
+        Problem pr = new Problem(s0);
+        // the valid slots of each unassigned lecture/tutorial from the last pass
+        int[][] lec_domains = new int[env.num_lectures][];
+        int[][] tut_domains = new int[env.num_tutorials][];
+
+        // Fix singleton domains #####################################################################################################
+        boolean changed = true;
+        while(changed)
+        {
+            changed = false;
+
+            for(int i = 0; i < env.num_lectures; i++)
+            {
+                if(pr.lectures[i] != -1)
+                {
+                    continue;
+                }
+
+                lec_domains[i] = Functions.ValidLectureSlots(env, i, pr);
+                if(lec_domains[i] == null)
+                {
+                    System.out.println("Presolve: no valid slots for lecture: " + env.lectures[i].name);
+                    return false;
+                }
+                else if(lec_domains[i].length == 1)
+                {
+                    pr.AssignLecture(i, lec_domains[i][0]);
+                    fixed_lectures++;
+                    changed = true;
+                }
+            }
+
+            for(int i = 0; i < env.num_tutorials; i++)
+            {
+                if(pr.tutorials[i] != -1)
+                {
+                    continue;
+                }
+
+                tut_domains[i] = Functions.ValidTutSlots(env, i, pr);
+                if(tut_domains[i] == null)
+                {
+                    System.out.println("Presolve: no valid slots for tutorial: " + env.tutorials[i].name);
+                    return false;
+                }
+                else if(tut_domains[i].length == 1)
+                {
+                    pr.AssignTutorial(i, tut_domains[i][0]);
+                    fixed_tutorials++;
+                    changed = true;
+                }
+            }
+
+            // the domains of the last pass are still a superset of the valid slots, so stopping early is safe
+            if(changed && env.Stopped())
+            {
+                System.out.println("Presolve: time limit reached, stopped fixing singleton domains");
+                break;
+            }
+        }
+
+        // Find the slots that can still be used ####################################################################################
+        boolean[] lec_used = new boolean[env.lec_slots_array.length];
+        boolean[] tut_used = new boolean[env.tut_slots_array.length];
+
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            if(pr.lectures[i] != -1)
+            {
+                lec_used[pr.lectures[i]] = true;
+            }
+            else
+            {
+                for(int j = 0; j < lec_domains[i].length; j++)
+                {
+                    lec_used[lec_domains[i][j]] = true;
+                }
+            }
+        }
+
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            if(pr.tutorials[i] != -1)
+            {
+                tut_used[pr.tutorials[i]] = true;
+            }
+            else
+            {
+                for(int j = 0; j < tut_domains[i].length; j++)
+                {
+                    tut_used[tut_domains[i][j]] = true;
+                }
+            }
+        }
+
+        lec_inverse = new int[env.lec_slots_array.length];
+        tut_inverse = new int[env.tut_slots_array.length];
+        lec_slot_map = BuildSlotMap(lec_used, lec_inverse);
+        tut_slot_map = BuildSlotMap(tut_used, tut_inverse);
+
+        // nothing can be assigned to a removed slot, so its min filled penalty is the same in every schedule
+        for(int i = 0; i < lec_used.length; i++)
+        {
+            score_offset += lec_used[i] ? 0 : env.lec_slots_array[i].min * env.pen_lecturemin * env.w_minfilled;
+        }
+        for(int i = 0; i < tut_used.length; i++)
+        {
+            score_offset += tut_used[i] ? 0 : env.tut_slots_array[i].min * env.pen_tutorialmin * env.w_minfilled;
+        }
+
+        // Build the reduced environment ############################################################################################
+        reduced_env = new Environment();
+        reduced_env.SetWeights(env.w_minfilled, env.w_pref, env.w_pair, env.w_secdiff, env.pen_lecturemin, env.pen_tutorialmin, env.pen_notpaired, env.pen_section, env.max_iterations, 0);
+        reduced_env.time_limit = env.time_limit;
+        reduced_env.deadline = env.deadline;
+        reduced_env.stop = env.stop;
+        reduced_env.dataset_name = env.dataset_name;
+        reduced_env.num_lectures = env.num_lectures;
+        reduced_env.num_tutorials = env.num_tutorials;
+        reduced_env.lectures_5xx = env.lectures_5xx;
+        reduced_env.sections = env.sections;
+        reduced_env.pairs = env.pairs;
+
+        // copy the slots that are kept, giving them their new ids
+        reduced_env.lec_slots_array = new Slot[lec_slot_map.length];
+        reduced_env.lecture_slots = new HashMap<Integer, Slot>();
+        for(int i = 0; i < lec_slot_map.length; i++)
+        {
+            Slot slot = CopySlot(env.lec_slots_array[lec_slot_map[i]], i);
+            reduced_env.lec_slots_array[i] = slot;
+            reduced_env.lecture_slots.put(slot.lec_hash, slot);
+        }
+
+        reduced_env.tut_slots_array = new Slot[tut_slot_map.length];
+        reduced_env.tutorial_slots = new HashMap<Integer, Slot>();
+        for(int i = 0; i < tut_slot_map.length; i++)
+        {
+            Slot slot = CopySlot(env.tut_slots_array[tut_slot_map[i]], i);
+            reduced_env.tut_slots_array[i] = slot;
+            reduced_env.tutorial_slots.put(slot.tut_hash, slot);
+        }
+
+        // re-map the overlap tables
+        reduced_env.tutslot_lecslot = new int[tut_slot_map.length][];
+        for(int i = 0; i < tut_slot_map.length; i++)
+        {
+            reduced_env.tutslot_lecslot[i] = MapIds(env.tutslot_lecslot[tut_slot_map[i]], lec_inverse);
+        }
+
+        reduced_env.lecslot_tutslot = new int[lec_slot_map.length][];
+        for(int i = 0; i < lec_slot_map.length; i++)
+        {
+            reduced_env.lecslot_tutslot[i] = MapIds(env.lecslot_tutslot[lec_slot_map[i]], tut_inverse);
+        }
+
+        // copy the lectures and tutorials with the re-mapped unwanted slots
+        reduced_env.lectures = new Lecture[env.num_lectures];
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            reduced_env.lectures[i] = CopyLecture(env.lectures[i], lec_inverse);
+        }
+
+        reduced_env.tutorials = new Tutorial[env.num_tutorials];
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            reduced_env.tutorials[i] = CopyTutorial(env.tutorials[i], tut_inverse);
+        }
+
+        // Build the reduced starting state #########################################################################################
+        reduced_s0 = new Problem();
+        reduced_s0.SetupProblem(env.num_lectures, env.num_tutorials);
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            if(pr.lectures[i] != -1)
+            {
+                reduced_s0.AssignLecture(i, lec_inverse[pr.lectures[i]]);
+            }
+        }
+
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            if(pr.tutorials[i] != -1)
+            {
+                reduced_s0.AssignTutorial(i, tut_inverse[pr.tutorials[i]]);
+            }
+        }
+
+        System.out.println(String.format("Presolve: fixed %d lectures and %d tutorials, removed %d lecture slots and %d tutorial slots",
+                            fixed_lectures, fixed_tutorials, env.lec_slots_array.length - lec_slot_map.length, env.tut_slots_array.length - tut_slot_map.length));
+        if(score_offset != 0)
+        {
+            System.out.println(String.format("Presolve: the scores of the search are %d below the Eval-value of the input (the min filled penalty of the removed slots)", score_offset));
+        }
+        return true;
+    }
+
+    /**
+     * convert a problem of the reduced environment to a problem of the original environment
+     * @param pr the problem with reduced slot ids
+     * @return a new problem with the original slot ids
+     */
+    public Problem MapBack(Problem pr)
+    {
+        Problem result = new Problem();
+        result.SetupProblem(pr.lectures.length, pr.tutorials.length);
+        result.depth = pr.depth;
+        result.score = pr.score;
+
+        for(int i = 0; i < pr.lectures.length; i++)
+        {
+            if(pr.lectures[i] != -1)
+            {
+                result.AssignLecture(i, lec_slot_map[pr.lectures[i]]);
+            }
+        }
+
+        for(int i = 0; i < pr.tutorials.length; i++)
+        {
+            if(pr.tutorials[i] != -1)
+            {
+                result.AssignTutorial(i, tut_slot_map[pr.tutorials[i]]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * convert a problem of the original environment to a problem of the reduced environment
+     * @param pr the problem with original slot ids
+     * @return a new problem with the reduced slot ids, assignments to removed slots are dropped
+     */
+    public Problem MapForward(Problem pr)
+    {
+        Problem result = new Problem();
+        result.SetupProblem(pr.lectures.length, pr.tutorials.length);
+        result.score = pr.score;
+
+        for(int i = 0; i < pr.lectures.length; i++)
+        {
+            if(pr.lectures[i] != -1 && lec_inverse[pr.lectures[i]] != -1)
+            {
+                result.AssignLecture(i, lec_inverse[pr.lectures[i]]);
+                result.depth++;
+            }
+        }
+
+        for(int i = 0; i < pr.tutorials.length; i++)
+        {
+            if(pr.tutorials[i] != -1 && tut_inverse[pr.tutorials[i]] != -1)
+            {
+                result.AssignTutorial(i, tut_inverse[pr.tutorials[i]]);
+                result.depth++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * build the map from reduced slot ids to original slot ids
+     * @param used index is the original slot id, true if the slot is kept
+     * @param inverse returns the map from original slot ids to reduced slot ids (-1 if removed)
+     * @return the map from reduced slot ids to original slot ids
+     */
+    private static int[] BuildSlotMap(boolean[] used, int[] inverse)
+    {
+        int count = 0;
+        for(int i = 0; i < used.length; i++)
+        {
+            inverse[i] = used[i] ? count++ : -1;
+        }
+
+        int[] map = new int[count];
+        for(int i = 0; i < used.length; i++)
+        {
+            if(used[i])
+            {
+                map[inverse[i]] = i;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * map an array of original slot ids to reduced slot ids, dropping removed slots
+     * @param ids the original slot ids
+     * @param inverse the map from original slot ids to reduced slot ids
+     * @return the reduced slot ids
+     */
+    private static int[] MapIds(int[] ids, int[] inverse)
+    {
+        int count = 0;
+        for(int i = 0; i < ids.length; i++)
+        {
+            if(inverse[ids[i]] != -1)
+            {
+                count++;
+            }
+        }
+
+        int[] result = new int[count];
+        int j = 0;
+        for(int i = 0; i < ids.length; i++)
+        {
+            if(inverse[ids[i]] != -1)
+            {
+                result[j] = inverse[ids[i]];
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * copy a slot and give it a new id
+     * @param slot the slot to copy
+     * @param id the new id
+     * @return the copy
+     */
+    private static Slot CopySlot(Slot slot, int id)
+    {
+        Slot temp = new Slot();
+        temp.id = id;
+        temp.lec_hash = slot.lec_hash;
+        temp.tut_hash = slot.tut_hash;
+        temp.max = slot.max;
+        temp.almax = slot.almax;
+        temp.min = slot.min;
+        temp.is_evng = slot.is_evng;
+        temp.day = slot.day;
+        temp.hour = slot.hour;
+        temp.minute = slot.minute;
+        temp.name = slot.name;
+        return temp;
+    }
+
+    /**
+     * copy a lecture, re-mapping its unwanted slots (the other lookup sets are shared since they do not hold slot ids)
+     * @param lec the lecture to copy
+     * @param inverse the map from original lecture slot ids to reduced slot ids
+     * @return the copy
+     */
+    private static Lecture CopyLecture(Lecture lec, int[] inverse)
+    {
+        Lecture temp = new Lecture();
+        temp.id = lec.id;
+        temp.is_al = lec.is_al;
+        temp.is_5xx = lec.is_5xx;
+        temp.is_evng = lec.is_evng;
+        temp.section = lec.section;
+        temp.tutorials = lec.tutorials;
+        temp.not_compatible_lec = lec.not_compatible_lec;
+        temp.not_compatible_tut = lec.not_compatible_tut;
+        temp.preferences = lec.preferences;
+        temp.course_descriptor = lec.course_descriptor;
+        temp.lec_num = lec.lec_num;
+        temp.name = lec.name;
+
+        for(Integer slot_id: lec.unwanted)
+        {
+            if(inverse[slot_id] != -1)
+            {
+                temp.unwanted.add(inverse[slot_id]);
+            }
+        }
+        return temp;
+    }
+
+    /**
+     * copy a tutorial, re-mapping its unwanted slots (the other lookup sets are shared since they do not hold slot ids)
+     * @param tut the tutorial to copy
+     * @param inverse the map from original tutorial slot ids to reduced slot ids
+     * @return the copy
+     */
+    private static Tutorial CopyTutorial(Tutorial tut, int[] inverse)
+    {
+        Tutorial temp = new Tutorial();
+        temp.id = tut.id;
+        temp.is_al = tut.is_al;
+        temp.is_evng = tut.is_evng;
+        temp.lec_id = tut.lec_id;
+        temp.not_compatible_lec = tut.not_compatible_lec;
+        temp.not_compatible_tut = tut.not_compatible_tut;
+        temp.preferences = tut.preferences;
+        temp.course_descriptor = tut.course_descriptor;
+        temp.lec_num = tut.lec_num;
+        temp.tut_num = tut.tut_num;
+        temp.name = tut.name;
+
+        for(Integer slot_id: tut.unwanted)
+        {
+            if(inverse[slot_id] != -1)
+            {
+                temp.unwanted.add(inverse[slot_id]);
+            }
+        }
+        return temp;
+    }
+}
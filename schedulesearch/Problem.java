@@ -1,4 +1,5 @@
 package schedulesearch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Problem class holds the information needed to describe a problem instance
@@ -10,9 +11,40 @@ public class Problem
     int[] tutorials; // the assignments of tutorials to slots, index is tutorial id, value is slot id
     int depth;
     int score;
+    // the unique id of this problem (used to tie break in the search tree)
+    int id;
+    // the cached result of MinBoundScore for this problem
+    int bound;
+    // the cached result of Solvable for this problem
+    boolean solvable;
+    // the number of times the search did not take the first choice of the value ordering on the way to this problem
+    int discrepancies;
+    // the position of this problem in the value ordering of its parent (0 is the first choice)
+    int rank;
+
+    // the counter used to give each problem a unique id (atomic since problems are created by parallel searches)
+    private static AtomicInteger next_id = new AtomicInteger();
 
     public Problem()
     {
+        id = next_id.getAndIncrement();
+    }
+
+    /**
+     * create a copy of a problem, the copy gets its own unique id
+     * @param pr the problem to copy
+     */
+    public Problem(Problem pr)
+    {
+        id = next_id.getAndIncrement();
+        lectures = pr.lectures.clone();
+        tutorials = pr.tutorials.clone();
+        depth = pr.depth;
+        score = pr.score;
+        bound = pr.bound;
+        solvable = pr.solvable;
+        discrepancies = pr.discrepancies;
+        rank = pr.rank;
     }
 
     /**
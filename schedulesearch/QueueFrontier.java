@@ -0,0 +1,66 @@
+package schedulesearch;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * QueueFrontier expands the leaves in the order of a comparator
+ */
+class QueueFrontier implements Frontier
+{
+    // the leaves, next leaf to expand on top
+    private PriorityQueue<Problem> queue;
+
+    /**
+     * initialization function for the QueueFrontier
+     * @param comparator the order the leaves are expanded in
+     */
+    public QueueFrontier(Comparator<Problem> comparator)
+    {
+        queue = new PriorityQueue<Problem>(10, comparator);
+    }
+
+    /**
+     * add a leaf
+     * @param pr the leaf
+     */
+    public void Add(Problem pr)
+    {
+        queue.add(pr);
+    }
+
+    /**
+     * remove the next leaf to expand
+     * @return the leaf, or null if the frontier is empty
+     */
+    public Problem Poll()
+    {
+        return queue.poll();
+    }
+
+    /**
+     * is the frontier empty
+     * @return true if there are no leaves left
+     */
+    public boolean IsEmpty()
+    {
+        return queue.isEmpty();
+    }
+
+    /**
+     * remove every leaf
+     */
+    public void Clear()
+    {
+        queue.clear();
+    }
+
+    /**
+     * iterate over the leaves in no particular order
+     * @return the iterator
+     */
+    public Iterator<Problem> iterator()
+    {
+        return queue.iterator();
+    }
+}
@@ -0,0 +1,38 @@
+package schedulesearch;
+import java.util.Random;
+
+/**
+ * RandomOrdering tries the children in a random order
+ */
+class RandomOrdering implements ValueOrdering
+{
+    // the random number generator
+    private Random rand;
+
+    /**
+     * initialization function for the RandomOrdering
+     * @param seed the seed of the random number generator
+     */
+    public RandomOrdering(long seed)
+    {
+        rand = new Random(seed);
+    }
+
+    /**
+     * shuffle the children
+     * @param pr the problem that was divided
+     * @param env the environment
+     * @param entity the id of the assigned lecture/tutorial
+     * @param children the children, sorted in place
+     * @param slots the slot of each child, sorted with the children
+     */
+    public void Order(Problem pr, Environment env, int entity, Problem[] children, int[] slots)
+    {
+        double[] keys = new double[children.length];
+        for(int i = 0; i < children.length; i++)
+        {
+            keys[i] = Functions.FollowsGuide(pr, env, entity, slots[i]) ? -1 : rand.nextDouble();
+        }
+        RestartSearch.SortByKey(children, keys, slots);
+    }
+}
@@ -0,0 +1,387 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * RestartSearch runs randomised depth first searches that are restarted after a node budget following the Luby sequence
+ * Ties in the variable ordering (fewest valid slots) and in the value ordering (lowest MinBoundScore) are broken at
+ * random, so every run explores a different part of the tree and a run that is stuck in a bad subtree is cut short.
+ * The best solution is kept across restarts and so are the nogoods: the decisions of every fully explored subtree near
+ * the root. A nogood stays valid because the best score only gets lower, so no run explores that subtree again
+ */
+public class RestartSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the time limit in milliseconds
+    long time_limit;
+    // the number of nodes of a run is this times the next term of the Luby sequence
+    int unit;
+    // the random number generator
+    Random rand;
+
+    // the learned nogoods, each one is a list of decisions (entity id * slot_count + slot id)
+    ArrayList<long[]> nogoods = new ArrayList<long[]>();
+    // key is a decision, value is the indices of the nogoods that contain it
+    HashMap<Long, ArrayList<Integer>> nogood_index = new HashMap<Long, ArrayList<Integer>>();
+    // the number of slots used to encode a decision
+    long slot_count;
+
+    // the node budget of the current run
+    long budget;
+    // the nodes used by the current run
+    long nodes;
+    // the time the search started
+    long start_time;
+    // the smallest bound of the problems pruned by FBound in any run (a nogood keeps the bounds of its subtree in here)
+    int pruned_bound = Integer.MAX_VALUE;
+
+    // nogoods are only learned for subtrees at most this many decisions below the root
+    static final int NOGOOD_DEPTH = 10;
+
+    /**
+     * initialization function for the RestartSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _time_limit the time limit in milliseconds
+     * @param _unit the number of nodes of a run is this times the next term of the Luby sequence
+     * @param seed the seed of the random number generator
+     */
+    public RestartSearch(Environment _env, Problem _s0, long _time_limit, int _unit, long seed)
+    {
+        env = _env;
+        s0 = _s0;
+        time_limit = _time_limit;
+        unit = Math.max(1, _unit);
+        rand = new Random(seed);
+        slot_count = Math.max(env.lec_slots_array.length, env.tut_slots_array.length);
+    }
+
+    /**
+     * run depth first searches with restarts until the tree is exhausted or a budget runs out
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // for run i = 1, 2, ...:
+        //      run a randomised depth first search for at most unit * luby(i) nodes
+        //      if the run explored the whole tree then the best solution is optimal (up to epsilon), so stop
+        // stop when the iterations or the time run out
+
+        if(env.warm_start && env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+
+        s0.bound = Functions.MinBoundScore(s0, env);
+        start_time = System.nanoTime();
+        boolean exhausted = false;
+        int runs = 0;
+        while(env.iterations < env.max_iterations && !OutOfTime() && !env.SoftStopped())
+        {
+            runs++;
+            budget = (long)unit * Luby(runs);
+            nodes = 0;
+            exhausted = Dfs(new Problem(s0), new ArrayList<Long>());
+            if(exhausted)
+            {
+                break;
+            }
+        }
+
+        System.out.println(String.format("Restart: %d runs, %d nogoods, best %d%s", runs, nogoods.size(), env.best_score, exhausted ? ", tree exhausted" : ""));
+
+        // an exhausted tree proves the best solution up to the pruned problems (epsilon), otherwise only the root bound is known
+        env.lower_bound = exhausted ? Math.min(pruned_bound, env.best_score) : Math.min(s0.bound, env.best_score);
+
+        if(env.best_sol == null)
+        {
+            return false;
+        }
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+
+    /**
+     * randomised depth first search below a problem
+     * @param pr the problem
+     * @param path the decisions made since the starting state
+     * @return true if the whole subtree was explored, false if the run was stopped
+     */
+    private boolean Dfs(Problem pr, ArrayList<Long> path)
+    {
+        if(nodes >= budget || env.iterations >= env.max_iterations || env.Stopped() || ((nodes & 255) == 0 && OutOfTime()))
+        {
+            return false;
+        }
+        nodes++;
+        env.iterations++;
+
+        if(Functions.FBound(pr, env))
+        {
+            pruned_bound = Math.min(pruned_bound, pr.bound);
+            return true;
+        }
+        if(Functions.IsComplete(pr, env))
+        {
+            pr.score = Functions.Eval(pr, env);
+            env.UpdateBest(pr, pr.score);
+            return true;
+        }
+
+        // select the lecture/tutorial with the lowest selection key, ties are broken at random
+        int entity = -1;
+        int[] slots = null;
+        double best_key = 0;
+        int ties = 0;
+        for(int i = 0; i < env.num_lectures + env.num_tutorials; i++)
+        {
+            int[] valid;
+            if(i < env.num_lectures)
+            {
+                if(pr.lectures[i] != -1 || !env.LectureActive(i))
+                {
+                    continue;
+                }
+                valid = Functions.ValidLectureSlots(env, i, pr);
+            }
+            else
+            {
+                if(pr.tutorials[i - env.num_lectures] != -1 || !env.TutorialActive(i - env.num_lectures))
+                {
+                    continue;
+                }
+                valid = Functions.ValidTutSlots(env, i - env.num_lectures, pr);
+            }
+
+            if(valid == null)
+            {
+                // dead end
+                if(env.weights != null)
+                {
+                    env.weights.Failure(env, pr, i);
+                }
+                return true;
+            }
+            double key = Functions.SelectionKey(pr, env, i, valid.length);
+            if(slots == null || key < best_key)
+            {
+                entity = i;
+                slots = valid;
+                best_key = key;
+                ties = 1;
+            }
+            else if(key == best_key)
+            {
+                ties++;
+                if(rand.nextInt(ties) == 0)
+                {
+                    entity = i;
+                    slots = valid;
+                }
+            }
+        }
+
+        // make the children and order them on their bound, ties are broken at random
+        // the slot of the guiding solution goes first
+        boolean is_lec = entity < env.num_lectures;
+        slots = Dominance.OrderSlots(env, pr, is_lec, slots);
+        Problem[] children = new Problem[slots.length];
+        double[] keys = new double[slots.length];
+        for(int i = 0; i < slots.length; i++)
+        {
+            children[i] = new Problem(pr);
+            if(is_lec)
+            {
+                children[i].AssignLecture(entity, slots[i]);
+            }
+            else
+            {
+                children[i].AssignTutorial(entity - env.num_lectures, slots[i]);
+            }
+            children[i].depth = pr.depth + 1;
+            children[i].bound = Functions.MinBoundScore(children[i], env);
+            keys[i] = Functions.FollowsGuide(pr, env, entity, slots[i]) ? -1 : children[i].bound + rand.nextDouble();
+        }
+        SortByKey(children, keys, slots);
+
+        // the nogoods learned below this problem are removed again if it is fully explored, its own nogood covers them
+        int mark = nogoods.size();
+        boolean complete = true;
+        for(int i = 0; i < children.length; i++)
+        {
+            long decision = entity * slot_count + slots[i];
+            path.add(decision);
+            if(!Violates(pr, path, decision))
+            {
+                complete = Dfs(children[i], path);
+            }
+            path.remove(path.size() - 1);
+            if(!complete)
+            {
+                return false;
+            }
+        }
+
+        // every child was explored, so no schedule with these decisions can beat the best score
+        if(path.size() <= NOGOOD_DEPTH && !path.isEmpty())
+        {
+            RemoveNogoods(mark);
+            AddNogood(path);
+        }
+        return true;
+    }
+
+    /**
+     * does the last decision complete a nogood
+     * @param pr the problem before the decision
+     * @param path the decisions made since the starting state, including the last one
+     * @param decision the last decision
+     * @return true if every decision of a nogood that contains the last decision has been made
+     */
+    private boolean Violates(Problem pr, ArrayList<Long> path, long decision)
+    {
+        ArrayList<Integer> indices = nogood_index.get(decision);
+        if(indices == null)
+        {
+            return false;
+        }
+
+        for(Integer index: indices)
+        {
+            long[] nogood = nogoods.get(index);
+            boolean violated = true;
+            for(int i = 0; i < nogood.length && violated; i++)
+            {
+                if(nogood[i] == decision)
+                {
+                    continue;
+                }
+                int e = (int)(nogood[i] / slot_count);
+                int slot = (int)(nogood[i] % slot_count);
+                violated = ((e < env.num_lectures) ? pr.lectures[e] : pr.tutorials[e - env.num_lectures]) == slot;
+            }
+            if(violated)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * learn a nogood
+     * @param path the decisions of the fully explored subtree
+     */
+    private void AddNogood(ArrayList<Long> path)
+    {
+        long[] nogood = new long[path.size()];
+        for(int i = 0; i < nogood.length; i++)
+        {
+            nogood[i] = path.get(i);
+        }
+
+        int index = nogoods.size();
+        nogoods.add(nogood);
+        for(int i = 0; i < nogood.length; i++)
+        {
+            if(!nogood_index.containsKey(nogood[i]))
+            {
+                nogood_index.put(nogood[i], new ArrayList<Integer>());
+            }
+            nogood_index.get(nogood[i]).add(index);
+        }
+    }
+
+    /**
+     * forget the most recently learned nogoods
+     * @param mark the number of nogoods to keep
+     */
+    private void RemoveNogoods(int mark)
+    {
+        for(int index = nogoods.size() - 1; index >= mark; index--)
+        {
+            long[] nogood = nogoods.remove(index);
+            for(int i = 0; i < nogood.length; i++)
+            {
+                // the nogoods are added in order, so the index is at the end of the list
+                ArrayList<Integer> indices = nogood_index.get(nogood[i]);
+                indices.remove(indices.size() - 1);
+                if(indices.isEmpty())
+                {
+                    nogood_index.remove(nogood[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * sort the children on their keys (insertion sort, there are only a few children)
+     * @param children the children
+     * @param keys the sort key of each child
+     * @param slots the slot of each child
+     */
+    static void SortByKey(Problem[] children, double[] keys, int[] slots)
+    {
+        for(int i = 1; i < keys.length; i++)
+        {
+            for(int j = i; j > 0 && keys[j] < keys[j - 1]; j--)
+            {
+                double key = keys[j];
+                keys[j] = keys[j - 1];
+                keys[j - 1] = key;
+                Problem child = children[j];
+                children[j] = children[j - 1];
+                children[j - 1] = child;
+                int slot = slots[j];
+                slots[j] = slots[j - 1];
+                slots[j - 1] = slot;
+            }
+        }
+    }
+
+    /**
+     * has the time limit of the restart search been reached
+     * @return true if the search has to stop
+     */
+    private boolean OutOfTime()
+    {
+        return (System.nanoTime() - start_time) / 1000000 > time_limit;
+    }
+
+    /**
+     * the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ...
+     * @param i the index of the term (starting at 1)
+     * @return the term
+     */
+    static long Luby(int i)
+    {
+        // find the smallest k with 2^k - 1 >= i
+        int k = 1;
+        while((1L << k) - 1 < i)
+        {
+            k++;
+        }
+        // the sequence ends a block of length 2^k - 1 with 2^(k-1), otherwise it repeats the start
+        while((1L << k) - 1 != i)
+        {
+            i -= (int)((1L << (k - 1)) - 1);
+            k = 1;
+            while((1L << k) - 1 < i)
+            {
+                k++;
+            }
+        }
+        return 1L << (k - 1);
+    }
+}
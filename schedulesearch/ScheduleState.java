@@ -0,0 +1,529 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * ScheduleState holds a complete schedule for local search together with the slot fill counts and its score
+ * Lectures/tutorials can be removed and placed one at a time, the score is kept up to date with delta versions
+ * of the Eval components and CanPlace checks the same hard constraints as ValidLectureSlots/ValidTutSlots.
+ * Lectures and tutorials are numbered as entities: lectures are 0 to num_lectures-1 and tutorials follow
+ */
+public class ScheduleState
+{
+    // the environment
+    Environment env;
+    // the schedule
+    Problem pr;
+    // the score of the schedule (always equal to Functions.Eval(pr, env))
+    int score;
+
+    // the number of lectures/tutorials in each slot
+    int[] lec_fill;
+    int[] tut_fill;
+    // the number of active learning lectures/tutorials in each slot
+    int[] lec_al_fill;
+    int[] tut_al_fill;
+
+    // index is the entity id, value is the indices of the pairs in env.pairs that the entity is part of
+    int[][] entity_pairs;
+    // index is the entity id, value is true if local search may move it (active and not partially assigned)
+    boolean[] movable;
+
+    /**
+     * create the state of a complete schedule
+     * @param _env the environment
+     * @param _pr the complete schedule (this is copied)
+     * @param s0 the starting state, its assignments are never moved
+     */
+    public ScheduleState(Environment _env, Problem _pr, Problem s0)
+    {
+        env = _env;
+        pr = new Problem(_pr);
+        score = Functions.Eval(pr, env);
+
+        lec_fill = new int[env.lec_slots_array.length];
+        lec_al_fill = new int[env.lec_slots_array.length];
+        tut_fill = new int[env.tut_slots_array.length];
+        tut_al_fill = new int[env.tut_slots_array.length];
+        for(int i = 0; i < env.num_lectures; i++)
+        {
+            if(pr.lectures[i] != -1)
+            {
+                lec_fill[pr.lectures[i]]++;
+                lec_al_fill[pr.lectures[i]] += env.lectures[i].is_al ? 1 : 0;
+            }
+        }
+        for(int i = 0; i < env.num_tutorials; i++)
+        {
+            if(pr.tutorials[i] != -1)
+            {
+                tut_fill[pr.tutorials[i]]++;
+                tut_al_fill[pr.tutorials[i]] += env.tutorials[i].is_al ? 1 : 0;
+            }
+        }
+
+        // index the pairs by entity
+        int num_entities = env.num_lectures + env.num_tutorials;
+        ArrayList<ArrayList<Integer>> pairs = new ArrayList<ArrayList<Integer>>();
+        for(int i = 0; i < num_entities; i++)
+        {
+            pairs.add(new ArrayList<Integer>());
+        }
+        for(int i = 0; i < env.pairs.length; i++)
+        {
+            Pair pair = env.pairs[i];
+            int a = pair.is_lec1 ? pair.id1 : env.num_lectures + pair.id1;
+            int b = pair.is_lec2 ? pair.id2 : env.num_lectures + pair.id2;
+            pairs.get(a).add(i);
+            if(b != a)
+            {
+                pairs.get(b).add(i);
+            }
+        }
+        entity_pairs = new int[num_entities][];
+        for(int i = 0; i < num_entities; i++)
+        {
+            entity_pairs[i] = new int[pairs.get(i).size()];
+            for(int j = 0; j < entity_pairs[i].length; j++)
+            {
+                entity_pairs[i][j] = pairs.get(i).get(j);
+            }
+        }
+
+        movable = new boolean[num_entities];
+        for(int i = 0; i < num_entities; i++)
+        {
+            movable[i] = (i < env.num_lectures) ? (s0.lectures[i] == -1 && env.LectureActive(i))
+                                                : (s0.tutorials[i - env.num_lectures] == -1 && env.TutorialActive(i - env.num_lectures));
+        }
+    }
+
+    /**
+     * get the ids of the entities that can be moved
+     * @return the entity ids
+     */
+    public int[] MovableEntities()
+    {
+        int count = 0;
+        for(int i = 0; i < movable.length; i++)
+        {
+            count += movable[i] ? 1 : 0;
+        }
+        int[] entities = new int[count];
+        int j = 0;
+        for(int i = 0; i < movable.length; i++)
+        {
+            if(movable[i])
+            {
+                entities[j] = i;
+                j++;
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * get the slot of an entity
+     * @param entity the entity id
+     * @return the slot id, or -1 if unassigned
+     */
+    public int SlotOf(int entity)
+    {
+        return (entity < env.num_lectures) ? pr.lectures[entity] : pr.tutorials[entity - env.num_lectures];
+    }
+
+    /**
+     * is an entity a lecture
+     * @param entity the entity id
+     * @return true if it is a lecture
+     */
+    public boolean IsLecture(int entity)
+    {
+        return entity < env.num_lectures;
+    }
+
+    /**
+     * remove an entity from its slot, updating the fills and the score
+     * @param entity the entity id (must be assigned)
+     */
+    public void Remove(int entity)
+    {
+        int slot = SlotOf(entity);
+        if(IsLecture(entity))
+        {
+            pr.lectures[entity] = -1;
+            lec_fill[slot]--;
+            lec_al_fill[slot] -= env.lectures[entity].is_al ? 1 : 0;
+        }
+        else
+        {
+            int tut_id = entity - env.num_lectures;
+            pr.tutorials[tut_id] = -1;
+            tut_fill[slot]--;
+            tut_al_fill[slot] -= env.tutorials[tut_id].is_al ? 1 : 0;
+        }
+
+        // the entity is unassigned now, so its cost is what placing it back would add
+        score -= PlaceDelta(entity, slot);
+    }
+
+    /**
+     * place an unassigned entity in a slot, updating the fills and the score
+     * @param entity the entity id (must be unassigned)
+     * @param slot the slot id
+     */
+    public void Place(int entity, int slot)
+    {
+        score += PlaceDelta(entity, slot);
+        if(IsLecture(entity))
+        {
+            pr.lectures[entity] = slot;
+            lec_fill[slot]++;
+            lec_al_fill[slot] += env.lectures[entity].is_al ? 1 : 0;
+        }
+        else
+        {
+            int tut_id = entity - env.num_lectures;
+            pr.tutorials[tut_id] = slot;
+            tut_fill[slot]++;
+            tut_al_fill[slot] += env.tutorials[tut_id].is_al ? 1 : 0;
+        }
+    }
+
+    /**
+     * move an entity to another slot
+     * @param entity the entity id (must be assigned)
+     * @param slot the new slot id
+     */
+    public void Move(int entity, int slot)
+    {
+        Remove(entity);
+        Place(entity, slot);
+    }
+
+    /**
+     * find the change in score of moving an entity to another slot, the state is left unchanged
+     * @param entity the entity id (must be assigned)
+     * @param slot the new slot id
+     * @return the change in score
+     */
+    public int MoveDelta(int entity, int slot)
+    {
+        int old_slot = SlotOf(entity);
+        int old_score = score;
+        Remove(entity);
+        int delta = score - old_score + PlaceDelta(entity, slot);
+        Place(entity, old_slot);
+        return delta;
+    }
+
+    /**
+     * find the change in score of placing an unassigned entity in a slot
+     * @param entity the entity id (must be unassigned)
+     * @param slot the slot id
+     * @return the change in score
+     */
+    public int PlaceDelta(int entity, int slot)
+    {
+        return DeltaMinFilled(entity, slot) + DeltaPref(entity, slot) + DeltaPair(entity, slot) + DeltaSecDiff(entity, slot);
+    }
+
+    /**
+     * find the preference, pair and section difference score of an entity in a slot
+     * this does not depend on the slot of the entity itself, only on the slots of its neighbours in the ConflictGraph
+     * @param entity the entity id
+     * @param slot the slot id
+     * @return the weighted score
+     */
+    public int Cost(int entity, int slot)
+    {
+        return DeltaPref(entity, slot) + DeltaPair(entity, slot) + DeltaSecDiff(entity, slot);
+    }
+
+    /**
+     * find the change in the min filled score of moving an entity to another slot
+     * @param entity the entity id (must be assigned)
+     * @param slot the new slot id (not the current slot)
+     * @return the change in the weighted min filled score
+     */
+    public int MoveMinFilledDelta(int entity, int slot)
+    {
+        int old_slot = SlotOf(entity);
+        if(IsLecture(entity))
+        {
+            int pen = env.pen_lecturemin * env.w_minfilled;
+            return ((lec_fill[old_slot] <= env.lec_slots_array[old_slot].min) ? pen : 0)
+                 - ((lec_fill[slot] < env.lec_slots_array[slot].min) ? pen : 0);
+        }
+        int pen = env.pen_tutorialmin * env.w_minfilled;
+        return ((tut_fill[old_slot] <= env.tut_slots_array[old_slot].min) ? pen : 0)
+             - ((tut_fill[slot] < env.tut_slots_array[slot].min) ? pen : 0);
+    }
+
+    /**
+     * delta version of EvalMinFilled, placing an entity in a slot that is under its min removes one penalty
+     * @param entity the entity id (must be unassigned)
+     * @param slot the slot id
+     * @return the change in the weighted min filled score
+     */
+    private int DeltaMinFilled(int entity, int slot)
+    {
+        if(IsLecture(entity))
+        {
+            return (lec_fill[slot] < env.lec_slots_array[slot].min) ? -env.pen_lecturemin * env.w_minfilled : 0;
+        }
+        return (tut_fill[slot] < env.tut_slots_array[slot].min) ? -env.pen_tutorialmin * env.w_minfilled : 0;
+    }
+
+    /**
+     * delta version of EvalPref, placing an entity adds every preference that is not for the slot
+     * @param entity the entity id (must be unassigned)
+     * @param slot the slot id
+     * @return the change in the weighted preference score
+     */
+    private int DeltaPref(int entity, int slot)
+    {
+        Map<Integer, Integer> preferences;
+        int hash;
+        if(IsLecture(entity))
+        {
+            preferences = env.lectures[entity].preferences;
+            hash = env.lec_slots_array[slot].lec_hash;
+        }
+        else
+        {
+            preferences = env.tutorials[entity - env.num_lectures].preferences;
+            hash = env.tut_slots_array[slot].tut_hash;
+        }
+
+        int sum = 0;
+        for(Map.Entry<Integer, Integer> pref: preferences.entrySet())
+        {
+            if(pref.getKey() != hash)
+            {
+                sum += pref.getValue();
+            }
+        }
+        return sum * env.w_pref;
+    }
+
+    /**
+     * delta version of EvalPair, placing an entity adds a penalty for every assigned partner that is not at the same time
+     * @param entity the entity id (must be unassigned)
+     * @param slot the slot id
+     * @return the change in the weighted pair score
+     */
+    private int DeltaPair(int entity, int slot)
+    {
+        int sum = 0;
+        boolean is_lec = IsLecture(entity);
+        int id = is_lec ? entity : entity - env.num_lectures;
+        for(int i = 0; i < entity_pairs[entity].length; i++)
+        {
+            Pair pair = env.pairs[entity_pairs[entity][i]];
+            // find the other half of the pair
+            boolean first = (pair.is_lec1 == is_lec && pair.id1 == id);
+            boolean other_is_lec = first ? pair.is_lec2 : pair.is_lec1;
+            int other_id = first ? pair.id2 : pair.id1;
+            int other_slot = other_is_lec ? pr.lectures[other_id] : pr.tutorials[other_id];
+
+            if(other_slot != -1 && !Functions.SameTime(slot, is_lec, other_slot, other_is_lec, env))
+            {
+                sum += env.pen_notpaired;
+            }
+        }
+        return sum * env.w_pair;
+    }
+
+    /**
+     * delta version of EvalSecDiff, placing a lecture adds a penalty for every lecture of its section in the slot
+     * @param entity the entity id (must be unassigned)
+     * @param slot the slot id
+     * @return the change in the weighted section difference score
+     */
+    private int DeltaSecDiff(int entity, int slot)
+    {
+        if(!IsLecture(entity))
+        {
+            return 0;
+        }
+
+        int sum = 0;
+        Integer[] section = env.sections.get(env.lectures[entity].section);
+        for(int i = 0; i < section.length; i++)
+        {
+            if(section[i] != entity && pr.lectures[section[i]] == slot)
+            {
+                sum += env.pen_section;
+            }
+        }
+        return sum * env.w_secdiff;
+    }
+
+    /**
+     * check the hard constraints of placing an unassigned entity in a slot
+     * these are the same checks as ValidLectureSlots/ValidTutSlots, but only for one slot
+     * @param entity the entity id (must be unassigned)
+     * @param slot the slot id
+     * @return true if the entity can be placed in the slot
+     */
+    public boolean CanPlace(int entity, int slot)
+    {
+        return HasRoom(entity, slot) && Allowed(entity, slot);
+    }
+
+    /**
+     * check the max and almax of a slot for an entity
+     * @param entity the entity id (not in the slot)
+     * @param slot the slot id
+     * @return true if the slot has room for the entity
+     */
+    public boolean HasRoom(int entity, int slot)
+    {
+        if(IsLecture(entity))
+        {
+            Slot s = env.lec_slots_array[slot];
+            return lec_fill[slot] < s.max && !(env.lectures[entity].is_al && lec_al_fill[slot] >= s.almax);
+        }
+        Slot s = env.tut_slots_array[slot];
+        return tut_fill[slot] < s.max && !(env.tutorials[entity - env.num_lectures].is_al && tut_al_fill[slot] >= s.almax);
+    }
+
+    /**
+     * check the hard constraints of an entity in a slot other than the capacity of the slot
+     * these only depend on the slots of the entity's neighbours in the ConflictGraph, not on the slot of the entity itself
+     * @param entity the entity id
+     * @param slot the slot id
+     * @return true if the constraints allow the slot
+     */
+    public boolean Allowed(int entity, int slot)
+    {
+        if(IsLecture(entity))
+        {
+            Lecture lec = env.lectures[entity];
+            Slot s = env.lec_slots_array[slot];
+            if((lec.is_evng && !s.is_evng) || lec.unwanted.contains(slot))
+            {
+                return false;
+            }
+
+            // the tutorials of this lecture
+            for(int i = 0; i < lec.tutorials.length; i++)
+            {
+                int tut_slot = pr.tutorials[lec.tutorials[i]];
+                if(tut_slot != -1 && Overlaps(slot, tut_slot))
+                {
+                    return false;
+                }
+            }
+
+            // not compatible lectures/tutorials
+            for(Integer id: lec.not_compatible_lec)
+            {
+                if(pr.lectures[id] == slot)
+                {
+                    return false;
+                }
+            }
+            for(Integer id: lec.not_compatible_tut)
+            {
+                if(pr.tutorials[id] != -1 && Overlaps(slot, pr.tutorials[id]))
+                {
+                    return false;
+                }
+            }
+
+            // other 5xx level lectures
+            if(lec.is_5xx)
+            {
+                for(int i = 0; i < env.lectures_5xx.length; i++)
+                {
+                    if(env.lectures_5xx[i] != entity && pr.lectures[env.lectures_5xx[i]] == slot)
+                    {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        int tut_id = entity - env.num_lectures;
+        Tutorial tut = env.tutorials[tut_id];
+        Slot s = env.tut_slots_array[slot];
+        if((tut.is_evng && !s.is_evng) || tut.unwanted.contains(slot))
+        {
+            return false;
+        }
+
+        // the parent lecture
+        int lec_slot = pr.lectures[tut.lec_id];
+        if(lec_slot != -1 && Overlaps(lec_slot, slot))
+        {
+            return false;
+        }
+
+        // not compatible lectures/tutorials
+        for(Integer id: tut.not_compatible_lec)
+        {
+            if(pr.lectures[id] != -1 && Overlaps(pr.lectures[id], slot))
+            {
+                return false;
+            }
+        }
+        for(Integer id: tut.not_compatible_tut)
+        {
+            if(pr.tutorials[id] == slot)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * check the hard constraints of moving an assigned entity to another slot, the state is left unchanged
+     * @param entity the entity id (must be assigned)
+     * @param slot the new slot id
+     * @return true if the move is valid
+     */
+    public boolean CanMove(int entity, int slot)
+    {
+        // the entity only counts in the fill of its own slot, so it does not have to be removed first
+        return SlotOf(entity) != slot && CanPlace(entity, slot);
+    }
+
+    /**
+     * do a lecture slot and a tutorial slot overlap (checked with both overlap maps)
+     * @param lec_slot the lecture slot id
+     * @param tut_slot the tutorial slot id
+     * @return true if they overlap
+     */
+    public boolean Overlaps(int lec_slot, int tut_slot)
+    {
+        for(int i = 0; i < env.lecslot_tutslot[lec_slot].length; i++)
+        {
+            if(env.lecslot_tutslot[lec_slot][i] == tut_slot)
+            {
+                return true;
+            }
+        }
+        for(int i = 0; i < env.tutslot_lecslot[tut_slot].length; i++)
+        {
+            if(env.tutslot_lecslot[tut_slot][i] == lec_slot)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * get the number of slots an entity can be assigned to
+     * @param entity the entity id
+     * @return the number of lecture or tutorial slots
+     */
+    public int NumSlots(int entity)
+    {
+        return IsLecture(entity) ? env.lec_slots_array.length : env.tut_slots_array.length;
+    }
+}
@@ -0,0 +1,23 @@
+package schedulesearch;
+import java.util.Comparator;
+
+/**
+ * ScoreComparator sorts Problems on their score, lowest first
+ */
+class ScoreComparator implements Comparator<Problem>
+{
+    /**
+     * compare the scores of two problems
+     * @param p1 the first problem to sort
+     * @param p2 the second problem to sort
+     * @return negative if the first object should go first in the list, positive otherwise
+     */
+    public int compare(Problem p1, Problem p2)
+    {
+        if(p1.score != p2.score)
+        {
+            return Integer.compare(p1.score, p2.score);
+        }
+        return Integer.compare(p1.id, p2.id);
+    }
+}
@@ -0,0 +1,14 @@
+package schedulesearch;
+
+/**
+ * SearchEngine is implemented by every search that Main can run
+ */
+public interface SearchEngine
+{
+    /**
+     * run the search
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    boolean RunSearch(Problem sf);
+}
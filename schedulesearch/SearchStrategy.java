@@ -0,0 +1,161 @@
+package schedulesearch;
+import java.util.Arrays;
+
+/**
+ * SearchStrategy holds the variable selection, value ordering, frontier policy and bounding used by the And search
+ * The strategies are picked by name, so a dataset can be run with the best strategies for it without changing the
+ * engine. The And search copies them into its own fields, so every call site of its main loop only ever sees one
+ * implementation during a run and stays monomorphic
+ */
+public class SearchStrategy
+{
+    // the names that Create accepts
+    static final String[] VARIABLE_NAMES = {"mrv", "static", "max-degree"};
+    static final String[] VALUE_NAMES = {"bound", "dominance", "random"};
+    static final String[] FRONTIER_NAMES = {"depth-first", "best-first", "discrepancy", "stack"};
+    static final String[] BOUNDING_NAMES = {"min-bound", "incremental"};
+
+    // selects the lecture/tutorial to assign next
+    VariableSelection variable_selection;
+    // orders the children of a problem
+    ValueOrdering value_ordering;
+    // the lower bounds and pruning
+    Bounding bounding;
+    // the name of the frontier policy, every search gets its own frontier (null for depth-first, or discrepancy with LDS)
+    String frontier;
+    // the seed of the random value ordering (kept for the checkpoints)
+    long seed = 0;
+
+    /**
+     * the strategies the And search has always used
+     * @return fewest valid slots first, lowest bound first, depth first and MinBoundScore
+     */
+    public static SearchStrategy Default()
+    {
+        SearchStrategy strategy = new SearchStrategy();
+        strategy.variable_selection = new MinDomainSelection();
+        strategy.value_ordering = new BoundOrdering();
+        strategy.bounding = new MinBoundBounding();
+        strategy.frontier = null;
+        return strategy;
+    }
+
+    /**
+     * copy the strategies for a search that has to give the same result whatever the other searches do
+     * @param _seed the seed of the random value ordering of the copy
+     * @return the copy, it only has its own random value ordering, the other strategies do not keep any state
+     */
+    public SearchStrategy Copy(long _seed)
+    {
+        SearchStrategy copy = new SearchStrategy();
+        copy.variable_selection = variable_selection;
+        copy.value_ordering = (value_ordering instanceof RandomOrdering) ? new RandomOrdering(_seed) : value_ordering;
+        copy.bounding = bounding;
+        copy.frontier = frontier;
+        copy.seed = _seed;
+        return copy;
+    }
+
+    /**
+     * create the strategies from their names
+     * @param env the environment the search runs on
+     * @param variable the name of the variable selection
+     * @param value the name of the value ordering
+     * @param frontier_name the name of the frontier policy (null for the default)
+     * @param bounding_name the name of the bounding
+     * @param seed the seed of the random value ordering
+     * @return the strategy, or null if a name is not known
+     */
+    public static SearchStrategy Create(Environment env, String variable, String value, String frontier_name, String bounding_name, long seed)
+    {
+        SearchStrategy strategy = new SearchStrategy();
+        strategy.seed = seed;
+
+        if(variable.equals("mrv"))
+        {
+            strategy.variable_selection = new MinDomainSelection();
+        }
+        else if(variable.equals("static"))
+        {
+            strategy.variable_selection = new StaticSelection();
+        }
+        else if(variable.equals("max-degree"))
+        {
+            strategy.variable_selection = new MaxDegreeSelection(env);
+        }
+        else
+        {
+            System.out.println("Error, unknown variable selection: " + variable);
+            return null;
+        }
+
+        if(value.equals("bound"))
+        {
+            strategy.value_ordering = new BoundOrdering();
+        }
+        else if(value.equals("dominance"))
+        {
+            strategy.value_ordering = new DominanceOrdering();
+        }
+        else if(value.equals("random"))
+        {
+            strategy.value_ordering = new RandomOrdering(seed);
+        }
+        else
+        {
+            System.out.println("Error, unknown value ordering: " + value);
+            return null;
+        }
+
+        if(bounding_name.equals("min-bound"))
+        {
+            strategy.bounding = new MinBoundBounding();
+        }
+        else if(bounding_name.equals("incremental"))
+        {
+            strategy.bounding = new IncrementalBounding();
+        }
+        else
+        {
+            System.out.println("Error, unknown bounding: " + bounding_name);
+            return null;
+        }
+
+        if(frontier_name != null && !Arrays.asList(FRONTIER_NAMES).contains(frontier_name))
+        {
+            System.out.println("Error, unknown frontier: " + frontier_name);
+            return null;
+        }
+        strategy.frontier = frontier_name;
+        return strategy;
+    }
+
+    /**
+     * create an empty frontier for a search
+     * @param env the environment of the search
+     * @return the frontier
+     */
+    public Frontier NewFrontier(Environment env)
+    {
+        String name = frontier;
+        if(name == null)
+        {
+            // limited discrepancy search needs the problems with the fewest discrepancies first
+            name = (env.max_discrepancies >= 0) ? "discrepancy" : "depth-first";
+        }
+
+        if(name.equals("best-first"))
+        {
+            return new QueueFrontier(new BestFirstComparator());
+        }
+        else if(name.equals("discrepancy"))
+        {
+            return new QueueFrontier(new DiscrepancyComparator());
+        }
+        else if(name.equals("stack"))
+        {
+            return new StackFrontier();
+        }
+        return new QueueFrontier(new FLeafComparator());
+    }
+}
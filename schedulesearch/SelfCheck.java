@@ -0,0 +1,591 @@
+package schedulesearch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * SelfCheck checks the pseudo-Boolean model and the MaxSat engine against the rest of the program
+ * The sequential counters of the WCNF export are checked on every assignment of a few literals, and PbSolver is checked
+ * against enumerating every assignment of random clauses and at-most constraints. For every input file
+ * the objective of the model (offset included) has to be the Eval score of the greedy schedule and of the best
+ * schedules, and MaxSatSearch and the And search have to prove the same optimum. Run it with
+ * java -cp ./build/Build.jar schedulesearch.SelfCheck <input_file_name.txt> ...
+ * The exit code is 1 if a check failed
+ */
+public class SelfCheck
+{
+    // the weights and penalties the input files are checked with (the ones runExample.sh uses)
+    static final int[] WEIGHTS = {1, 2, 3, 4, 5, 6, 7, 8};
+    // the node limit of the And search and the time limit of every search and solve
+    static final int MAX_ITERATIONS = 10000000;
+    static final int TIME_LIMIT_MS = 60000;
+    // the largest number of literals the counters are checked with
+    static final int MAX_COUNTER_LITS = 6;
+    // the random solver instances: the seed, the number of instances, their largest number of vars and weight
+    static final long SOLVER_SEED = 1;
+    static final int SOLVER_INSTANCES = 2000;
+    static final int MAX_SOLVER_VARS = 14;
+    static final int MAX_SOLVER_WEIGHT = 5;
+    // the largest number of holes of the pigeon hole instances
+    static final int MAX_PIGEON_HOLES = 8;
+
+    // the number of checks that failed
+    static int failures = 0;
+    // the number of checks that could not finish in their time limit
+    static int skipped = 0;
+
+    /**
+     * run the checks
+     * @param args the input files
+     */
+    public static void main(String[] args)
+    {
+        CheckSequentialCounter();
+        CheckWeightedCounter();
+        CheckSolver();
+        for(int i = 0; i < args.length; i++)
+        {
+            CheckInstance(args[i]);
+        }
+
+        System.out.println(String.format("SelfCheck: %d checks skipped because of the time limit", skipped));
+        System.out.println(failures == 0 ? "SelfCheck: all checks passed" : String.format("SelfCheck: %d checks failed", failures));
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // sequential counters #################################################################################################################
+
+    /**
+     * check the sequential counter on every assignment of up to MAX_COUNTER_LITS literals, with and without a guard
+     */
+    private static void CheckSequentialCounter()
+    {
+        int checked = 0;
+        for(int n = 1; n <= MAX_COUNTER_LITS; n++)
+        {
+            for(int bound = -1; bound <= n; bound++)
+            {
+                for(int guarded = 0; guarded <= 1; guarded++)
+                {
+                    // vars 0 to n-1 are the literals, var n is the guard (it is always true without a guard)
+                    ArrayList<Integer> lits = new ArrayList<Integer>();
+                    for(int i = 0; i < n; i++)
+                    {
+                        lits.add(PbSolver.Pos(i));
+                    }
+                    int[] num_vars = {n + 1};
+                    ArrayList<int[]> clauses = new ArrayList<int[]>();
+                    Exporter.SequentialCounter(lits, bound, (guarded == 1) ? PbSolver.Pos(n) : -1, clauses, num_vars);
+
+                    for(int mask = 0; mask < (1 << n); mask++)
+                    {
+                        for(int guard = 1 - guarded; guard <= 1; guard++)
+                        {
+                            int[] values = new int[n + 1];
+                            for(int i = 0; i < n; i++)
+                            {
+                                values[i] = (mask >> i) & 1;
+                            }
+                            values[n] = guard;
+                            boolean expected = guard == 0 || Integer.bitCount(mask) <= bound;
+                            if(Satisfiable(clauses, num_vars[0], values) != expected)
+                            {
+                                Fail(String.format("sequential counter with %d literals, bound %d%s, assignment %s", n, bound,
+                                    (guarded == 1) ? ", guard " + guard : "", Integer.toBinaryString(mask)));
+                            }
+                            checked++;
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println(String.format("SelfCheck: %d sequential counter assignments checked", checked));
+    }
+
+    /**
+     * check the at-most clauses with one heavy literal (the form of the min filled constraints) on every assignment
+     */
+    private static void CheckWeightedCounter()
+    {
+        int checked = 0;
+        for(int n = 1; n < MAX_COUNTER_LITS; n++)
+        {
+            for(int heavy_weight = 2; heavy_weight <= 3; heavy_weight++)
+            {
+                for(int bound = 0; bound <= n + heavy_weight; bound++)
+                {
+                    // vars 0 to n-1 have weight 1, var n is the heavy literal
+                    int[] lits = new int[n + 1];
+                    int[] weights = new int[n + 1];
+                    for(int i = 0; i <= n; i++)
+                    {
+                        lits[i] = PbSolver.Pos(i);
+                        weights[i] = (i == n) ? heavy_weight : 1;
+                    }
+                    int[] num_vars = {n + 1};
+                    ArrayList<int[]> clauses = new ArrayList<int[]>();
+                    Exporter.AtMostClauses(lits, weights, bound, clauses, num_vars);
+
+                    for(int mask = 0; mask < (1 << (n + 1)); mask++)
+                    {
+                        int[] values = new int[n + 1];
+                        int sum = 0;
+                        for(int i = 0; i <= n; i++)
+                        {
+                            values[i] = (mask >> i) & 1;
+                            sum += values[i] * weights[i];
+                        }
+                        if(Satisfiable(clauses, num_vars[0], values) != (sum <= bound))
+                        {
+                            Fail(String.format("at-most clauses with %d literals and a literal of weight %d, bound %d, assignment %s", n, heavy_weight, bound, Integer.toBinaryString(mask)));
+                        }
+                        checked++;
+                    }
+                }
+            }
+        }
+        System.out.println(String.format("SelfCheck: %d weighted counter assignments checked", checked));
+    }
+
+    /**
+     * can the auxiliary vars of a set of clauses be set so every clause holds
+     * @param clauses the clauses
+     * @param num_vars the number of vars
+     * @param values the value (0 or 1) of the first vars, the others are free
+     * @return true if the clauses are satisfiable
+     */
+    private static boolean Satisfiable(ArrayList<int[]> clauses, int num_vars, int[] values)
+    {
+        PbSolver solver = new PbSolver();
+        for(int i = 0; i < num_vars; i++)
+        {
+            solver.NewVar();
+        }
+        for(int i = 0; i < values.length; i++)
+        {
+            solver.AddClause(new int[]{(values[i] == 1) ? PbSolver.Pos(i) : PbSolver.Neg(i)});
+        }
+        for(int[] clause: clauses)
+        {
+            solver.AddClause(clause);
+        }
+        return solver.Solve(new Environment(), System.nanoTime() + TIME_LIMIT_MS * 1000000L) == PbSolver.SAT;
+    }
+
+    // pseudo-Boolean solver ###############################################################################################################
+
+    /**
+     * check PbSolver against enumerating every assignment on random clauses and at-most constraints
+     * every model has to satisfy the constraints, and tightening the bound of an objective until the solver says UNSAT
+     * has to end at the smallest objective of the enumeration
+     */
+    private static void CheckSolver()
+    {
+        // sudo code:
+        // for every random instance:
+        //      find the smallest objective of every assignment that satisfies the constraints (none if there is no such assignment)
+        //      add the constraints and the objective (at most the sum of its weights) to a solver
+        //      while the solver finds a model:
+        //          the model has to satisfy the constraints with an objective at most the bound
+        //          set the bound of the objective to the objective of the model - 1
+        //      the last model has to have the smallest objective, UNSAT has to come right away if there is none
+
+        Random rand = new Random(SOLVER_SEED);
+        int checked = 0;
+        int solves = 0;
+        for(int instance = 0; instance < SOLVER_INSTANCES; instance++)
+        {
+            int num_vars = 1 + rand.nextInt(MAX_SOLVER_VARS);
+            ArrayList<int[]> clauses = new ArrayList<int[]>();
+            int num_clauses = rand.nextInt(3 * num_vars + 1);
+            for(int i = 0; i < num_clauses; i++)
+            {
+                clauses.add(RandomLits(rand, num_vars, 1 + rand.nextInt(Math.min(3, num_vars))));
+            }
+            ArrayList<int[]> at_most_lits = new ArrayList<int[]>();
+            ArrayList<int[]> at_most_weights = new ArrayList<int[]>();
+            ArrayList<Integer> at_most_bounds = new ArrayList<Integer>();
+            int num_at_most = rand.nextInt(3);
+            for(int i = 0; i < num_at_most; i++)
+            {
+                int[] lits = RandomLits(rand, num_vars, 1 + rand.nextInt(num_vars));
+                int[] weights = RandomWeights(rand, lits.length);
+                at_most_lits.add(lits);
+                at_most_weights.add(weights);
+                at_most_bounds.add(rand.nextInt(Sum(weights) + 1));
+            }
+            int[] objective_lits = RandomLits(rand, num_vars, num_vars);
+            int[] objective_weights = RandomWeights(rand, num_vars);
+
+            // the smallest objective of every assignment (-1 if none satisfies the constraints)
+            int best = -1;
+            for(int mask = 0; mask < (1 << num_vars); mask++)
+            {
+                boolean[] model = new boolean[num_vars];
+                for(int i = 0; i < num_vars; i++)
+                {
+                    model[i] = ((mask >> i) & 1) == 1;
+                }
+                if(Holds(model, clauses, at_most_lits, at_most_weights, at_most_bounds))
+                {
+                    int objective = WeightedSum(model, objective_lits, objective_weights);
+                    best = (best == -1) ? objective : Math.min(best, objective);
+                }
+            }
+
+            PbSolver solver = new PbSolver();
+            for(int i = 0; i < num_vars; i++)
+            {
+                solver.NewVar();
+            }
+            for(int[] clause: clauses)
+            {
+                solver.AddClause(clause);
+            }
+            for(int i = 0; i < num_at_most; i++)
+            {
+                solver.AddAtMost(at_most_lits.get(i), at_most_weights.get(i), at_most_bounds.get(i));
+            }
+            int bound = Sum(objective_weights);
+            int objective_id = solver.AddAtMost(objective_lits, objective_weights, bound);
+
+            // the objective of the last model (-1 if there was none)
+            int found = -1;
+            long end_time = System.nanoTime() + TIME_LIMIT_MS * 1000000L;
+            int status = solver.Solve(new Environment(), end_time);
+            solves++;
+            while(status == PbSolver.SAT)
+            {
+                boolean[] model = solver.Model();
+                found = WeightedSum(model, objective_lits, objective_weights);
+                if(!Holds(model, clauses, at_most_lits, at_most_weights, at_most_bounds) || found > bound)
+                {
+                    Fail(String.format("solver instance %d: the model breaks a constraint with the objective at most %d", instance, bound));
+                    break;
+                }
+                bound = found - 1;
+                status = solver.SetBound(objective_id, bound) ? solver.Solve(new Environment(), end_time) : PbSolver.UNSAT;
+                solves++;
+            }
+
+            if(status == PbSolver.UNKNOWN)
+            {
+                Skip(String.format("solver instance %d", instance));
+            }
+            else if(status == PbSolver.UNSAT && found != best)
+            {
+                Fail(String.format("solver instance %d: the solver ends at objective %d, the enumeration at %d (-1 is no model)", instance, found, best));
+            }
+            checked++;
+        }
+        System.out.println(String.format("SelfCheck: %d solver instances checked with %d solves", checked, solves));
+
+        // n + 1 pigeons do not fit in n holes, this needs many conflicts so the restarts and the learned clause database are used
+        for(int holes = 1; holes <= MAX_PIGEON_HOLES; holes++)
+        {
+            PbSolver solver = new PbSolver();
+            for(int i = 0; i < (holes + 1) * holes; i++)
+            {
+                solver.NewVar();
+            }
+            for(int pigeon = 0; pigeon <= holes; pigeon++)
+            {
+                int[] clause = new int[holes];
+                for(int hole = 0; hole < holes; hole++)
+                {
+                    clause[hole] = PbSolver.Pos(pigeon * holes + hole);
+                }
+                solver.AddClause(clause);
+            }
+            for(int hole = 0; hole < holes; hole++)
+            {
+                int[] lits = new int[holes + 1];
+                int[] weights = new int[holes + 1];
+                for(int pigeon = 0; pigeon <= holes; pigeon++)
+                {
+                    lits[pigeon] = PbSolver.Pos(pigeon * holes + hole);
+                    weights[pigeon] = 1;
+                }
+                solver.AddAtMost(lits, weights, 1);
+            }
+
+            int status = solver.Solve(new Environment(), System.nanoTime() + TIME_LIMIT_MS * 1000000L);
+            if(status == PbSolver.UNKNOWN)
+            {
+                Skip(String.format("%d pigeons in %d holes", holes + 1, holes));
+            }
+            else if(status != PbSolver.UNSAT)
+            {
+                Fail(String.format("the solver fits %d pigeons in %d holes", holes + 1, holes));
+            }
+        }
+        System.out.println(String.format("SelfCheck: pigeon hole instances up to %d holes checked", MAX_PIGEON_HOLES));
+    }
+
+    /**
+     * random literals of distinct vars
+     * @param rand the random number generator
+     * @param num_vars the number of vars
+     * @param count the number of literals (at most num_vars)
+     * @return the literals
+     */
+    private static int[] RandomLits(Random rand, int num_vars, int count)
+    {
+        ArrayList<Integer> vars = new ArrayList<Integer>();
+        for(int i = 0; i < num_vars; i++)
+        {
+            vars.add(i);
+        }
+        Collections.shuffle(vars, rand);
+
+        int[] lits = new int[count];
+        for(int i = 0; i < count; i++)
+        {
+            lits[i] = rand.nextBoolean() ? PbSolver.Pos(vars.get(i)) : PbSolver.Neg(vars.get(i));
+        }
+        return lits;
+    }
+
+    /**
+     * random positive weights
+     * @param rand the random number generator
+     * @param count the number of weights
+     * @return the weights
+     */
+    private static int[] RandomWeights(Random rand, int count)
+    {
+        int[] weights = new int[count];
+        for(int i = 0; i < count; i++)
+        {
+            weights[i] = 1 + rand.nextInt(MAX_SOLVER_WEIGHT);
+        }
+        return weights;
+    }
+
+    /**
+     * the sum of an array
+     * @param values the array
+     * @return the sum
+     */
+    private static int Sum(int[] values)
+    {
+        int sum = 0;
+        for(int i = 0; i < values.length; i++)
+        {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * the sum of the weights of the true literals under an assignment
+     * @param model index is the var, value is true if the var is true
+     * @param lits the literals
+     * @param weights the weight of each literal
+     * @return the sum
+     */
+    private static int WeightedSum(boolean[] model, int[] lits, int[] weights)
+    {
+        int sum = 0;
+        for(int i = 0; i < lits.length; i++)
+        {
+            if(model[lits[i] >> 1] == ((lits[i] & 1) == 0))
+            {
+                sum += weights[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * does an assignment satisfy every clause and at-most constraint
+     * @param model index is the var, value is true if the var is true
+     * @param clauses the clauses
+     * @param at_most_lits the literals of each at-most constraint
+     * @param at_most_weights the weights of each at-most constraint
+     * @param at_most_bounds the bound of each at-most constraint
+     * @return true if every constraint holds
+     */
+    private static boolean Holds(boolean[] model, ArrayList<int[]> clauses, ArrayList<int[]> at_most_lits, ArrayList<int[]> at_most_weights, ArrayList<Integer> at_most_bounds)
+    {
+        for(int[] clause: clauses)
+        {
+            int[] ones = new int[clause.length];
+            Arrays.fill(ones, 1);
+            if(WeightedSum(model, clause, ones) == 0)
+            {
+                return false;
+            }
+        }
+        for(int i = 0; i < at_most_lits.size(); i++)
+        {
+            if(WeightedSum(model, at_most_lits.get(i), at_most_weights.get(i)) > at_most_bounds.get(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // input files #########################################################################################################################
+
+    /**
+     * compare the MaxSat engine, the And search and the model on an input file
+     * @param file_name the input file
+     */
+    private static void CheckInstance(String file_name)
+    {
+        // sudo code:
+        // parse and presolve the input file like Main does
+        // run the And search and MaxSatSearch, each on its own copy of the environment with its own deadline
+        // if both prove their best score then the scores must be the same
+        // the objective of the model must be the Eval score of the greedy and the best schedules
+
+        Environment env = new Environment();
+        env.SetWeights(WEIGHTS[0], WEIGHTS[1], WEIGHTS[2], WEIGHTS[3], WEIGHTS[4], WEIGHTS[5], WEIGHTS[6], WEIGHTS[7], MAX_ITERATIONS, TIME_LIMIT_MS / 1000);
+        env.deadline = new Deadline(Deadline.NO_LIMIT, TIME_LIMIT_MS);
+        Problem s0 = new Problem();
+        if(!InputParser.ParseInputFile(file_name, env, s0))
+        {
+            Fail("could not parse " + file_name);
+            return;
+        }
+        Presolve presolve = new Presolve();
+        if(!presolve.Reduce(env, s0))
+        {
+            System.out.println("SelfCheck: " + file_name + " has no valid schedule, skipped");
+            return;
+        }
+        Environment reduced_env = presolve.reduced_env;
+        Dominance.Analyse(reduced_env);
+        reduced_env.strategy = SearchStrategy.Create(reduced_env, "mrv", "bound", null, "min-bound", 0);
+
+        Environment and_env = reduced_env.Copy();
+        and_env.deadline = new Deadline(Deadline.NO_LIMIT, TIME_LIMIT_MS);
+        Problem and_sol = new Problem();
+        boolean and_found = new AndSearch(and_env, new Problem(presolve.reduced_s0)).RunSearch(and_sol);
+        boolean and_proven = and_env.lower_bound == and_env.best_score;
+
+        Environment sat_env = reduced_env.Copy();
+        sat_env.deadline = new Deadline(Deadline.NO_LIMIT, TIME_LIMIT_MS);
+        Problem sat_sol = new Problem();
+        boolean sat_found = new MaxSatSearch(sat_env, new Problem(presolve.reduced_s0), TIME_LIMIT_MS).RunSearch(sat_sol);
+        boolean sat_proven = sat_env.lower_bound == sat_env.best_score;
+
+        if(and_found && sat_found && and_proven && sat_proven && and_env.best_score != sat_env.best_score)
+        {
+            Fail(String.format("%s: the And search proves %d, MaxSat proves %d", file_name, and_env.best_score, sat_env.best_score));
+        }
+        else if(and_found != sat_found && (and_found ? sat_proven : and_proven))
+        {
+            Fail(String.format("%s: only %s finds a schedule", file_name, and_found ? "the And search" : "MaxSat"));
+        }
+        else if(and_found && sat_found && (and_proven ? sat_env.best_score < and_env.best_score : (sat_proven && and_env.best_score < sat_env.best_score)))
+        {
+            Fail(String.format("%s: a schedule beats the proven optimum, And %d, MaxSat %d", file_name, and_env.best_score, sat_env.best_score));
+        }
+
+        PbEncoding encoding = new PbEncoding(reduced_env, presolve.reduced_s0);
+        ArrayList<Problem> schedules = new ArrayList<Problem>();
+        Problem greedy = GreedySearch.Construct(reduced_env, presolve.reduced_s0);
+        if(greedy != null)
+        {
+            schedules.add(greedy);
+        }
+        if(and_found)
+        {
+            schedules.add(and_env.best_sol);
+        }
+        if(sat_found)
+        {
+            schedules.add(sat_env.best_sol);
+        }
+        for(Problem pr: schedules)
+        {
+            CheckObjective(file_name, encoding, reduced_env, pr);
+        }
+
+        System.out.println(String.format("SelfCheck: %s, And %s%s, MaxSat %s%s, %d schedules checked against the model", file_name,
+            and_found ? String.valueOf(and_env.best_score) : "none", and_proven ? " (proven)" : "",
+            sat_found ? String.valueOf(sat_env.best_score) : "none", sat_proven ? " (proven)" : "", schedules.size()));
+    }
+
+    /**
+     * check that the smallest objective of the model with the slots of a schedule is its Eval score
+     * @param file_name the input file (for the messages)
+     * @param encoding the model
+     * @param env the environment of the model
+     * @param pr the complete schedule
+     */
+    private static void CheckObjective(String file_name, PbEncoding encoding, Environment env, Problem pr)
+    {
+        // sudo code:
+        // fix the x vars to the slots of the schedule, the auxiliary vars are free
+        // with the objective at most score - offset there has to be a model, and it has to decode to the schedule
+        // with the objective at most score - offset - 1 there must not be one
+        // a solve that runs out of time is skipped, it says nothing about the model
+
+        int score = Functions.Eval(pr, env);
+        Environment solve_env = env.Copy();
+        solve_env.deadline = new Deadline(Deadline.NO_LIMIT, TIME_LIMIT_MS);
+        PbSolver solver = new PbSolver();
+        int objective = encoding.Load(solver);
+        boolean[] model = encoding.Encode(pr);
+        for(int e = 0; e < encoding.vars.length; e++)
+        {
+            for(int i = 0; encoding.vars[e] != null && i < encoding.vars[e].length; i++)
+            {
+                int var = encoding.vars[e][i];
+                solver.AddClause(new int[]{model[var] ? PbSolver.Pos(var) : PbSolver.Neg(var)});
+            }
+        }
+
+        long end_time = System.nanoTime() + TIME_LIMIT_MS * 1000000L;
+        int status = solver.SetBound(objective, score - encoding.offset) ? solver.Solve(solve_env, end_time) : PbSolver.UNSAT;
+        if(status == PbSolver.UNKNOWN)
+        {
+            Skip(String.format("%s: the model of a schedule with Eval score %d", file_name, score));
+            return;
+        }
+        if(status != PbSolver.SAT)
+        {
+            Fail(String.format("%s: the model has no assignment for a schedule with Eval score %d", file_name, score));
+            return;
+        }
+        Problem decoded = encoding.Decode(solver.Model());
+        if(!Arrays.equals(decoded.lectures, pr.lectures) || !Arrays.equals(decoded.tutorials, pr.tutorials))
+        {
+            Fail(String.format("%s: the model of a schedule with Eval score %d decodes to another schedule", file_name, score));
+        }
+        status = solver.SetBound(objective, score - encoding.offset - 1) ? solver.Solve(solve_env, end_time) : PbSolver.UNSAT;
+        if(status == PbSolver.UNKNOWN)
+        {
+            Skip(String.format("%s: the objective below the Eval score %d of a schedule", file_name, score));
+        }
+        else if(status != PbSolver.UNSAT)
+        {
+            Fail(String.format("%s: the objective of the model is below the Eval score %d of a schedule", file_name, score));
+        }
+    }
+
+    /**
+     * report a check that could not finish in its time limit
+     * @param message what was not checked
+     */
+    private static void Skip(String message)
+    {
+        skipped++;
+        System.out.println("SelfCheck skipped (time limit): " + message);
+    }
+
+    /**
+     * report a failed check
+     * @param message what failed
+     */
+    private static void Fail(String message)
+    {
+        failures++;
+        System.out.println("SelfCheck failed: " + message);
+    }
+}
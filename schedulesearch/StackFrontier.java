@@ -0,0 +1,56 @@
+package schedulesearch;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * StackFrontier expands the last added leaf first, a plain depth first search without the cost of a priority queue
+ */
+class StackFrontier implements Frontier
+{
+    // the leaves, next leaf to expand first
+    private ArrayDeque<Problem> stack = new ArrayDeque<Problem>();
+
+    /**
+     * add a leaf
+     * @param pr the leaf
+     */
+    public void Add(Problem pr)
+    {
+        stack.push(pr);
+    }
+
+    /**
+     * remove the next leaf to expand
+     * @return the leaf, or null if the frontier is empty
+     */
+    public Problem Poll()
+    {
+        return stack.poll();
+    }
+
+    /**
+     * is the frontier empty
+     * @return true if there are no leaves left
+     */
+    public boolean IsEmpty()
+    {
+        return stack.isEmpty();
+    }
+
+    /**
+     * remove every leaf
+     */
+    public void Clear()
+    {
+        stack.clear();
+    }
+
+    /**
+     * iterate over the leaves in no particular order
+     * @return the iterator
+     */
+    public Iterator<Problem> iterator()
+    {
+        return stack.iterator();
+    }
+}
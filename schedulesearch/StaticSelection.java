@@ -0,0 +1,46 @@
+package schedulesearch;
+
+/**
+ * StaticSelection selects the first unassigned active lecture/tutorial in input order (lectures before tutorials)
+ * It only finds the valid slots of the lectures/tutorials it looks at, so a node is much cheaper than with MinDomainSelection
+ */
+class StaticSelection implements VariableSelection
+{
+    /**
+     * select the first unassigned lecture/tutorial that has a valid slot
+     * @param pr the problem to select from
+     * @param env the environment
+     * @param entity returns the selected id in index 0
+     * @return the valid slots of the selected lecture/tutorial, or null if nothing can be assigned
+     */
+    public int[] Select(Problem pr, Environment env, int[] entity)
+    {
+        entity[0] = -1;
+        for(int i = 0; i < pr.lectures.length; i++)
+        {
+            if(pr.lectures[i] == -1 && env.LectureActive(i))
+            {
+                int[] slots = Functions.ValidLectureSlots(env, i, pr);
+                if(slots != null)
+                {
+                    entity[0] = i;
+                    return slots;
+                }
+            }
+        }
+
+        for(int i = 0; i < pr.tutorials.length; i++)
+        {
+            if(pr.tutorials[i] == -1 && env.TutorialActive(i))
+            {
+                int[] slots = Functions.ValidTutSlots(env, i, pr);
+                if(slots != null)
+                {
+                    entity[0] = env.num_lectures + i;
+                    return slots;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,313 @@
+package schedulesearch;
+import java.util.Random;
+
+/**
+ * TabuSearch improves a complete schedule by always making the best move to another slot that is not tabu
+ * The preference, pair and section score of every movable lecture/tutorial in every slot is kept in a table together
+ * with the non capacity hard constraints. These only depend on the slots of the neighbours in the ConflictGraph, so after
+ * a move only the rows of the neighbours of the moved lecture/tutorial are recalculated. The min filled score and the
+ * capacities come from the slot fills, so every move of the full neighbourhood is evaluated in O(1)
+ */
+public class TabuSearch implements SearchEngine
+{
+    // the environment
+    Environment env;
+    // the starting state
+    Problem s0;
+    // the maximum number of moves to make
+    int max_iterations;
+    // the time limit in milliseconds
+    long time_limit;
+    // the base number of iterations a lecture/tutorial may not return to the slot it left
+    int tenure;
+    // the random number generator (used for the tenure and for breaking ties)
+    Random rand;
+
+    // the schedule
+    ScheduleState state;
+    // index is the entity id and then the slot id, value is the cost of the entity in the slot (null if not movable)
+    int[][] cost;
+    // index is the entity id and then the slot id, value is true if the non capacity constraints allow the slot
+    boolean[][] allowed;
+    // index is the entity id and then the slot id, value is the first iteration the move is not tabu
+    int[][] tabu_until;
+    // the conflict graph of the environment
+    ConflictGraph graph;
+
+    // the number of score trajectory lines to print
+    static final int TRAJECTORY_POINTS = 20;
+    // the number of swaps and Kempe chain exchanges to try when no single move improves the schedule
+    static final int COMPOUND_SAMPLES = 50;
+
+    /**
+     * initialization function for the TabuSearch
+     * @param _env the environment
+     * @param _s0 the starting state
+     * @param _max_iterations the maximum number of moves to make
+     * @param _time_limit the time limit in milliseconds
+     * @param _tenure the base number of iterations a lecture/tutorial may not return to the slot it left
+     * @param seed the seed of the random number generator
+     */
+    public TabuSearch(Environment _env, Problem _s0, int _max_iterations, long _time_limit, int _tenure, long seed)
+    {
+        env = _env;
+        s0 = _s0;
+        max_iterations = _max_iterations;
+        time_limit = _time_limit;
+        tenure = Math.max(1, _tenure);
+        rand = new Random(seed);
+    }
+
+    /**
+     * run the tabu search
+     * @param sf the final state to return
+     * @return true if a solution could be found, otherwise false
+     */
+    public boolean RunSearch(Problem sf)
+    {
+        // sudo code:
+        // start with a complete schedule and fill the cost table
+        // until the iteration or time budget runs out:
+        //      find the best valid move of any lecture/tutorial to another slot
+        //      (a move back to a slot that was left recently is tabu unless it gives a new best schedule)
+        //      if it does not improve the schedule, try a sample of swaps and Kempe chain exchanges instead
+        //      make the move and forbid moving back for a random number of iterations around the tenure
+        //      recalculate the rows of the neighbours of the moved lecture/tutorial
+        //      record the schedule if it is the best so far
+
+        if(env.best_sol == null)
+        {
+            GreedySearch.WarmStart(env, s0);
+        }
+        if(env.best_sol == null)
+        {
+            System.out.println("Tabu: no complete schedule to start from");
+            return false;
+        }
+
+        // only the root bound is known
+        s0.bound = Functions.MinBoundScore(s0, env);
+        env.lower_bound = Math.min(s0.bound, env.best_score);
+
+        state = new ScheduleState(env, env.best_sol, s0);
+        int[] entities = state.MovableEntities();
+        graph = new ConflictGraph(env);
+
+        int num_entities = env.num_lectures + env.num_tutorials;
+        cost = new int[num_entities][];
+        allowed = new boolean[num_entities][];
+        tabu_until = new int[num_entities][];
+        for(int i = 0; i < entities.length; i++)
+        {
+            int e = entities[i];
+            cost[e] = new int[state.NumSlots(e)];
+            allowed[e] = new boolean[state.NumSlots(e)];
+            tabu_until[e] = new int[state.NumSlots(e)];
+            UpdateRow(e);
+        }
+
+        int trajectory_interval = Math.max(1, max_iterations / TRAJECTORY_POINTS);
+        long start_time = System.nanoTime();
+        System.out.println(String.format("Tabu: start score %d, %d movable lectures/tutorials", state.score, entities.length));
+
+        // when every lecture/tutorial is fixed there is no move to make
+        int iterations = (entities.length == 0) ? 0 : max_iterations;
+        for(int k = 0; k < iterations; k++)
+        {
+            if((k & 15) == 0 && ((System.nanoTime() - start_time) / 1000000 > time_limit || env.SoftStopped()))
+            {
+                break;
+            }
+            if(k % trajectory_interval == 0)
+            {
+                System.out.println(String.format("Tabu: iteration %d, score %d, best %d", k, state.score, env.best_score));
+            }
+            env.iterations++;
+
+            // find the best move, ties are broken at random
+            int best_entity = -1;
+            int best_slot = -1;
+            int best_delta = Integer.MAX_VALUE;
+            int ties = 0;
+            for(int i = 0; i < entities.length; i++)
+            {
+                int e = entities[i];
+                int slot = state.SlotOf(e);
+                int current = cost[e][slot];
+                for(int t = 0; t < cost[e].length; t++)
+                {
+                    if(t == slot || !allowed[e][t] || !state.HasRoom(e, t))
+                    {
+                        continue;
+                    }
+
+                    int delta = cost[e][t] - current + state.MoveMinFilledDelta(e, t);
+                    // aspiration, a tabu move is allowed if it gives a new best schedule
+                    if(tabu_until[e][t] > k && state.score + delta >= env.best_score)
+                    {
+                        continue;
+                    }
+
+                    if(delta < best_delta)
+                    {
+                        best_delta = delta;
+                        best_entity = e;
+                        best_slot = t;
+                        ties = 1;
+                    }
+                    else if(delta == best_delta)
+                    {
+                        ties++;
+                        if(rand.nextInt(ties) == 0)
+                        {
+                            best_entity = e;
+                            best_slot = t;
+                        }
+                    }
+                }
+            }
+
+            // when no single move improves the schedule a swap or a Kempe chain exchange may
+            int[] moved = (best_delta >= 0) ? CompoundMove(entities, best_delta, k) : null;
+            if(moved == null)
+            {
+                if(best_entity == -1)
+                {
+                    // every move is tabu or invalid
+                    break;
+                }
+
+                int old_slot = state.SlotOf(best_entity);
+                state.Move(best_entity, best_slot);
+                tabu_until[best_entity][old_slot] = k + 1 + tenure + rand.nextInt(tenure);
+                moved = new int[]{best_entity};
+            }
+
+            // only the neighbours of the moved lectures/tutorials have a different cost or different allowed slots
+            for(int m = 0; m < moved.length; m++)
+            {
+                int[] neighbours = graph.neighbours[moved[m]];
+                for(int i = 0; i < neighbours.length; i++)
+                {
+                    if(cost[neighbours[i]] != null)
+                    {
+                        UpdateRow(neighbours[i]);
+                    }
+                }
+            }
+
+            if(state.score < env.best_score)
+            {
+                Problem best = new Problem(state.pr);
+                best.score = state.score;
+                env.UpdateBest(best, best.score);
+            }
+        }
+
+        System.out.println(String.format("Tabu: finished after %d iterations, score %d, best %d", env.iterations, state.score, env.best_score));
+
+        // return the best solution by reference
+        sf.lectures = env.best_sol.lectures.clone();
+        sf.tutorials = env.best_sol.tutorials.clone();
+        sf.depth = env.best_sol.depth;
+        sf.score = env.best_sol.score;
+        return true;
+    }
+
+    /**
+     * try a sample of random swaps and Kempe chain exchanges and make the best one if it beats the best single move
+     * @param entities the movable entities
+     * @param best_delta the change in score of the best single move
+     * @param k the current iteration
+     * @return the entity ids of the moved lectures/tutorials, or null if no move was made
+     */
+    private int[] CompoundMove(int[] entities, int best_delta, int k)
+    {
+        int[] best_moved = null;
+        boolean best_is_swap = false;
+        int best_slot_a = -1;
+        int best_slot_b = -1;
+        if(entities.length == 0)
+        {
+            return null;
+        }
+
+        for(int n = 0; n < COMPOUND_SAMPLES; n++)
+        {
+            int a = entities[rand.nextInt(entities.length)];
+            int slot_a = state.SlotOf(a);
+            int slot_b;
+            int[] moved;
+            int delta;
+            boolean is_swap = rand.nextBoolean();
+            if(is_swap)
+            {
+                int b = entities[rand.nextInt(entities.length)];
+                slot_b = state.SlotOf(b);
+                moved = new int[]{a, b};
+                delta = Moves.SwapDelta(state, a, b);
+            }
+            else
+            {
+                slot_b = rand.nextInt(state.NumSlots(a));
+                moved = Moves.KempeChain(state, graph, a, slot_b);
+                if(moved == null)
+                {
+                    continue;
+                }
+                delta = Moves.KempeDelta(state, moved, slot_a, slot_b);
+            }
+
+            // the move is tabu if the first lecture/tutorial would return to a slot it left recently
+            if(delta == Integer.MAX_VALUE || (tabu_until[a][slot_b] > k && state.score + delta >= env.best_score))
+            {
+                continue;
+            }
+            if(delta < best_delta)
+            {
+                best_delta = delta;
+                best_moved = moved;
+                best_is_swap = is_swap;
+                best_slot_a = slot_a;
+                best_slot_b = slot_b;
+            }
+        }
+
+        if(best_moved == null)
+        {
+            return null;
+        }
+
+        int[] old_slots = new int[best_moved.length];
+        for(int i = 0; i < best_moved.length; i++)
+        {
+            old_slots[i] = state.SlotOf(best_moved[i]);
+        }
+        if(best_is_swap)
+        {
+            Moves.Swap(state, best_moved[0], best_moved[1]);
+        }
+        else
+        {
+            Moves.Kempe(state, best_moved, best_slot_a, best_slot_b);
+        }
+        for(int i = 0; i < best_moved.length; i++)
+        {
+            tabu_until[best_moved[i]][old_slots[i]] = k + 1 + tenure + rand.nextInt(tenure);
+        }
+        return best_moved;
+    }
+
+    /**
+     * recalculate the cost and allowed slots of an entity
+     * @param entity the entity id
+     */
+    private void UpdateRow(int entity)
+    {
+        for(int t = 0; t < cost[entity].length; t++)
+        {
+            cost[entity][t] = state.Cost(entity, t);
+            allowed[entity][t] = state.Allowed(entity, t);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package schedulesearch;
+
+/**
+ * ValueOrdering orders the children of a problem in the And search (div), the first child is the first choice
+ * The slot of the guiding solution (phase saving or a previous schedule) always goes first
+ */
+public interface ValueOrdering
+{
+    /**
+     * order the children of a problem
+     * @param pr the problem that was divided
+     * @param env the environment
+     * @param entity the id of the assigned lecture/tutorial (lectures are 0 to num_lectures-1, tutorials follow)
+     * @param children the children with their bounds set, they are sorted in place
+     * @param slots the slot of each child, sorted with the children
+     */
+    void Order(Problem pr, Environment env, int entity, Problem[] children, int[] slots);
+}
@@ -0,0 +1,16 @@
+package schedulesearch;
+
+/**
+ * VariableSelection chooses the lecture/tutorial the And search assigns next (ftrans)
+ */
+public interface VariableSelection
+{
+    /**
+     * select the next lecture or tutorial to assign
+     * @param pr the problem to select from
+     * @param env the environment
+     * @param entity returns the selected id in index 0 (lectures are 0 to num_lectures-1, tutorials follow)
+     * @return the valid slots of the selected lecture/tutorial, or null if nothing can be assigned
+     */
+    int[] Select(Problem pr, Environment env, int[] entity);
+}